@@ -63,4 +63,10 @@ public interface RoleService {
 
     void updateMembers(String roleName, Collection<String> members);
 
+    /**
+     * Removes the stored occupants of the virtual roles. The members of virtual roles are granted by rule, stored
+     * occupants are left over from the time before the roles became virtual. This is a one-off migration.
+     */
+    void removeOccupantsOfVirtualRoles();
+
 }
@@ -18,6 +18,7 @@ package org.bremersee.profile.business;
 
 import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
+import org.bremersee.profile.model.CursorPageDto;
 import org.bremersee.profile.model.UserProfileCreateRequestDto;
 import org.bremersee.profile.model.UserProfileDto;
 import org.bremersee.profile.model.UserRegistrationDto;
@@ -29,6 +30,18 @@ public interface UserProfileService {
 
     Page<UserProfileDto> findAll(PageRequest pageRequest);
 
+    /**
+     * Finds all entries with keyset pagination. The cursor of a page contains the query, so only the first page
+     * must be requested with a query.
+     *
+     * @param cursor        the cursor of the previous page or {@code null} for the first page
+     * @param pageSize      the page size (optional)
+     * @param query         the query of the first page (optional)
+     * @param estimateTotal whether the total number of entries should be estimated or not
+     * @return the page
+     */
+    CursorPageDto<UserProfileDto> findAll(String cursor, Integer pageSize, String query, boolean estimateTotal);
+
     UserProfileDto findByIdentifier(String identifier);
 
     UserProfileDto findByUserName(String userName);
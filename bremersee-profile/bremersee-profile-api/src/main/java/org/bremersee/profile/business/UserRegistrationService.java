@@ -19,6 +19,7 @@ package org.bremersee.profile.business;
 import org.bremersee.fac.model.AccessResultDto;
 import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
+import org.bremersee.profile.model.CursorPageDto;
 import org.bremersee.profile.model.UserRegistrationDto;
 import org.bremersee.profile.model.UserRegistrationRequestDto;
 
@@ -33,9 +34,39 @@ public interface UserRegistrationService {
 
     AccessResultDto processRegistrationValidation(String registrationHash, String remoteHost);
 
+    /**
+     * Checks whether the user name can be used by a new registration. The answer is a hint for the user, the
+     * registration request checks it again.
+     *
+     * @param userName the user name
+     * @return {@code true} if the user name is available, otherwise {@code false}
+     */
+    boolean isUserNameAvailable(String userName);
+
+    /**
+     * Checks whether the email can be used by a new registration. The answer is a hint for the user, the
+     * registration request checks it again.
+     *
+     * @param email the email
+     * @return {@code true} if the email is available, otherwise {@code false}
+     */
+    boolean isEmailAvailable(String email);
+
 
     Page<UserRegistrationDto> findAll(PageRequest pageRequest);
 
+    /**
+     * Finds all entries with keyset pagination. The cursor of a page contains the query, so only the first page
+     * must be requested with a query.
+     *
+     * @param cursor        the cursor of the previous page or {@code null} for the first page
+     * @param pageSize      the page size (optional)
+     * @param query         the query of the first page (optional)
+     * @param estimateTotal whether the total number of entries should be estimated or not
+     * @return the page
+     */
+    CursorPageDto<UserRegistrationDto> findAll(String cursor, Integer pageSize, String query, boolean estimateTotal);
+
     UserRegistrationDto findByRegistrationHash(String registrationHash);
 
     UserRegistrationDto findByUserName(String userName);
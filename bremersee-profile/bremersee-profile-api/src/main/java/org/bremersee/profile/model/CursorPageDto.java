@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.profile.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import javax.xml.bind.annotation.*;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of a keyset (cursor) pagination. The next page is requested with the opaque cursor of this page.
+ *
+ * @author Christian Bremer
+ */
+//@formatter:off
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "cursorPage")
+@XmlType(name = "cursorPageType", propOrder = {
+        "entries",
+        "nextCursor",
+        "estimatedTotal"
+})
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(Include.NON_NULL)
+@JsonPropertyOrder(alphabetic = true)
+@Data
+//@formatter:on
+public class CursorPageDto<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @XmlElementWrapper(name = "entries")
+    @XmlAnyElement(lax = true)
+    @ApiModelProperty(value = "The entries of the page.")
+    private List<T> entries = new ArrayList<>();
+
+    @XmlElement(name = "nextCursor")
+    @ApiModelProperty(value = "The cursor of the next page or null, if this is the last page.")
+    private String nextCursor;
+
+    @XmlElement(name = "estimatedTotal")
+    @ApiModelProperty(value = "The estimated number of all entries, if it was requested.")
+    private Long estimatedTotal;
+
+}
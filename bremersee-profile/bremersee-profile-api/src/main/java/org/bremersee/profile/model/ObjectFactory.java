@@ -26,6 +26,10 @@ import javax.xml.bind.annotation.XmlRegistry;
 @XmlRegistry
 public class ObjectFactory {
     
+    public CursorPageDto<Object> createCursorPageDto() {
+        return new CursorPageDto<>();
+    }
+
     public MailChangeRequestDto createMailChangeRequestDto() {
         return new MailChangeRequestDto();
     }
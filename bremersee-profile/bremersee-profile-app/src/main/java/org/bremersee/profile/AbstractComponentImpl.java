@@ -22,6 +22,7 @@ import org.bremersee.common.security.acls.model.ObjectIdentityUtils;
 import org.bremersee.common.security.core.context.RunAsCallback;
 import org.bremersee.common.security.core.context.RunAsCallbackWithoutResult;
 import org.bremersee.common.security.core.context.RunAsUtil;
+import org.bremersee.profile.domain.ldap.dao.LdapConnectionScope;
 import org.bremersee.profile.model.RoleDto;
 import org.bremersee.profile.model.UserProfileDto;
 import org.slf4j.Logger;
@@ -92,7 +93,19 @@ public abstract class AbstractComponentImpl {
         adminAndSystemRoleNames = Collections.unmodifiableSet(adminAndSystemRoles);
 
 
-        doInit();
+        if (this instanceof StartupInitializer) {
+            log.info("Initialization of " + getClass().getSimpleName() + " is run by the startup orchestrator.");
+        } else {
+            initialize();
+        }
+    }
+
+    /**
+     * Runs {@link #doInit()}. Components that are a {@link StartupInitializer} are initialized by the
+     * {@link StartupOrchestrator} after the application context was refreshed, all others on creation.
+     */
+    public void initialize() {
+        LdapConnectionScope.run(this::doInit);
         log.info(getClass().getSimpleName() + " successfully initialized.");
     }
 
@@ -17,6 +17,8 @@
 package org.bremersee.profile;
 
 import org.apache.commons.lang3.StringUtils;
+import org.bremersee.profile.business.BoundedPasswordEncoder;
+import org.bremersee.profile.business.PasswordHashingExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +29,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
@@ -51,13 +54,19 @@ import org.springframework.security.oauth2.provider.ClientDetailsService;
 import org.springframework.security.oauth2.provider.expression.OAuth2MethodSecurityExpressionHandler;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
-import org.springframework.security.oauth2.provider.token.store.KeyStoreKeyFactory;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
 
 /**
  * @author Christian Bremer
@@ -110,11 +119,18 @@ public class Application extends WebSecurityConfigurerAdapter {
 
         private UserDetailsService userDetailsService;
 
+        private PasswordHashingExecutor passwordHashingExecutor;
+
         @Autowired
         public void setPasswordEncoder(PasswordEncoder passwordEncoder) {
             this.passwordEncoder = passwordEncoder;
         }
 
+        @Autowired(required = false)
+        public void setPasswordHashingExecutor(PasswordHashingExecutor passwordHashingExecutor) {
+            this.passwordHashingExecutor = passwordHashingExecutor;
+        }
+
         @Autowired
         public void setUserDetailsService(UserDetailsService userDetailsService) {
             this.userDetailsService = userDetailsService;
@@ -122,7 +138,9 @@ public class Application extends WebSecurityConfigurerAdapter {
 
         @Override
         public void init(AuthenticationManagerBuilder auth) throws Exception {
-            auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
+            auth.userDetailsService(userDetailsService).passwordEncoder(passwordHashingExecutor == null
+                    ? passwordEncoder
+                    : new BoundedPasswordEncoder(passwordEncoder, passwordHashingExecutor));
         }
     }
 
@@ -141,6 +159,8 @@ public class Application extends WebSecurityConfigurerAdapter {
 
         private ClientDetailsService clientDetailsService;
 
+        private PasswordHashingExecutor passwordHashingExecutor;
+
         @Autowired(required = false)
         public void setAuthorizationServerProperties(AuthorizationServerProperties authorizationServerProperties) {
             this.authorizationServerProperties = authorizationServerProperties;
@@ -162,26 +182,59 @@ public class Application extends WebSecurityConfigurerAdapter {
             this.clientDetailsService = clientDetailsService;
         }
 
+        @Autowired(required = false)
+        public void setPasswordHashingExecutor(PasswordHashingExecutor passwordHashingExecutor) {
+            this.passwordHashingExecutor = passwordHashingExecutor;
+        }
+
         @Bean
-        public JwtAccessTokenConverter jwtAccessTokenConverter() {
+        public DecodingJwtAccessTokenConverter jwtAccessTokenConverter() {
 
-            DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
-            KeyStoreKeyFactory keyStoreFactory = new KeyStoreKeyFactory(
-                    resourceLoader.getResource(authorizationServerProperties.getJwtKeyStoreLocation()),
-                    authorizationServerProperties.getJwtKeyStorePassword().toCharArray());
+            DecodingJwtAccessTokenConverter converter = new DecodingJwtAccessTokenConverter();
+            setKeyPair(converter, loadKeyPair());
+            return converter;
+        }
 
-            KeyPair keyPair;
-            if (StringUtils.isBlank(authorizationServerProperties.getJwtKeyPairPassword())) {
-                keyPair = keyStoreFactory.getKeyPair(authorizationServerProperties.getJwtKeyPairAlias());
-            } else {
-                keyPair = keyStoreFactory.getKeyPair(
-                        authorizationServerProperties.getJwtKeyPairAlias(),
-                        authorizationServerProperties.getJwtKeyPairPassword().toCharArray());
+        private KeyPair loadKeyPair() {
+            char[] storePassword = authorizationServerProperties.getJwtKeyStorePassword().toCharArray();
+            char[] keyPassword = StringUtils.isBlank(authorizationServerProperties.getJwtKeyPairPassword())
+                    ? storePassword
+                    : authorizationServerProperties.getJwtKeyPairPassword().toCharArray();
+            String alias = authorizationServerProperties.getJwtKeyPairAlias();
+            Resource resource = new DefaultResourceLoader().getResource(
+                    authorizationServerProperties.getJwtKeyStoreLocation());
+            try (InputStream in = resource.getInputStream()) {
+                KeyStore keyStore = KeyStore.getInstance(authorizationServerProperties.getJwtKeyStoreType());
+                keyStore.load(in, storePassword);
+                PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, keyPassword);
+                Certificate certificate = keyStore.getCertificate(alias);
+                if (privateKey == null || certificate == null) {
+                    throw new IllegalStateException("There is no key pair with alias '" + alias + "' in "
+                            + resource + ".");
+                }
+                return new KeyPair(certificate.getPublicKey(), privateKey);
+            } catch (IOException | GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot load key pair with alias '" + alias + "' from "
+                        + resource + ".", e);
             }
+        }
 
-            JwtAccessTokenConverter converter = new JwtAccessTokenConverter();
-            converter.setKeyPair(keyPair);
-            return converter;
+        /**
+         * Sets the signer and verifier of the key pair (RSA or elliptic curve) on the converter.
+         *
+         * @param converter the JWT access token converter
+         * @param keyPair   the key pair
+         */
+        static void setKeyPair(JwtAccessTokenConverter converter, KeyPair keyPair) {
+            if (keyPair.getPublic() instanceof ECPublicKey) {
+                EllipticCurveSignerVerifier signerVerifier = new EllipticCurveSignerVerifier(
+                        keyPair.getPrivate(), (ECPublicKey) keyPair.getPublic());
+                converter.setSigner(signerVerifier);
+                converter.setVerifier(signerVerifier);
+                converter.setVerifierKey(signerVerifier.getPublicKeyPem());
+            } else {
+                converter.setKeyPair(keyPair);
+            }
         }
 
         @Bean
@@ -204,7 +257,9 @@ public class Application extends WebSecurityConfigurerAdapter {
                     .tokenKeyAccess(authorizationServerProperties.getTokenKeyAccess())
                     .checkTokenAccess(authorizationServerProperties.getCheckTokenAccess())
                     .realm(authorizationServerProperties.getRealm())
-                    .passwordEncoder(passwordEncoder)
+                    .passwordEncoder(passwordHashingExecutor == null
+                            ? passwordEncoder
+                            : new BoundedPasswordEncoder(passwordEncoder, passwordHashingExecutor))
             ;
             if (authorizationServerProperties.isAllowFormAuthenticationForClients()) {
                 security.allowFormAuthenticationForClients();
@@ -225,9 +280,36 @@ public class Application extends WebSecurityConfigurerAdapter {
     @EnableResourceServer
     public static class ResourceServerConfiguration extends ResourceServerConfigurerAdapter {
 
+        private AuthorizationServerProperties authorizationServerProperties = new AuthorizationServerProperties();
+
+        private DecodingJwtAccessTokenConverter jwtAccessTokenConverter;
+
+        private ExpiringCache<String, CachingResourceServerTokenServices.VerifiedToken> accessTokenCache;
+
+        @Autowired(required = false)
+        public void setAuthorizationServerProperties(AuthorizationServerProperties authorizationServerProperties) {
+            this.authorizationServerProperties = authorizationServerProperties;
+        }
+
+        @Autowired
+        public void setJwtAccessTokenConverter(DecodingJwtAccessTokenConverter jwtAccessTokenConverter) {
+            this.jwtAccessTokenConverter = jwtAccessTokenConverter;
+        }
+
+        @Autowired
+        public void setAccessTokenCache(
+                ExpiringCache<String, CachingResourceServerTokenServices.VerifiedToken> accessTokenCache) {
+            this.accessTokenCache = accessTokenCache;
+        }
+
         @Override
         public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
-            // nothing to configure
+            if (authorizationServerProperties.isLocalTokenVerification()) {
+                // The JWT converter verifies the signature with the public key of the key pair, so there is no
+                // need to call the check token endpoint.
+                resources.tokenServices(new CachingResourceServerTokenServices(jwtAccessTokenConverter,
+                        accessTokenCache));
+            }
         }
 
         @Override
@@ -250,6 +332,7 @@ public class Application extends WebSecurityConfigurerAdapter {
                     .antMatchers(HttpMethod.OPTIONS).permitAll()
                     .antMatchers(HttpMethod.PUT, "/api/user-registration").permitAll()
                     .antMatchers(HttpMethod.GET, "/api/user-registration/validation/**").permitAll()
+                    .antMatchers(HttpMethod.GET, "/api/readiness").permitAll()
                     //.antMatchers("/api/**").fullyAuthenticated();
                     .anyRequest().authenticated();
         }
@@ -30,8 +30,17 @@ public class AuthorizationServerProperties {
 
     private String jwtKeyStoreLocation = "classpath:/jwt.jks";
 
+    /**
+     * The type of the key store (e. g. jks or pkcs12).
+     */
+    private String jwtKeyStoreType = "jks";
+
     private String jwtKeyStorePassword = "changeit"; // NOSONAR
 
+    /**
+     * The alias of the key pair that signs the JWTs. RSA keys are signed with RS256, elliptic curve keys
+     * with ES256 (P-256) or ES512 (P-521).
+     */
     private String jwtKeyPairAlias = "jwt";
 
     private String jwtKeyPairPassword = null;
@@ -46,4 +55,10 @@ public class AuthorizationServerProperties {
 
     private boolean sslOnly = false;
 
+    /**
+     * If {@code true}, the resource server verifies the access tokens (JWTs) with the public key of the key pair.
+     * Otherwise the token services of {@code security.oauth2.resource} are used (e. g. the check token endpoint).
+     */
+    private boolean localTokenVerification = true;
+
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import org.bremersee.profile.domain.ldap.dao.LdapEntryCache;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.provider.ClientDetails;
+
+/**
+ * @author Christian Bremer
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * The cache of the user details (password hash and authorities) that are used for authentication. The key is
+     * the user name or email that was used to login, the user name of the cached value is the uid. The entries are
+     * indexed by the uid.
+     *
+     * @return the user details cache
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "profile.business.user-details-cache")
+    public ExpiringCache<String, User> userDetailsCache() {
+        return new ExpiringCache<>(User::getUsername);
+    }
+
+    /**
+     * The cache of the OAuth2 client details. The key is the client ID.
+     *
+     * @return the client details cache
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "profile.business.client-details-cache")
+    public ExpiringCache<String, ClientDetails> clientDetailsCache() {
+        return new ExpiringCache<>();
+    }
+
+    /**
+     * The cache of the verified access tokens of the resource server. The key is the token value.
+     *
+     * @return the access token cache
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "profile.resource-server.access-token-cache")
+    public ExpiringCache<String, CachingResourceServerTokenServices.VerifiedToken> accessTokenCache() {
+        return new ExpiringCache<>();
+    }
+
+    /**
+     * The cache of the object identities that have no ACL. It is used to prefetch the ACLs of a page without
+     * looking up the missing ones again.
+     *
+     * @return the missing ACL cache
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "profile.business.missing-acl-cache")
+    public ExpiringCache<ObjectIdentity, Boolean> missingAclCache() {
+        final ExpiringCache<ObjectIdentity, Boolean> cache = new ExpiringCache<>();
+        cache.setTimeToLiveSeconds(30L);
+        return cache;
+    }
+
+    /**
+     * The near-cache of the LDAP entries of users, roles and groups. The key is the DN. It is disabled by default
+     * ({@code profile.domain.ldap.entry-cache.enabled}).
+     *
+     * @return the LDAP entry cache
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "profile.domain.ldap.entry-cache")
+    public LdapEntryCache ldapEntryCache() {
+        return new LdapEntryCache();
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Resource server token services that verify JWT access tokens locally and cache the authentications of verified
+ * tokens until the tokens expire, so that a token is verified only once and not on every request. The access
+ * token and the authentication are extracted from one decoded token.
+ *
+ * @author Christian Bremer
+ */
+public class CachingResourceServerTokenServices implements ResourceServerTokenServices {
+
+    private final DecodingJwtAccessTokenConverter converter;
+
+    private final ExpiringCache<String, VerifiedToken> cache;
+
+    /**
+     * Creates caching token services.
+     *
+     * @param converter the converter that verifies and decodes the access tokens
+     * @param cache     the cache of the verified access tokens
+     */
+    public CachingResourceServerTokenServices(final DecodingJwtAccessTokenConverter converter,
+                                              final ExpiringCache<String, VerifiedToken> cache) {
+        this.converter = converter;
+        this.cache = cache;
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(final String accessToken)
+            throws AuthenticationException, InvalidTokenException {
+
+        final VerifiedToken verifiedToken = cache.get(accessToken, this::verify);
+        if (verifiedToken.isExpired()) {
+            cache.remove(accessToken);
+            throw new InvalidTokenException("Access token expired: " + accessToken);
+        }
+        // The caller sets the request details, so every request gets its own authentication.
+        final OAuth2Authentication authentication = verifiedToken.authentication;
+        return new OAuth2Authentication(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+    }
+
+    private VerifiedToken verify(final String accessToken) {
+        final Map<String, Object> claims = converter.decodeClaims(accessToken);
+        final OAuth2AccessToken token = extractAccessToken(accessToken, claims);
+        return new VerifiedToken(converter.extractAuthentication(claims), token.getExpiration());
+    }
+
+    private OAuth2AccessToken extractAccessToken(final String accessToken, final Map<String, Object> claims) {
+        final OAuth2AccessToken token = converter.extractAccessToken(accessToken, claims);
+        if (converter.isRefreshToken(token)) {
+            throw new InvalidTokenException("Encoded token is a refresh token");
+        }
+        return token;
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(final String accessToken) {
+        return extractAccessToken(accessToken, converter.decodeClaims(accessToken));
+    }
+
+    /**
+     * The authentication of a verified access token.
+     */
+    public static class VerifiedToken {
+
+        private final OAuth2Authentication authentication;
+
+        private final Date expiration;
+
+        VerifiedToken(final OAuth2Authentication authentication, final Date expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.util.Map;
+
+/**
+ * A JWT access token converter that makes the decoding of a token available, so that the access token and the
+ * authentication can be extracted from one decoded (and verified) token.
+ *
+ * @author Christian Bremer
+ */
+public class DecodingJwtAccessTokenConverter extends JwtAccessTokenConverter {
+
+    /**
+     * Verifies the signature of the token and returns its claims.
+     *
+     * @param token the token value
+     * @return the claims
+     * @throws org.springframework.security.oauth2.common.exceptions.InvalidTokenException if the token is invalid
+     */
+    public Map<String, Object> decodeClaims(final String token) {
+        return decode(token);
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.security.jwt.crypto.sign.SignerVerifier;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Signature;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
+
+/**
+ * Signs and verifies JWTs with an elliptic curve key pair (ES256 or ES512).
+ * <p>
+ * The signature is the concatenation of R and S as required by JWS, not the DER encoding of the JCA.
+ *
+ * @author Christian Bremer
+ */
+public class EllipticCurveSignerVerifier implements SignerVerifier {
+
+    private static final Provider PROVIDER = new BouncyCastleProvider();
+
+    private final PrivateKey privateKey;
+
+    private final ECPublicKey publicKey;
+
+    private final String algorithm;
+
+    /**
+     * Creates a signer and verifier.
+     *
+     * @param privateKey the private key, may be {@code null} if only verification is required
+     * @param publicKey  the public key
+     */
+    public EllipticCurveSignerVerifier(final PrivateKey privateKey, final ECPublicKey publicKey) {
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+        this.algorithm = getAlgorithm(publicKey);
+    }
+
+    /**
+     * Returns the java name of the signature algorithm that fits the curve of the key.
+     *
+     * @param key the elliptic curve key
+     * @return the java name of the signature algorithm
+     */
+    static String getAlgorithm(final ECKey key) {
+        final int fieldSize = key.getParams().getCurve().getField().getFieldSize();
+        switch (fieldSize) {
+            case 256:
+                return "SHA256withECDSA";
+            case 521:
+                return "SHA512withECDSA";
+            default:
+                throw new IllegalArgumentException("Unsupported elliptic curve with field size " + fieldSize
+                        + " (supported are P-256 and P-521).");
+        }
+    }
+
+    private Signature createSignature() throws GeneralSecurityException {
+        // the 'PLAIN-ECDSA' signatures of bouncy castle are encoded as R || S
+        return Signature.getInstance(algorithm.replace("ECDSA", "PLAIN-ECDSA"), PROVIDER);
+    }
+
+    @Override
+    public String algorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public byte[] sign(final byte[] bytes) {
+        if (privateKey == null) {
+            throw new IllegalStateException("There is no private key to sign.");
+        }
+        try {
+            final Signature signature = createSignature();
+            signature.initSign(privateKey);
+            signature.update(bytes);
+            return signature.sign();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Signing failed.", e);
+        }
+    }
+
+    @Override
+    public void verify(final byte[] content, final byte[] sig) {
+        final boolean valid;
+        try {
+            final Signature signature = createSignature();
+            signature.initVerify(publicKey);
+            signature.update(content);
+            valid = signature.verify(sig);
+        } catch (GeneralSecurityException e) {
+            throw new InvalidSignatureException("Signature verification failed: " + e.getMessage());
+        }
+        if (!valid) {
+            throw new InvalidSignatureException("Signature did not match content.");
+        }
+    }
+
+    /**
+     * Returns the public key in PEM format, as it is published by the token key endpoint.
+     *
+     * @return the public key in PEM format
+     */
+    public String getPublicKeyPem() {
+        return "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(publicKey.getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+    }
+
+}
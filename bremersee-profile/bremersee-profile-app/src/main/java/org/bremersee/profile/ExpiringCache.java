@@ -0,0 +1,319 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import lombok.ToString;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded in-process cache whose entries expire after a fixed time to live. Reading a value doesn't lock. If the
+ * cache is full, the least recently used entries are evicted. The hit and miss counts are exposed as managed
+ * attributes (JMX).
+ * <p>
+ * The entries can be indexed by a key that is derived from the value (e. g. the user name of user details that are
+ * cached by user name and by email), so that all entries of an index key can be removed without a scan.
+ *
+ * @author Christian Bremer
+ */
+@ManagedResource
+@ToString(of = {"timeToLiveSeconds", "maxSize"})
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final Function<V, ?> indexer;
+
+    private final ConcurrentMap<Object, Set<K>> index = new ConcurrentHashMap<>();
+
+    /**
+     * The sequence numbers of the latest removals by key or index key. A value that was loaded before the removal
+     * of its key or index key is not cached.
+     */
+    private final ConcurrentMap<Object, Long> removals = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Values that were loaded before this sequence number are not cached (the removals before were forgotten).
+     */
+    private final AtomicLong forgottenRemovals = new AtomicLong();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private long timeToLiveSeconds = 60L;
+
+    private int maxSize = 10000;
+
+    /**
+     * Creates a cache without index.
+     */
+    public ExpiringCache() {
+        this(null);
+    }
+
+    /**
+     * Creates a cache whose entries are indexed.
+     *
+     * @param indexer returns the index key of a value (may be {@code null})
+     */
+    public ExpiringCache(final Function<V, ?> indexer) {
+        this.indexer = indexer;
+    }
+
+    public long getTimeToLiveSeconds() {
+        return timeToLiveSeconds;
+    }
+
+    public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+        this.timeToLiveSeconds = timeToLiveSeconds;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached value of the key. If there is no (valid) value, the value is loaded and cached. Concurrent
+     * misses of the same key may load the value twice. A value whose key or index key is removed while it is loaded
+     * is returned but not cached.
+     *
+     * @param key    the key
+     * @param loader the loader of the value (it may throw an exception, then nothing is cached)
+     * @return the value
+     */
+    public V get(final K key, final Function<K, V> loader) {
+        final long now = System.currentTimeMillis();
+        final Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            entry.lastAccess = System.nanoTime();
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        final long loadSequence = sequence.get();
+        final V value = loader.apply(key);
+        if (value != null && timeToLiveSeconds > 0L && maxSize > 0) {
+            put(key, value, now + timeToLiveSeconds * 1000L, loadSequence);
+        }
+        return value;
+    }
+
+    private void put(final K key, final V value, final long expiresAt, final long loadSequence) {
+        final Object indexKey = indexer == null ? null : indexer.apply(value);
+        final Entry<V> entry = new Entry<>(value, indexKey, expiresAt);
+        final Entry<V> replaced = entries.put(key, entry);
+        if (replaced != null) {
+            unindex(key, replaced);
+        }
+        if (indexKey != null) {
+            index.compute(indexKey, (k, keys) -> {
+                final Set<K> set = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                set.add(key);
+                return set;
+            });
+        }
+        // The removals are checked after the entry was indexed: a removal that isn't seen here removes the entry.
+        if (isRemovedAfter(key, loadSequence) || (indexKey != null && isRemovedAfter(indexKey, loadSequence))) {
+            remove(key, entry);
+            return;
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    private boolean isRemovedAfter(final Object key, final long loadSequence) {
+        if (forgottenRemovals.get() > loadSequence) {
+            return true;
+        }
+        final Long removal = removals.get(key);
+        return removal != null && removal > loadSequence;
+    }
+
+    private void recordRemoval(final Object key) {
+        removals.put(key, sequence.incrementAndGet());
+        if (removals.size() > Math.max(maxSize, 16)) {
+            // loads that are running are not cached, so the recorded removals can be forgotten
+            forgetRemovals();
+        }
+    }
+
+    private void forgetRemovals() {
+        final long current = sequence.incrementAndGet();
+        forgottenRemovals.accumulateAndGet(current, Math::max);
+        removals.clear();
+    }
+
+    private void remove(final K key, final Entry<V> entry) {
+        if (entries.remove(key, entry)) {
+            unindex(key, entry);
+        }
+    }
+
+    private void unindex(final K key, final Entry<V> entry) {
+        if (entry.indexKey != null) {
+            index.computeIfPresent(entry.indexKey, (k, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * Removes the expired entries and the least recently used entries, so that a tenth of the cache is free again.
+     * Only one thread evicts at a time, the others don't wait.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final long now = System.currentTimeMillis();
+            final List<Map.Entry<K, Entry<V>>> candidates = new ArrayList<>(entries.size());
+            for (final Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+                if (e.getValue().expiresAt <= now) {
+                    remove(e.getKey(), e.getValue());
+                } else {
+                    candidates.add(e);
+                }
+            }
+            final int excess = entries.size() - (maxSize - maxSize / 10);
+            if (excess > 0) {
+                candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+                for (int i = 0; i < excess && i < candidates.size(); i++) {
+                    remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Removes the value of the key.
+     *
+     * @param key the key
+     */
+    public void remove(final K key) {
+        recordRemoval(key);
+        final Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+    }
+
+    /**
+     * Removes the values of all given index keys.
+     *
+     * @param indexKeys the index keys
+     */
+    public void removeByIndex(final Collection<?> indexKeys) {
+        for (final Object indexKey : indexKeys) {
+            recordRemoval(indexKey);
+            final Set<K> keys = index.remove(indexKey);
+            if (keys != null) {
+                for (final K key : keys) {
+                    final Entry<V> entry = entries.get(key);
+                    if (entry != null && indexKey.equals(entry.indexKey)) {
+                        remove(key, entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @ManagedOperation(description = "Removes all entries.")
+    public void clear() {
+        forgetRemovals();
+        entries.clear();
+        index.clear();
+    }
+
+    @ManagedAttribute(description = "The number of entries.")
+    public int getSize() {
+        return entries.size();
+    }
+
+    @ManagedAttribute(description = "The number of cache hits.")
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(description = "The number of cache misses.")
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "The number of entries that were evicted because the cache was full.")
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @ManagedAttribute(description = "The ratio of hits to all requests.")
+    public double getHitRatio() {
+        final long h = hits.sum();
+        final long total = h + misses.sum();
+        return total == 0L ? 0D : (double) h / total;
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final Object indexKey;
+
+        private final long expiresAt;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(final V value, final Object indexKey, final long expiresAt) {
+            this.value = value;
+            this.indexKey = indexKey;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.profile;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.bremersee.profile.domain.ldap.dao.LdapConnectionScope;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+/**
+ * Opens a {@link LdapConnectionScope} around each call of a service, so that all ldap operations of the service
+ * call (and of nested service calls) share one pooled connection. The connection is returned to the pool as soon
+ * as the outermost service call returns, it isn't held while a response is written.
+ * <p>
+ * The advisor is a plain Spring AOP advisor with the infrastructure role, so it is applied by the auto proxy
+ * creator of the method security, too; AspectJ is not required.
+ *
+ * @author Christian Bremer
+ */
+@Configuration
+public class LdapConnectionScopeConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor ldapConnectionScopeAdvisor() {
+        final DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Service.class, true), new LdapConnectionScopeInterceptor());
+        // the scope encloses the security checks, which may read ldap entries, too
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return advisor;
+    }
+
+    /**
+     * The interceptor that opens the scope.
+     */
+    static class LdapConnectionScopeInterceptor implements MethodInterceptor {
+
+        @Override
+        public Object invoke(final MethodInvocation invocation) throws Throwable {
+            LdapConnectionScope.begin();
+            try {
+                return invocation.proceed();
+            } finally {
+                LdapConnectionScope.end();
+            }
+        }
+    }
+
+}
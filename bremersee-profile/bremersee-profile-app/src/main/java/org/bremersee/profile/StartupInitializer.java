@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A component whose initialization is run by the {@link StartupOrchestrator} after the application context was
+ * refreshed instead of during its creation.
+ *
+ * @author Christian Bremer
+ */
+public interface StartupInitializer {
+
+    /**
+     * Returns the unique name of the initializer.
+     *
+     * @return the name
+     */
+    String getInitializerName();
+
+    /**
+     * Returns the names of the initializers that must be finished before this one is started.
+     *
+     * @return the names of the dependencies
+     */
+    default Collection<String> getInitializerDependencies() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Returns whether the application is ready only after this initializer has finished.
+     *
+     * @return {@code true} if the initializer is critical, otherwise {@code false}
+     */
+    default boolean isCriticalInitializer() {
+        return true;
+    }
+
+    /**
+     * Initializes the component.
+     */
+    void initialize();
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the {@link StartupInitializer}s after the application context was refreshed. An initializer is started as
+ * soon as all of its dependencies are finished, so independent initializers run in parallel. If an initializer
+ * fails, the initializers that depend on it are not run.
+ * <p>
+ * The application is ready, when all critical initializers are finished.
+ *
+ * @author Christian Bremer
+ */
+@Component
+@ManagedResource
+public class StartupOrchestrator implements ApplicationContextAware {
+
+    /**
+     * The state of an initializer.
+     */
+    public enum State {
+        PENDING, RUNNING, DONE, FAILED
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Map<String, StartupInitializer> initializers = new LinkedHashMap<>();
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private ApplicationContext applicationContext;
+
+    @Override
+    public void setApplicationContext(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Autowired(required = false)
+    public void setInitializers(final List<StartupInitializer> initializers) {
+        if (initializers != null) {
+            for (final StartupInitializer initializer : initializers) {
+                final String name = initializer.getInitializerName();
+                if (this.initializers.put(name, initializer) != null) {
+                    throw new IllegalStateException("There are two initializers with name [" + name + "].");
+                }
+                states.put(name, State.PENDING);
+            }
+        }
+    }
+
+    /**
+     * Starts the initializers, when the application context (and not a parent or child context) was refreshed.
+     *
+     * @param event the refresh event
+     */
+    @EventListener
+    public void onContextRefreshed(final ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != applicationContext || !started.compareAndSet(false, true)) {
+            return;
+        }
+        final List<String> order = sortByDependencies();
+        if (order.isEmpty()) {
+            return;
+        }
+        log.info("Starting initializers {} ...", order);
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(order.size(), Runtime.getRuntime().availableProcessors()), new InitializerThreadFactory());
+        final long start = System.currentTimeMillis();
+        final Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        for (final String name : order) {
+            final StartupInitializer initializer = initializers.get(name);
+            final CompletableFuture<?>[] dependencies = initializer.getInitializerDependencies().stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            futures.put(name, CompletableFuture.allOf(dependencies)
+                    .thenRunAsync(() -> run(name, initializer), executor)
+                    .whenComplete((result, throwable) -> {
+                        if (throwable != null && states.get(name) == State.PENDING) {
+                            states.put(name, State.FAILED);
+                            log.error("Initializer [{}] is not run, because a dependency failed.", name);
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()]))
+                .whenComplete((result, throwable) -> {
+                    executor.shutdown();
+                    log.info("Initializers finished in {} ms: {} (ready = {})",
+                            System.currentTimeMillis() - start, getInitializerReport(), isReady());
+                });
+    }
+
+    private void run(final String name, final StartupInitializer initializer) {
+        states.put(name, State.RUNNING);
+        final long start = System.currentTimeMillis();
+        try {
+            initializer.initialize();
+            states.put(name, State.DONE);
+
+        } catch (RuntimeException e) {
+            states.put(name, State.FAILED);
+            log.error("Initializer [" + name + "] failed.", e);
+            throw e;
+
+        } finally {
+            final long duration = System.currentTimeMillis() - start;
+            durations.put(name, duration);
+            log.info("Initializer [{}] finished with state {} in {} ms.", name, states.get(name), duration);
+        }
+    }
+
+    /**
+     * Returns the names of the initializers, so that every initializer is behind its dependencies.
+     */
+    private List<String> sortByDependencies() {
+        final List<String> order = new ArrayList<>(initializers.size());
+        final Set<String> visiting = new HashSet<>();
+        for (final String name : initializers.keySet()) {
+            visit(name, order, visiting);
+        }
+        return order;
+    }
+
+    private void visit(final String name, final List<String> order, final Set<String> visiting) {
+        if (order.contains(name)) {
+            return;
+        }
+        if (!visiting.add(name)) {
+            throw new IllegalStateException("The dependencies of initializer [" + name + "] are cyclic.");
+        }
+        for (final String dependency : initializers.get(name).getInitializerDependencies()) {
+            if (!initializers.containsKey(dependency)) {
+                throw new IllegalStateException("Initializer [" + name + "] depends on the unknown initializer ["
+                        + dependency + "].");
+            }
+            visit(dependency, order, visiting);
+        }
+        visiting.remove(name);
+        order.add(name);
+    }
+
+    /**
+     * Returns whether all critical initializers are finished.
+     *
+     * @return {@code true} if the application is ready, otherwise {@code false}
+     */
+    @ManagedAttribute(description = "Are all critical initializers finished?")
+    public boolean isReady() {
+        for (final StartupInitializer initializer : initializers.values()) {
+            if (initializer.isCriticalInitializer() && states.get(initializer.getInitializerName()) != State.DONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the state and the duration of every initializer.
+     *
+     * @return the state and the duration (if it is finished) of every initializer by name
+     */
+    @ManagedAttribute(description = "The state and the duration of every initializer.")
+    public Map<String, String> getInitializerReport() {
+        final Map<String, String> report = new LinkedHashMap<>();
+        for (final StartupInitializer initializer : initializers.values()) {
+            final String name = initializer.getInitializerName();
+            final Long duration = durations.get(name);
+            report.put(name, states.get(name) + (duration == null ? "" : " (" + duration + " ms)")
+                    + (initializer.isCriticalInitializer() ? "" : " [not critical]"));
+        }
+        return report;
+    }
+
+    private static class InitializerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "startup-initializer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
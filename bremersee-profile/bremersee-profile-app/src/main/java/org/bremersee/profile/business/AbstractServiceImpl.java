@@ -18,7 +18,13 @@ package org.bremersee.profile.business;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.bremersee.common.exception.InternalServerError;
 import org.bremersee.profile.AbstractComponentImpl;
+import org.bremersee.profile.ExpiringCache;
+import org.bremersee.profile.domain.mongodb.repository.KeysetPage;
+import org.bremersee.profile.model.CursorPageDto;
+import org.bremersee.profile.validation.AvailabilityIndex;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.acls.domain.BasePermission;
 import org.springframework.security.acls.domain.GrantedAuthoritySid;
 import org.springframework.security.acls.domain.PrincipalSid;
@@ -27,11 +33,111 @@ import org.springframework.security.acls.model.MutableAcl;
 import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.security.acls.model.Sid;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * @author Christian Bremer
  */
 public abstract class AbstractServiceImpl extends AbstractComponentImpl {
 
+    /**
+     * The number of entities whose ACLs are read with one lookup by the initializers.
+     */
+    static final int ACL_BATCH_SIZE = 100;
+
+    private AvailabilityIndex availabilityIndex;
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    private ExpiringCache<ObjectIdentity, Boolean> missingAclCache;
+
+    @Autowired(required = false)
+    public void setAvailabilityIndex(AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @Autowired(required = false)
+    public void setPasswordHashingExecutor(PasswordHashingExecutor passwordHashingExecutor) {
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
+
+    @Autowired(required = false)
+    public void setMissingAclCache(ExpiringCache<ObjectIdentity, Boolean> missingAclCache) {
+        this.missingAclCache = missingAclCache;
+    }
+
+    /**
+     * Executes a task that hashes or verifies passwords with the password hashing executor.
+     *
+     * @param task the task
+     * @param <T>  the type of the result
+     * @return the result of the task
+     */
+    <T> T hashPassword(Callable<T> task) {
+        if (passwordHashingExecutor == null) {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new InternalServerError(e);
+            }
+        }
+        return passwordHashingExecutor.execute(task);
+    }
+
+    /**
+     * Executes a task that hashes or verifies passwords with the password hashing executor.
+     *
+     * @param task the task
+     */
+    void hashPassword(Runnable task) {
+        hashPassword(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Creates the page of a keyset pagination.
+     *
+     * @param page   the page with the entities
+     * @param mapper the mapper of an entity to its data transfer object
+     * @param <E>    the entity type
+     * @param <D>    the data transfer object type
+     * @return the page with the data transfer objects
+     */
+    <E, D> CursorPageDto<D> createCursorPage(KeysetPage<E> page, Function<E, D> mapper) {
+
+        final CursorPageDto<D> dto = new CursorPageDto<>();
+        dto.setEntries(page.getEntries().stream().map(mapper).collect(Collectors.toList()));
+        dto.setNextCursor(page.getNextCursor());
+        dto.setEstimatedTotal(page.getEstimatedTotal());
+        return dto;
+    }
+
+    /**
+     * Adds a user name and an email address, that are going to be saved in the given store, to the availability
+     * index. It must be called before the values are saved.
+     *
+     * @param tableMask the store (one of the masks of {@link org.bremersee.profile.validation.ValidatorConstants})
+     * @param userName  the user name (may be {@code null})
+     * @param email     the email address (may be {@code null})
+     */
+    void addToAvailabilityIndex(int tableMask, String userName, String email) {
+        if (availabilityIndex != null) {
+            availabilityIndex.addUserName(tableMask, userName);
+            availabilityIndex.addEmail(tableMask, email);
+        }
+    }
+
     MutableAcl initAcl(Object entity) {
         return initAcl(entity, null, null, false);
     }
@@ -51,6 +157,9 @@ public abstract class AbstractServiceImpl extends AbstractComponentImpl {
             objectIdentity = getObjectIdentityRetrievalStrategy().getObjectIdentity(entity);
         }
         MutableAcl acl = getAclService().createAcl(objectIdentity);
+        if (missingAclCache != null) {
+            missingAclCache.remove(objectIdentity);
+        }
 
         final Sid ownerSid;
         if (StringUtils.isBlank(owner) && parent != null) {
@@ -79,6 +188,96 @@ public abstract class AbstractServiceImpl extends AbstractComponentImpl {
         return getAclService().updateAcl(acl);
     }
 
+    /**
+     * Reads the ACLs of the given object identities with one batched lookup. The lookup strategy puts the ACLs
+     * into the ACL cache, so that following permission checks of these objects don't hit the database.
+     *
+     * @param objectIdentities the object identities
+     * @return the found ACLs (object identities without an ACL are not contained)
+     */
+    Map<ObjectIdentity, Acl> readAcls(List<ObjectIdentity> objectIdentities) {
+        return readAcls(objectIdentities, false);
+    }
+
+    /**
+     * Reads the ACLs of the given object identities with one batched lookup. The object identities without an ACL
+     * are put into the missing ACL cache. If {@code skipMissing} is {@code true}, the object identities of that
+     * cache are not looked up again.
+     */
+    private Map<ObjectIdentity, Acl> readAcls(List<ObjectIdentity> objectIdentities, boolean skipMissing) {
+        final List<ObjectIdentity> lookup = new ArrayList<>(objectIdentities == null ? 0 : objectIdentities.size());
+        if (objectIdentities != null) {
+            for (final ObjectIdentity objectIdentity : objectIdentities) {
+                if (!skipMissing || !isAclMissing(objectIdentity)) {
+                    lookup.add(objectIdentity);
+                }
+            }
+        }
+        if (lookup.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return new HashMap<>(getAclService().readAclsById(lookup));
+
+        } catch (org.springframework.security.acls.model.NotFoundException e) { // NOSONAR
+            // The service fails if one ACL is missing, but the found ones are cached now, so only the missing ones
+            // are looked up again. They are remembered, so that they are not looked up by the next prefetch.
+            final Map<ObjectIdentity, Acl> acls = new HashMap<>();
+            for (final ObjectIdentity objectIdentity : lookup) {
+                try {
+                    acls.put(objectIdentity, getAclService().readAclById(objectIdentity));
+                } catch (org.springframework.security.acls.model.NotFoundException notFound) { // NOSONAR
+                    log.debug("No ACL found for [{}].", objectIdentity);
+                    if (missingAclCache != null) {
+                        missingAclCache.get(objectIdentity, key -> Boolean.TRUE);
+                    }
+                }
+            }
+            return acls;
+        }
+    }
+
+    private boolean isAclMissing(ObjectIdentity objectIdentity) {
+        return missingAclCache != null && missingAclCache.get(objectIdentity, key -> null) != null;
+    }
+
+    /**
+     * Reads the ACLs of the given entities (e. g. of a page) with one batched lookup, so that the following
+     * permission checks of the entities are answered by the ACL cache. Nothing is read for an administrator or
+     * the system, because their permissions are not checked against ACLs. Entities that are known to have no ACL
+     * are skipped.
+     *
+     * @param entities the entities
+     */
+    void prefetchAcls(Collection<?> entities) {
+        if (entities == null || entities.isEmpty() || isCurrentUserAdminOrSystem()) {
+            return;
+        }
+        final List<ObjectIdentity> objectIdentities = new ArrayList<>(entities.size());
+        for (final Object entity : entities) {
+            objectIdentities.add(getObjectIdentityRetrievalStrategy().getObjectIdentity(entity));
+        }
+        readAcls(objectIdentities, true);
+    }
+
+    /**
+     * Creates the default ACL of every object identity that has no ACL. The existing ACLs are read with one
+     * batched lookup.
+     *
+     * @param objectIdentities the object identities
+     * @param description      describes the objects in the log
+     */
+    void initMissingAcls(List<ObjectIdentity> objectIdentities, String description) {
+        final Map<ObjectIdentity, Acl> acls = readAcls(objectIdentities);
+        for (final ObjectIdentity objectIdentity : objectIdentities) {
+            if (!acls.containsKey(objectIdentity)) {
+                log.info("No ACL found for {} [{}] - creating default ACL.", description,
+                        objectIdentity.getIdentifier());
+                initAcl(objectIdentity);
+            }
+        }
+    }
+
     void deleteAcls(Object entity, boolean deleteChildren) {
         Validate.notNull(entity, "Entity must not be null.");
         if (entity instanceof ObjectIdentity) {
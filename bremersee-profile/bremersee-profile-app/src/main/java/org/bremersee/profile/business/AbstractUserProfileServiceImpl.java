@@ -19,6 +19,7 @@ package org.bremersee.profile.business;
 import org.apache.commons.lang3.Validate;
 import org.bremersee.common.exception.BadRequestException;
 import org.bremersee.common.exception.NotFoundException;
+import org.bremersee.profile.ExpiringCache;
 import org.bremersee.profile.domain.ldap.dao.UserProfileLdapDao;
 import org.bremersee.profile.domain.ldap.entity.UserProfileLdap;
 import org.bremersee.profile.domain.ldap.mapper.UserProfileLdapMapper;
@@ -27,6 +28,14 @@ import org.bremersee.profile.domain.mongodb.mapper.UserProfileMongoMapper;
 import org.bremersee.profile.domain.mongodb.repository.UserProfileMongoRepository;
 import org.bremersee.profile.model.UserProfileDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author Christian Bremer
@@ -47,6 +56,8 @@ public abstract class AbstractUserProfileServiceImpl extends AbstractServiceImpl
 
     UserProfileProperties userProfileProperties = new UserProfileProperties();
 
+    private ExpiringCache<String, User> userDetailsCache;
+
     public AbstractUserProfileServiceImpl(
             final UserProfileLdapDao userProfileLdapDao,
             final UserProfileLdapMapper userProfileLdapMapper,
@@ -70,6 +81,20 @@ public abstract class AbstractUserProfileServiceImpl extends AbstractServiceImpl
         }
     }
 
+    @Autowired
+    public void setUserDetailsCache(ExpiringCache<String, User> userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    /**
+     * Removes the cached authentication data of the user (it may be cached by user name and by email).
+     *
+     * @param userName the user name
+     */
+    void evictUserDetails(final String userName) {
+        userDetailsCache.removeByIndex(Collections.singleton(userName));
+    }
+
     UserProfileLdap loadUserProfileLdap(final String userName) {
         BadRequestException.validateNotBlank(userName, USER_NAME_MUST_BE_PRESENT);
         UserProfileLdap entity = userProfileLdapDao.findByUserName(userName);
@@ -97,19 +122,76 @@ public abstract class AbstractUserProfileServiceImpl extends AbstractServiceImpl
             log.debug("{}: Mongo entity of user [{}] was not found - creating it from ldap entity [{}] ...",
                     getCurrentUserName(), ldap.getUid(), ldap);
         }
-        mongo = runAsSystem(() -> {
-            UserProfileDto dto = new UserProfileDto();
-            userProfileLdapMapper.mapToDto(ldap, dto);
-            UserProfileMongo mongo1 = new UserProfileMongo();
-            userProfileMongoMapper.updateEntity(dto, mongo1);
-            mongo1.setUid(ldap.getUid());
-            return mongo1;
-        });
-        mongo = userProfileMongoRepository.save(mongo);
+        mongo = userProfileMongoRepository.save(newUserProfileMongo(ldap));
         if (log.isDebugEnabled()) {
             log.debug("{}: User profile mongo entity successfully created: {}", getCurrentUserName(), mongo);
         }
         return mongo;
     }
 
+    /**
+     * Finds or creates the mongo entities of the ldap entities with one query and one bulk write.
+     *
+     * @param ldaps the ldap entities
+     * @return the mongo entities mapped by user name
+     */
+    Map<String, UserProfileMongo> findOrCreateUserProfileMongos(final Collection<UserProfileLdap> ldaps) {
+        Validate.notNull(ldaps, "User profile ldap entities must not be null.");
+        final Map<String, UserProfileMongo> mongos = new LinkedHashMap<>();
+        final List<String> uids = ldaps.stream().map(UserProfileLdap::getUid).collect(Collectors.toList());
+        for (UserProfileMongo mongo : userProfileMongoRepository.findByUidIn(uids)) {
+            mongos.put(mongo.getUid(), mongo);
+        }
+        final List<UserProfileMongo> newMongos = ldaps.stream()
+                .filter(ldap -> !mongos.containsKey(ldap.getUid()))
+                .map(this::newUserProfileMongo)
+                .collect(Collectors.toList());
+        mongos.putAll(insertUserProfileMongos(newMongos));
+        return mongos;
+    }
+
+    /**
+     * Inserts the new mongo entities with one unordered bulk write. If some of them were created concurrently,
+     * the existing ones are returned instead.
+     *
+     * @param newMongos the new mongo entities
+     * @return the mongo entities mapped by user name
+     */
+    private Map<String, UserProfileMongo> insertUserProfileMongos(final List<UserProfileMongo> newMongos) {
+        final Map<String, UserProfileMongo> mongos = new LinkedHashMap<>();
+        if (newMongos.isEmpty()) {
+            return mongos;
+        }
+        final List<UserProfileMongo> inserted = userProfileMongoRepository.insertUnordered(newMongos);
+        for (UserProfileMongo mongo : inserted) {
+            mongos.put(mongo.getUid(), mongo);
+        }
+        log.debug("{}: {} user profile mongo entities created.", getCurrentUserName(), inserted.size());
+        if (mongos.size() < newMongos.size()) {
+            final List<String> existingUids = newMongos.stream().map(UserProfileMongo::getUid)
+                    .filter(uid -> !mongos.containsKey(uid)).collect(Collectors.toList());
+            for (UserProfileMongo mongo : userProfileMongoRepository.findByUidIn(existingUids)) {
+                mongos.put(mongo.getUid(), mongo);
+            }
+        }
+        return mongos;
+    }
+
+    /**
+     * Creates a new (unsaved) mongo entity from the ldap entity.
+     *
+     * @param ldap the ldap entity
+     * @return the mongo entity
+     */
+    UserProfileMongo newUserProfileMongo(final UserProfileLdap ldap) {
+        return runAsSystem(() -> {
+            UserProfileDto dto = new UserProfileDto();
+            userProfileLdapMapper.mapToDto(ldap, dto);
+            UserProfileMongo mongo = new UserProfileMongo();
+            userProfileMongoMapper.updateEntity(dto, mongo);
+            mongo.setUid(ldap.getUid());
+            return mongo;
+        });
+    }
+
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.business;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * A password encoder that hashes and verifies passwords with the {@link PasswordHashingExecutor}, so that logins
+ * don't hash on the request threads.
+ *
+ * @author Christian Bremer
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final PasswordHashingExecutor executor;
+
+    public BoundedPasswordEncoder(final PasswordEncoder passwordEncoder, final PasswordHashingExecutor executor) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(final CharSequence rawPassword) {
+        return executor.execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(final CharSequence rawPassword, final String encodedPassword) {
+        try {
+            return executor.execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+
+        } catch (PasswordHashingRejectedException e) {
+            // the authentication providers only handle authentication exceptions
+            throw new AuthenticationServiceException(e.getMessage(), e);
+        }
+    }
+
+}
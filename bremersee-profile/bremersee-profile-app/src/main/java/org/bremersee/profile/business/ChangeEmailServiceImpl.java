@@ -115,7 +115,9 @@ public class ChangeEmailServiceImpl extends AbstractUserProfileServiceImpl imple
             userProfileMongo.setEmail(newEmail);
             userProfileMongoRepository.save(userProfileMongo);
             userProfileLdap.setEmail(newEmail);
+            addToAvailabilityIndex(ValidatorConstants.USER_TABLE_MASK, null, newEmail);
             userProfileLdapDao.save(userProfileLdap);
+            evictUserDetails(userName);
 
         } else {
 
@@ -131,6 +133,7 @@ public class ChangeEmailServiceImpl extends AbstractUserProfileServiceImpl imple
             while (mailChangeRequestMongoRepository.findByChangeHash(request.getChangeHash()) != null) {
                 request.setChangeHash(UUID.randomUUID().toString());
             }
+            addToAvailabilityIndex(ValidatorConstants.CHANGE_EMAIL_TABLE_MASK, null, newEmail);
             request = mailChangeRequestMongoRepository.save(request);
             sendChangeEmailMessage(request, userProfileMongo);
         }
@@ -198,7 +201,9 @@ public class ChangeEmailServiceImpl extends AbstractUserProfileServiceImpl imple
             userProfileMongo.setEmail(entity.getNewEmail());
             userProfileMongoRepository.save(userProfileMongo);
             userProfileLdap.setEmail(entity.getNewEmail());
+            addToAvailabilityIndex(ValidatorConstants.USER_TABLE_MASK, null, entity.getNewEmail());
             userProfileLdapDao.save(userProfileLdap);
+            evictUserDetails(entity.getUid());
 
             mailChangeRequestMongoRepository.delete(entity);
         }
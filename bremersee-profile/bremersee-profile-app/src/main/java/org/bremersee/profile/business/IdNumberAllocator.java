@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.business;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Serves uid or gid numbers from a block that was reserved atomically in the directory. The numbers of the current
+ * block are handed out without locking, only the reservation of the next block is synchronized.
+ * <p>
+ * Numbers of a block that are not used before the application stops are lost.
+ *
+ * @author Christian Bremer
+ */
+class IdNumberAllocator {
+
+    private final LongUnaryOperator reservation;
+
+    private final long blockSize;
+
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(0L, 0L));
+
+    /**
+     * Creates an allocator.
+     *
+     * @param reservation reserves a block of the given size and returns the first number of the block; it is never
+     *                    called concurrently by this allocator
+     * @param blockSize   the size of the blocks
+     */
+    IdNumberAllocator(final LongUnaryOperator reservation, final long blockSize) {
+        this.reservation = reservation;
+        this.blockSize = blockSize < 1L ? 1L : blockSize;
+    }
+
+    /**
+     * Returns the next number.
+     *
+     * @return the next number
+     */
+    long next() {
+        while (true) {
+            final Block current = block.get();
+            final long number = current.next.getAndIncrement();
+            if (number < current.end) {
+                return number;
+            }
+            synchronized (this) {
+                if (block.get() == current) {
+                    final long first = reservation.applyAsLong(blockSize);
+                    block.set(new Block(first, first + blockSize));
+                }
+            }
+        }
+    }
+
+    private static class Block {
+
+        private final AtomicLong next;
+
+        private final long end;
+
+        private Block(final long first, final long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+
+}
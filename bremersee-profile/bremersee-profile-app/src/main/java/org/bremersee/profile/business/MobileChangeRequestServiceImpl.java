@@ -63,15 +63,17 @@ public class MobileChangeRequestServiceImpl extends AbstractServiceImpl implemen
         if (StringUtils.isBlank(pageRequest.getQuery())) {
             springPage = mailChangeRequestMongoRepository.findAll(pageable);
         } else {
-            springPage = mailChangeRequestMongoRepository.findBySearchRegex(pageRequest.getQuery(), pageable);
+            springPage = mailChangeRequestMongoRepository.findBySearchQuery(pageRequest.getQuery(), pageable);
         }
         return PageBuilderSpringUtils.fromSpringPage(springPage, mailChangeRequestMongoMapper::mapToDto);
     }
 
     @Scheduled(cron = "0 20 0 * * ?") // second, minute, hour, day of month, month, day(s) of week
     public void deleteExpired() {
-        log.debug("Deleting expired user registration entries ...");
-        mailChangeRequestMongoRepository.findExpiredAndRemove();
+        // Normally the TTL index has already removed the expired entries.
+        log.debug("Deleting expired mobile change requests ...");
+        final long count = mailChangeRequestMongoRepository.removeExpired();
+        log.debug("Deleting expired mobile change requests: DONE! ({} removed)", count);
     }
 
 }
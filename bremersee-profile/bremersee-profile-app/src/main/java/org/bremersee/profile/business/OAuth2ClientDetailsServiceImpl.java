@@ -16,6 +16,7 @@
 
 package org.bremersee.profile.business;
 
+import org.bremersee.profile.ExpiringCache;
 import org.bremersee.profile.domain.ldap.dao.RoleLdapDao;
 import org.bremersee.profile.domain.mongodb.entity.OAuth2ClientMongo;
 import org.bremersee.profile.domain.mongodb.repository.OAuth2ClientMongoRepository;
@@ -48,6 +49,10 @@ public class OAuth2ClientDetailsServiceImpl implements ClientDetailsService {
 
     private final OAuth2ClientMongoRepository oAuth2ClientMongoRepository;
 
+    private RoleProperties roleProperties = new RoleProperties();
+
+    private ExpiringCache<String, ClientDetails> clientDetailsCache;
+
     @Autowired
     public OAuth2ClientDetailsServiceImpl(
             RoleLdapDao roleLdapDao,
@@ -57,9 +62,27 @@ public class OAuth2ClientDetailsServiceImpl implements ClientDetailsService {
         this.oAuth2ClientMongoRepository = oAuth2ClientMongoRepository;
     }
 
+    @Autowired(required = false)
+    public void setRoleProperties(RoleProperties roleProperties) {
+        if (roleProperties != null) {
+            this.roleProperties = roleProperties;
+        }
+    }
+
+    @Autowired
+    public void setClientDetailsCache(ExpiringCache<String, ClientDetails> clientDetailsCache) {
+        this.clientDetailsCache = clientDetailsCache;
+    }
+
     @Override
     public ClientDetails loadClientByClientId(final String clientId) {
 
+        // The cached details are copied, so that the callers can't modify them.
+        return new BaseClientDetails(clientDetailsCache.get(clientId, this::loadClient));
+    }
+
+    private ClientDetails loadClient(final String clientId) {
+
         OAuth2ClientMongo entity = oAuth2ClientMongoRepository.findByClientId(clientId);
         if (entity == null) {
             ClientRegistrationException e = new ClientRegistrationException(
@@ -68,6 +91,7 @@ public class OAuth2ClientDetailsServiceImpl implements ClientDetailsService {
             throw e;
         }
         final Set<String> roleNames = roleLdapDao.findRoleNamesByMember(entity.getClientId());
+        roleNames.addAll(roleProperties.getVirtualClientRoles());
         final List<GrantedAuthority> authorities = roleNames.stream().map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
 
@@ -26,10 +26,14 @@ import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.pagebuilder.model.PageRequestDto;
 import org.bremersee.pagebuilder.spring.PageBuilderSpringUtils;
 import org.bremersee.pagebuilder.spring.SpringPageRequest;
+import org.bremersee.profile.ExpiringCache;
+import org.bremersee.profile.StartupInitializer;
 import org.bremersee.profile.domain.ldap.dao.OAuth2ClientLdapDao;
 import org.bremersee.profile.domain.mongodb.entity.OAuth2ClientMongo;
 import org.bremersee.profile.domain.mongodb.mapper.OAuth2ClientMongoMapper;
+import org.bremersee.profile.domain.mongodb.repository.KeysetPage;
 import org.bremersee.profile.domain.mongodb.repository.OAuth2ClientMongoRepository;
+import org.bremersee.profile.model.CursorPageDto;
 import org.bremersee.profile.model.OAuth2ClientCreateRequestDto;
 import org.bremersee.profile.model.OAuth2ClientDto;
 import org.bremersee.profile.model.RoleDto;
@@ -40,8 +44,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.oauth2.provider.ClientDetails;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -52,7 +58,9 @@ import java.util.Set;
 @SuppressWarnings("unused")
 @Service("oAuth2ClientService")
 @EnableConfigurationProperties(OAuth2ClientServiceProperties.class)
-public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAuth2ClientService {
+public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAuth2ClientService, StartupInitializer {
+
+    static final String INITIALIZER_NAME = "oauth2Clients";
 
     private static final String CLIENT_ID_PRESENT = "OAuth2 client ID must be present.";
 
@@ -72,6 +80,10 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
 
     private final OAuth2ClientServiceProperties properties;
 
+    private RoleProperties roleProperties = new RoleProperties();
+
+    private ExpiringCache<String, ClientDetails> clientDetailsCache;
+
     @Autowired
     public OAuth2ClientServiceImpl(OAuth2ClientLdapDao oAuth2ClientLdapDao, // NOSONAR
                                    OAuth2ClientMongoRepository oAuth2ClientMongoRepository,
@@ -92,6 +104,28 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
         this.properties = properties;
     }
 
+    @Autowired(required = false)
+    public void setRoleProperties(RoleProperties roleProperties) {
+        if (roleProperties != null) {
+            this.roleProperties = roleProperties;
+        }
+    }
+
+    @Autowired
+    public void setClientDetailsCache(ExpiringCache<String, ClientDetails> clientDetailsCache) {
+        this.clientDetailsCache = clientDetailsCache;
+    }
+
+    @Override
+    public String getInitializerName() {
+        return INITIALIZER_NAME;
+    }
+
+    @Override
+    public Collection<String> getInitializerDependencies() {
+        return Collections.singleton(RoleServiceImpl.INITIALIZER_NAME);
+    }
+
     @Override
     protected void doInit() {
         runAsSystemWithoutResult(new RunAsCallbackWithoutResult() {
@@ -124,11 +158,21 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
         if (StringUtils.isBlank(pageRequest.getQuery())) {
             springPage = oAuth2ClientMongoRepository.findAll(pageable);
         } else {
-            springPage = oAuth2ClientMongoRepository.findBySearchRegex(pageRequest.getQuery(), pageable);
+            springPage = oAuth2ClientMongoRepository.findBySearchQuery(pageRequest.getQuery(), pageable);
         }
         return PageBuilderSpringUtils.fromSpringPage(springPage, oAuth2ClientMongoMapper::mapToDto);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM','ROLE_READ_ALL_PROFILES')")
+    @Override
+    public CursorPageDto<OAuth2ClientDto> findAll(final String cursor, final Integer pageSize, final String query,
+                                                  final boolean estimateTotal) {
+
+        final KeysetPage<OAuth2ClientMongo> page = oAuth2ClientMongoRepository
+                .findByCursor(cursor, pageSize, query, estimateTotal);
+        return createCursorPage(page, oAuth2ClientMongoMapper::mapToDto);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM')")
     @Override
     public OAuth2ClientDto create(final OAuth2ClientCreateRequestDto client) {
@@ -149,9 +193,10 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
         entity.setClientId(client.getClientId());
         oAuth2ClientMongoMapper.updateEntity(client, entity);
         if (StringUtils.isNotBlank(client.getClientSecret())) {
-            entity.setClientSecret(passwordEncoder.encode(client.getClientSecret()));
+            entity.setClientSecret(hashPassword(() -> passwordEncoder.encode(client.getClientSecret())));
         }
 
+        addToAvailabilityIndex(ValidatorConstants.OAUTH2_CLIENT_TABLE_MASK, entity.getClientId(), null);
         entity = oAuth2ClientMongoRepository.save(entity);
         oAuth2ClientLdapDao.save(entity.getClientId());
 
@@ -168,7 +213,9 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
                         + client.getClientId() + "].");
                 roleService.create(createRoleRequest);
             }
-            roleService.addMembers(role, Collections.singleton(client.getClientId()));
+            if (!roleProperties.getVirtualClientRoles().contains(role)) {
+                roleService.addMembers(role, Collections.singleton(client.getClientId()));
+            }
         }
 
         initAcl(entity);
@@ -203,6 +250,7 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
         OAuth2ClientMongo entity = getOAuth2ClientEntity(clientId);
         oAuth2ClientMongoMapper.updateEntity(client, entity);
         entity = oAuth2ClientMongoRepository.save(entity);
+        clientDetailsCache.remove(clientId);
         OAuth2ClientDto dto = oAuth2ClientMongoMapper.mapToDto(entity);
 
         log.info("{}: Updating oauth2 client [{}] ... DONE!", clientId);
@@ -224,9 +272,10 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
         if (StringUtils.isBlank(newPassword)) {
             entity.setClientSecret(null);
         } else {
-            entity.setClientSecret(passwordEncoder.encode(newPassword));
+            entity.setClientSecret(hashPassword(() -> passwordEncoder.encode(newPassword)));
         }
         oAuth2ClientMongoRepository.save(entity);
+        clientDetailsCache.remove(clientId);
 
         log.info("{}: Resetting password of oauth2 client [{}] ... DONE!", getCurrentUserName(), clientId);
     }
@@ -240,13 +289,16 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
 
         BadRequestException.validateNotBlank(clientId, CLIENT_ID_PRESENT);
         OAuth2ClientMongo entity = getOAuth2ClientEntity(clientId);
-        passwordValidator.validate(newPassword, entity.getClientSecret(), oldPassword, null);
-        if (StringUtils.isBlank(newPassword)) {
-            entity.setClientSecret(null);
-        } else {
-            entity.setClientSecret(passwordEncoder.encode(newPassword));
-        }
+        hashPassword(() -> {
+            passwordValidator.validate(newPassword, entity.getClientSecret(), oldPassword, null);
+            if (StringUtils.isBlank(newPassword)) {
+                entity.setClientSecret(null);
+            } else {
+                entity.setClientSecret(passwordEncoder.encode(newPassword));
+            }
+        });
         oAuth2ClientMongoRepository.save(entity);
+        clientDetailsCache.remove(clientId);
 
         log.info("{}: Changing password of oauth2 client [{}] ... DONE!", getCurrentUserName(), clientId);
     }
@@ -287,6 +339,7 @@ public class OAuth2ClientServiceImpl extends AbstractServiceImpl implements OAut
         });
 
         oAuth2ClientMongoRepository.deleteByClientId(clientId);
+        clientDetailsCache.remove(clientId);
         oAuth2ClientLdapDao.delete(clientId);
         log.info("{}: Deleting oauth2 client [{}] ... DONE!", getCurrentUserName(), clientId);
     }
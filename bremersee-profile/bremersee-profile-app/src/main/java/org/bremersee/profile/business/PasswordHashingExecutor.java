@@ -0,0 +1,221 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.business;
+
+import org.bremersee.common.exception.InternalServerError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded executor for password hashing (login, password change and reset), so that a burst of these
+ * expensive operations doesn't occupy all request threads. If the queue is full, the task is rejected immediately
+ * with a {@link PasswordHashingRejectedException} instead of letting the caller wait until it times out.
+ *
+ * @author Christian Bremer
+ */
+@Component
+@EnableConfigurationProperties(PasswordHashingProperties.class)
+@ManagedResource
+public class PasswordHashingExecutor {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+
+    private final AtomicLong hashingNanos = new AtomicLong();
+
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private PasswordHashingProperties properties = new PasswordHashingProperties();
+
+    private ThreadPoolExecutor executor;
+
+    @Autowired(required = false)
+    public void setProperties(final PasswordHashingProperties properties) {
+        if (properties != null) {
+            this.properties = properties;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.isEnabled()) {
+            final int poolSize = Math.max(1, properties.getPoolSize());
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), new HashingThreadFactory(),
+                    new ThreadPoolExecutor.AbortPolicy());
+            log.info("{} uses config {}", getClass().getSimpleName(), properties);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Executes the hashing task and waits for its result.
+     *
+     * @param task the hashing task
+     * @param <T>  the type of the result
+     * @return the result of the task
+     * @throws PasswordHashingRejectedException if the queue is full or the task doesn't finish in time
+     */
+    public <T> T execute(final Callable<T> task) {
+        if (executor == null) {
+            return call(task);
+        }
+        final long submitted = System.nanoTime();
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                final long started = System.nanoTime();
+                queueWaitNanos.addAndGet(started - submitted);
+                try {
+                    return task.call();
+                } finally {
+                    final long finished = System.nanoTime();
+                    hashingNanos.addAndGet(finished - started);
+                    maxLatencyNanos.accumulateAndGet(finished - submitted, Math::max);
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("Password hashing rejected: queue depth is {}.", executor.getQueue().size());
+            throw new PasswordHashingRejectedException("Too many concurrent password operations, try again later.");
+        }
+        try {
+            return future.get(properties.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.incrementAndGet();
+            throw new PasswordHashingRejectedException("Password hashing timed out, try again later.");
+
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InternalServerError(e);
+
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new InternalServerError(cause);
+        }
+    }
+
+    private <T> T call(final Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InternalServerError(e);
+        }
+    }
+
+    @ManagedAttribute(description = "The number of tasks that are waiting for a hashing thread.")
+    public int getQueueDepth() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "The number of threads that are hashing.")
+    public int getActiveCount() {
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    @ManagedAttribute(description = "The number of completed tasks.")
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    @ManagedAttribute(description = "The number of tasks that were rejected because the queue was full.")
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @ManagedAttribute(description = "The number of tasks whose callers stopped waiting.")
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    @ManagedAttribute(description = "The average time (in milliseconds) a task waited in the queue.")
+    public double getAverageQueueWaitMillis() {
+        return average(queueWaitNanos.get());
+    }
+
+    @ManagedAttribute(description = "The average time (in milliseconds) of hashing.")
+    public double getAverageHashingMillis() {
+        return average(hashingNanos.get());
+    }
+
+    @ManagedAttribute(description = "The maximum time (in milliseconds) from submitting to completing a task.")
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1000000.0;
+    }
+
+    private double average(final long nanos) {
+        final long count = completed.get();
+        return count == 0L ? 0.0 : nanos / 1000000.0 / count;
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
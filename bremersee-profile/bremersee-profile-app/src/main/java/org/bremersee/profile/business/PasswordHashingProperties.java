@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.business;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author Christian Bremer
+ */
+@ConfigurationProperties("profile.business.password-hashing")
+@Data
+public class PasswordHashingProperties {
+
+    /**
+     * If {@code false}, passwords are hashed on the calling thread.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The number of threads that hash passwords.
+     */
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * How many hashing tasks may wait for a thread. If the queue is full, new tasks are rejected immediately.
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * How long (in milliseconds) the caller waits for the result of a hashing task.
+     */
+    private long timeoutMillis = 5000L;
+
+}
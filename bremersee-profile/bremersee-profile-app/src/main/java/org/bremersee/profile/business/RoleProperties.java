@@ -22,7 +22,9 @@ import org.bremersee.profile.model.RoleDto;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Christian Bremer
@@ -35,4 +37,14 @@ public class RoleProperties {
 
     private List<RoleDto> initRoles = new ArrayList<>();
 
+    /**
+     * Roles that every user profile has by rule. The user profiles are not stored as occupants of these roles.
+     */
+    private Set<String> virtualUserRoles = new LinkedHashSet<>();
+
+    /**
+     * Roles that every OAuth2 client has by rule. The clients are not stored as occupants of these roles.
+     */
+    private Set<String> virtualClientRoles = new LinkedHashSet<>();
+
 }
@@ -26,6 +26,8 @@ import org.bremersee.pagebuilder.PageBuilderUtils;
 import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.pagebuilder.model.PageRequestDto;
+import org.bremersee.profile.ExpiringCache;
+import org.bremersee.profile.StartupInitializer;
 import org.bremersee.profile.domain.ldap.dao.OAuth2ClientLdapDao;
 import org.bremersee.profile.domain.ldap.dao.RoleLdapDao;
 import org.bremersee.profile.domain.ldap.dao.UserProfileLdapDao;
@@ -40,17 +42,27 @@ import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.domain.PrincipalSid;
 import org.springframework.security.acls.model.MutableAcl;
 import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.provider.ClientDetails;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
  */
 @Service("roleService")
 @EnableConfigurationProperties(RoleProperties.class)
-public class RoleServiceImpl extends AbstractServiceImpl implements RoleService {
+public class RoleServiceImpl extends AbstractServiceImpl implements RoleService, StartupInitializer {
+
+    static final String INITIALIZER_NAME = "roles";
 
     private static final String ROLE_NAME_MUST_BE_PRESENT = "Role name must be present.";
 
@@ -66,6 +78,10 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
 
     private RoleProperties roleProperties = new RoleProperties();
 
+    private ExpiringCache<String, User> userDetailsCache;
+
+    private ExpiringCache<String, ClientDetails> clientDetailsCache;
+
     @SuppressWarnings("SpringJavaAutowiringInspection")
     @Autowired
     public RoleServiceImpl(
@@ -87,11 +103,56 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         this.roleProperties = roleProperties;
     }
 
+    @Autowired
+    public void setUserDetailsCache(ExpiringCache<String, User> userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    @Autowired
+    public void setClientDetailsCache(ExpiringCache<String, ClientDetails> clientDetailsCache) {
+        this.clientDetailsCache = clientDetailsCache;
+    }
+
+    @Override
+    public String getInitializerName() {
+        return INITIALIZER_NAME;
+    }
+
     @Override
     protected void doInit() {
         runAsSystemWithoutResult(new Initializer());
     }
 
+    private Set<String> findVirtualRoleNamesByMember(final String member) {
+        final Set<String> roleNames = new LinkedHashSet<>();
+        if (!roleProperties.getVirtualUserRoles().isEmpty() && userProfileLdapDao.existsByUserName(member)) {
+            roleNames.addAll(roleProperties.getVirtualUserRoles());
+        }
+        if (!roleProperties.getVirtualClientRoles().isEmpty() && oAuth2ClientLdapDao.exists(member)) {
+            roleNames.addAll(roleProperties.getVirtualClientRoles());
+        }
+        return roleNames;
+    }
+
+    private boolean hasVirtualRole(final String member, final String roleName) {
+        return (roleProperties.getVirtualUserRoles().contains(roleName) && userProfileLdapDao.existsByUserName(member))
+                || (roleProperties.getVirtualClientRoles().contains(roleName) && oAuth2ClientLdapDao.exists(member));
+    }
+
+    /**
+     * Removes the cached authorities of the given members or, if no members are given, of all users and clients.
+     */
+    private void evictUserDetails(final Collection<String> members) {
+        if (members == null) {
+            userDetailsCache.clear();
+            clientDetailsCache.clear();
+        } else if (!members.isEmpty()) {
+            final Set<String> memberSet = new HashSet<>(members);
+            userDetailsCache.removeByIndex(memberSet);
+            memberSet.forEach(clientDetailsCache::remove);
+        }
+    }
+
     private boolean userExists(final String userName) {
         return userProfileLdapDao.existsByUserName(userName)
                 || oAuth2ClientLdapDao.exists(userName);
@@ -155,6 +216,7 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         final String roleNamePrefix = roleNameService.createCustomRoleNamePrefix(userName);
         Page<RoleLdap> entities = roleLdapDao.findByNameStartsWith(roleNamePrefix, pageRequest);
         Page<RoleDto> page = PageBuilderUtils.createPage(entities, roleLdapMapper::mapToDto);
+        prefetchAcls(page.getEntries());
         log.info("{}: Find custom roles of user [{}] with page request [{}]: Returning page no. {} with {} entries.",
                 getCurrentUserName(), userName, pageRequest, page.getPageRequest(), page.getEntries().size());
         return page;
@@ -172,6 +234,7 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         log.info("{}: Deleting custom roles of user [{}] ...", getCurrentUserName(), userName);
         final String roleNamePrefix = roleNameService.createCustomRoleNamePrefix(userName);
         final Set<String> deletedRoleNames = roleLdapDao.deleteByNameStartsWith(roleNamePrefix);
+        evictUserDetails(null);
         deletedRoleNames.forEach(this::doPostDeleteRole);
         log.info("{}: Custom roles of user [{}] successfully deleted ({} role(s) was/were deleted).",
                 getCurrentUserName(), userName, deletedRoleNames.size());
@@ -261,6 +324,7 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         log.info("{}: Deleting role with name [{}] ...", getCurrentUserName(), roleName);
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
         roleLdapDao.deleteByName(roleName);
+        evictUserDetails(null);
         doPostDeleteRole(roleName);
         log.info("{}: Deleting role with name [{}] ... DONE!", getCurrentUserName(), roleName);
     }
@@ -279,6 +343,7 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         log.info("{}: Find role names by member [{}] ...", getCurrentUserName(), member);
         BadRequestException.validateNotBlank(member, "Member must be present.");
         final Set<String> roleNames = roleLdapDao.findRoleNamesByMember(member);
+        roleNames.addAll(findVirtualRoleNamesByMember(member));
         log.info("{}: Find role names by member [{}]: {} found!", getCurrentUserName(), member, roleNames.size());
         return roleNames;
     }
@@ -303,7 +368,7 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
     public boolean hasRole(final String member, final String roleName) {
         log.info("{}: Is user [{}] member of role [{}]? ...", getCurrentUserName(), member, roleName);
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
-        final boolean result = roleLdapDao.hasRole(member, roleName);
+        final boolean result = roleLdapDao.hasRole(member, roleName) || hasVirtualRole(member, roleName);
         log.info("{}: Is user [{}] member of role [{}]? {}", getCurrentUserName(), member, roleName, result);
         return result;
     }
@@ -331,6 +396,7 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         }
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
         roleLdapDao.addMembers(roleName, members);
+        evictUserDetails(members == null ? Collections.emptySet() : members);
         log.info("{}: Adding members to role [{}] ... DONE!", getCurrentUserName(), roleName);
     }
 
@@ -345,6 +411,7 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         }
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
         roleLdapDao.removeMembers(roleName, members);
+        evictUserDetails(members == null ? Collections.emptySet() : members);
         log.info("{}: Removing members from role [{}] ... DONE!", getCurrentUserName(), roleName);
     }
 
@@ -359,24 +426,41 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
         }
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
         roleLdapDao.updateMembers(roleName, members);
+        evictUserDetails(null);
         log.info("{}: Updating members of role [{}] ... DONE!", getCurrentUserName(), roleName);
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Override
+    public void removeOccupantsOfVirtualRoles() {
+        final Set<String> virtualRoles = new LinkedHashSet<>(roleProperties.getVirtualUserRoles());
+        virtualRoles.addAll(roleProperties.getVirtualClientRoles());
+        log.info("{}: Removing stored occupants of virtual roles {} ...", getCurrentUserName(), virtualRoles);
+        for (String roleName : virtualRoles) {
+            if (roleLdapDao.existsByName(roleName)) {
+                roleLdapDao.updateMembers(roleName, Collections.emptySet());
+            }
+        }
+        evictUserDetails(null);
+        log.info("{}: Removing stored occupants of virtual roles {}: DONE!", getCurrentUserName(), virtualRoles);
+    }
+
     private class Initializer extends RunAsCallbackWithoutResult {
 
         @Override
         public void run() {
 
-            roleLdapDao.findAll(new PageRequestDto()).getEntries().forEach(entity -> {
-                ObjectIdentity objectIdentity = getObjectIdentityRetrievalStrategy().getObjectIdentity(entity);
-                try {
-                    getAclService().readAclById(objectIdentity);
-                } catch (org.springframework.security.acls.model.NotFoundException e) { // NOSONAR
-                    log.info("No ACL found for role [" + entity.getName()
-                            + "] - creating default ACL.");
-                    initAcl(objectIdentity);
-                }
-            });
+            final List<ObjectIdentity> objectIdentities = new ArrayList<>(ACL_BATCH_SIZE);
+            try (Stream<String> roleNames = roleLdapDao.streamAllNames()) {
+                roleNames.forEach(roleName -> {
+                    objectIdentities.add(new ObjectIdentityImpl(RoleDto.TYPE_ID, roleName));
+                    if (objectIdentities.size() >= ACL_BATCH_SIZE) {
+                        initMissingAcls(objectIdentities, "role");
+                        objectIdentities.clear();
+                    }
+                });
+            }
+            initMissingAcls(objectIdentities, "role");
             for (RoleDto role : RoleDto.getDefaultRoles()) {
                 if (!existsByName(role.getName())) {
                     create(role);
@@ -387,6 +471,13 @@ public class RoleServiceImpl extends AbstractServiceImpl implements RoleService
                     create(role);
                 }
             }
+            final Set<String> virtualRoles = new LinkedHashSet<>(roleProperties.getVirtualUserRoles());
+            virtualRoles.addAll(roleProperties.getVirtualClientRoles());
+            for (String roleName : virtualRoles) {
+                if (!existsByName(roleName)) {
+                    create(new RoleDto(roleName, String.format("Virtual role [%s].", roleName)));
+                }
+            }
         }
     }
 }
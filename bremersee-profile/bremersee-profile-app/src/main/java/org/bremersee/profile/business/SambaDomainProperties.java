@@ -31,6 +31,23 @@ public class SambaDomainProperties {
 
     private SambaDomainDto defaultSambaDomain;
 
+    /**
+     * How many uid or gid numbers are reserved at once in the default samba domain.
+     */
+    private long idNumberBlockSize = 10L;
+
+    /**
+     * How often (in seconds) the in-memory registry of the samba domains is reloaded. It is always reloaded after a
+     * samba domain was created, updated or deleted by this application.
+     */
+    private long registryRefreshIntervalSeconds = 300L;
+
+    /**
+     * How old (in seconds) the in-memory registry of the samba domains must at least be, before a lookup of an
+     * unknown samba domain reloads it.
+     */
+    private long registryNegativeReloadIntervalSeconds = 5L;
+
     public SambaDomainProperties() {
         defaultSambaDomain = new SambaDomainDto();
         defaultSambaDomain.setSambaAlgorithmicRidBase(1000L);
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.business;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory registry of the samba domains, that maps the domain names and the SIDs of the domains to the values
+ * that are needed to derive the SID of a user or group (the domain SID and the algorithmic RID base). The
+ * registry is loaded on first use and reloaded after it was invalidated or after the refresh interval. The lookup
+ * of an unknown domain reloads the registry only, if it is older than the negative reload interval.
+ *
+ * @author Christian Bremer
+ */
+class SambaDomainRegistry {
+
+    private final Supplier<Collection<Domain>> loader;
+
+    private final long refreshIntervalMillis;
+
+    private final long negativeReloadIntervalMillis;
+
+    /**
+     * Is incremented on every invalidation, so that a registry that was loaded before is not published.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a registry.
+     *
+     * @param loader                 loads all samba domains
+     * @param refreshIntervalSeconds        the refresh interval (if it is less than 1, the registry is only
+     *                                      reloaded after an invalidation)
+     * @param negativeReloadIntervalSeconds the minimum age of the registry, before the lookup of an unknown
+     *                                      domain reloads it
+     */
+    SambaDomainRegistry(final Supplier<Collection<Domain>> loader, final long refreshIntervalSeconds,
+                        final long negativeReloadIntervalSeconds) {
+        this.loader = loader;
+        this.refreshIntervalMillis = refreshIntervalSeconds * 1000L;
+        this.negativeReloadIntervalMillis = Math.max(0L, negativeReloadIntervalSeconds) * 1000L;
+    }
+
+    /**
+     * Finds a samba domain by name (ignoring case) or by SID. If the domain is unknown, the registry is reloaded
+     * once, because the domain may have been created by someone else; but not more often than the negative reload
+     * interval allows, so that lookups of a wrong domain don't load all domains again and again.
+     *
+     * @param sambaDomainNameOrSambaSID the name or the SID of the domain
+     * @return the domain or {@code null}, if there is no such domain
+     */
+    Domain find(final String sambaDomainNameOrSambaSID) {
+        final Snapshot current = getSnapshot(false);
+        Domain domain = current.find(sambaDomainNameOrSambaSID);
+        if (domain == null && isReloadable(current)) {
+            domain = getSnapshot(true).find(sambaDomainNameOrSambaSID);
+        }
+        return domain;
+    }
+
+    /**
+     * Invalidates the registry. It must be called after a samba domain was created, updated or deleted.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot getSnapshot(final boolean reload) {
+        final Snapshot current = snapshot;
+        if (!reload && isValid(current)) {
+            return current;
+        }
+        synchronized (this) {
+            final Snapshot latest = snapshot;
+            if (isValid(latest) && (!reload || latest != current || !isReloadable(latest))) {
+                return latest;
+            }
+            final long loadGeneration = generation.get();
+            final Snapshot loaded = new Snapshot(loader.get());
+            if (loadGeneration == generation.get()) {
+                snapshot = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    private boolean isReloadable(final Snapshot s) {
+        return s.loadedAt + negativeReloadIntervalMillis <= System.currentTimeMillis();
+    }
+
+    private boolean isValid(final Snapshot s) {
+        return s != null && (refreshIntervalMillis < 1000L
+                || s.loadedAt + refreshIntervalMillis > System.currentTimeMillis());
+    }
+
+    /**
+     * The values of a samba domain that are needed to derive SIDs.
+     */
+    static class Domain {
+
+        private final String sambaDomainName;
+
+        private final String sambaSID;
+
+        private final Long sambaAlgorithmicRidBase;
+
+        Domain(final String sambaDomainName, final String sambaSID, final Long sambaAlgorithmicRidBase) {
+            this.sambaDomainName = sambaDomainName;
+            this.sambaSID = sambaSID;
+            this.sambaAlgorithmicRidBase = sambaAlgorithmicRidBase;
+        }
+
+        String getSambaDomainName() {
+            return sambaDomainName;
+        }
+
+        String getSambaSID() {
+            return sambaSID;
+        }
+
+        Long getSambaAlgorithmicRidBase() {
+            return sambaAlgorithmicRidBase;
+        }
+    }
+
+    private static class Snapshot {
+
+        private final Map<String, Domain> byName = new HashMap<>();
+
+        private final Map<String, Domain> bySid = new HashMap<>();
+
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Snapshot(final Collection<Domain> domains) {
+            for (final Domain domain : domains == null ? Collections.<Domain>emptyList() : domains) {
+                if (domain.getSambaDomainName() != null) {
+                    byName.put(domain.getSambaDomainName().toLowerCase(Locale.ENGLISH), domain);
+                }
+                if (domain.getSambaSID() != null) {
+                    bySid.put(domain.getSambaSID(), domain);
+                }
+            }
+        }
+
+        private Domain find(final String sambaDomainNameOrSambaSID) {
+            final Domain domain = byName.get(sambaDomainNameOrSambaSID.toLowerCase(Locale.ENGLISH));
+            return domain != null ? domain : bySid.get(sambaDomainNameOrSambaSID);
+        }
+    }
+
+}
@@ -26,6 +26,7 @@ import org.bremersee.pagebuilder.PageBuilderUtils;
 import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.pagebuilder.model.PageRequestDto;
+import org.bremersee.profile.StartupInitializer;
 import org.bremersee.profile.domain.ldap.dao.SambaDomainLdapDao;
 import org.bremersee.profile.domain.ldap.entity.SambaDomainLdap;
 import org.bremersee.profile.domain.ldap.mapper.SambaDomainLdapMapper;
@@ -38,12 +39,22 @@ import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * @author Christian Bremer
  */
 @Service("sambaDomainService")
 @EnableConfigurationProperties(SambaDomainProperties.class)
-public class SambaDomainServiceImpl extends AbstractServiceImpl implements SambaDomainService {
+public class SambaDomainServiceImpl extends AbstractServiceImpl implements SambaDomainService, StartupInitializer {
+
+    static final String INITIALIZER_NAME = "sambaDomains";
 
     private final SambaDomainLdapDao sambaDomainLdapDao;
 
@@ -51,6 +62,12 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
 
     private final SambaDomainProperties sambaDomainProperties;
 
+    private final IdNumberAllocator uidNumberAllocator;
+
+    private final IdNumberAllocator gidNumberAllocator;
+
+    private final SambaDomainRegistry sambaDomainRegistry;
+
     @SuppressWarnings("SpringJavaAutowiringInspection")
     @Autowired
     public SambaDomainServiceImpl(
@@ -61,6 +78,29 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
         this.sambaDomainLdapDao = sambaDomainLdapDao;
         this.sambaDomainLdapMapper = sambaDomainLdapMapper;
         this.sambaDomainProperties = sambaDomainProperties;
+        this.uidNumberAllocator = new IdNumberAllocator(blockSize -> reserveIdNumbers("uidNumber", blockSize,
+                SambaDomainDto::getUidNumber, SambaDomainDto::setUidNumber),
+                sambaDomainProperties.getIdNumberBlockSize());
+        this.gidNumberAllocator = new IdNumberAllocator(blockSize -> reserveIdNumbers("gidNumber", blockSize,
+                SambaDomainDto::getGidNumber, SambaDomainDto::setGidNumber),
+                sambaDomainProperties.getIdNumberBlockSize());
+        this.sambaDomainRegistry = new SambaDomainRegistry(this::loadSambaDomainRegistry,
+                sambaDomainProperties.getRegistryRefreshIntervalSeconds(),
+                sambaDomainProperties.getRegistryNegativeReloadIntervalSeconds());
+    }
+
+    private List<SambaDomainRegistry.Domain> loadSambaDomainRegistry() {
+        try (Stream<SambaDomainLdap> entities = sambaDomainLdapDao.streamAll()) {
+            return entities
+                    .map(entity -> new SambaDomainRegistry.Domain(entity.getSambaDomainName(), entity.getSambaSID(),
+                            entity.getSambaAlgorithmicRidBase()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public String getInitializerName() {
+        return INITIALIZER_NAME;
     }
 
     @Override
@@ -99,34 +139,43 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
         return sambaDomainProperties.getDefaultSambaDomain();
     }
 
+    /**
+     * Reserves a block of numbers of the default samba domain. This is only called by the allocators, which
+     * serialize the reservations of their attribute.
+     */
+    private long reserveIdNumbers(final String attributeName, final long blockSize,
+                                  final Function<SambaDomainDto, Long> getter,
+                                  final BiConsumer<SambaDomainDto, Long> setter) {
+        final Long first = sambaDomainLdapDao.reserveIdNumbers(getDefaultSambaDomainName(), attributeName, blockSize);
+        if (first != null) {
+            return first;
+        }
+        // the default samba domain doesn't exist in the directory, so the temporary one is used
+        final SambaDomainDto tmp = sambaDomainProperties.getDefaultSambaDomain();
+        final Long tmpValue = getter.apply(tmp);
+        final long tmpFirst = tmpValue == null ? 10000L : tmpValue;
+        setter.accept(tmp, tmpFirst + blockSize);
+        return tmpFirst;
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM')")
     @Override
     public long getNextUidNumber() {
-        SambaDomainDto tmp = findDefaultSambaDomain();
-        long uid = tmp.getUidNumber() == null ? 10000L : tmp.getUidNumber();
-        tmp.setUidNumber(uid + 1L);
-        if (tmp instanceof SambaDomainLdap) {
-            sambaDomainLdapDao.save((SambaDomainLdap) tmp);
-        }
-        return uid;
+        return uidNumberAllocator.next();
     }
 
     @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM')")
     @Override
     public long getNextGidNumber() {
-        SambaDomainDto tmp = findDefaultSambaDomain();
-        long gid = tmp.getGidNumber() == null ? 10000L : tmp.getGidNumber();
-        tmp.setGidNumber(gid + 1L);
-        if (tmp instanceof SambaDomainLdap) {
-            sambaDomainLdapDao.save((SambaDomainLdap) tmp);
-        }
-        return gid;
+        return gidNumberAllocator.next();
     }
 
     @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM')")
     @Override
     public String getDefaultSambaSID(long gidOrUidNumber) {
-        SambaDomainDto sambaDomain = findBySambaDomainName(getDefaultSambaDomainName());
+        final SambaDomainRegistry.Domain sambaDomain = sambaDomainRegistry.find(getDefaultSambaDomainName());
+        NotFoundException.validateNotNull(sambaDomain,
+                "Samba domain with name [" + getDefaultSambaDomainName() + "] was not found.");
         return getSambaSID(gidOrUidNumber, sambaDomain);
     }
 
@@ -135,14 +184,14 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
     public String getSambaSID(long gidOrUidNumber, final String sambaDomainNameOrSambaSID) {
         BadRequestException.validateNotBlank(sambaDomainNameOrSambaSID,
                 "Samba domain name or Samba SID must be present.");
-        SambaDomainLdap entity = sambaDomainLdapDao.findBySambaDomainNameOrSambaSID(sambaDomainNameOrSambaSID);
-        NotFoundException.validateNotNull(entity,
+        final SambaDomainRegistry.Domain sambaDomain = sambaDomainRegistry.find(sambaDomainNameOrSambaSID);
+        NotFoundException.validateNotNull(sambaDomain,
                 String.format("Samba domain [%s] not found.", sambaDomainNameOrSambaSID));
 
-        return getSambaSID(gidOrUidNumber, entity);
+        return getSambaSID(gidOrUidNumber, sambaDomain);
     }
 
-    private String getSambaSID(long gidOrUidNumber, final SambaDomainDto sambaDomain) {
+    private String getSambaSID(long gidOrUidNumber, final SambaDomainRegistry.Domain sambaDomain) {
         final long sambaAlgorithmicRidBase;
         if (sambaDomain != null && sambaDomain.getSambaAlgorithmicRidBase() != null) {
             sambaAlgorithmicRidBase = sambaDomain.getSambaAlgorithmicRidBase();
@@ -192,6 +241,7 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
         entity.setSambaDomainName(sambaDomain.getSambaDomainName());
         sambaDomainLdapMapper.updateEntity(sambaDomain, entity);
         entity = sambaDomainLdapDao.save(entity);
+        sambaDomainRegistry.invalidate();
         initAcl(entity);
         SambaDomainDto dto = sambaDomainLdapMapper.mapToDto(entity);
         log.info("{}: Creating samba domain [{}]: DONE!", getCurrentUserName(), sambaDomain);
@@ -210,6 +260,7 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
         NotFoundException.validateNotNull(entity, "Samba domain with name [" + sambaDomainName + "] was not found.");
         sambaDomainLdapMapper.updateEntity(sambaDomain, entity);
         entity = sambaDomainLdapDao.save(entity);
+        sambaDomainRegistry.invalidate();
         SambaDomainDto dto = sambaDomainLdapMapper.mapToDto(entity);
         log.info("{}: Updating samba domain with name [{}]: DONE!", getCurrentUserName(), sambaDomainName);
         return dto;
@@ -279,6 +330,7 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
         log.info("{}: Deleting samba domain by name [{}] ...", getCurrentUserName(), sambaDomainName);
         BadRequestException.validateNotBlank(sambaDomainName, "Samba domain name must be present.");
         sambaDomainLdapDao.deleteBySambaDomainName(sambaDomainName);
+        sambaDomainRegistry.invalidate();
         deleteAcls(new ObjectIdentityImpl(SambaDomainDto.TYPE_ID, sambaDomainName), true);
         log.info("{}: Deleting samba domain by name [{}]: DONE!", getCurrentUserName(), sambaDomainName);
     }
@@ -294,26 +346,31 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
         @Override
         public void run() { // NOSONAR
             boolean defaultSambaDomainExists = false;
-            Page<SambaDomainDto> domains = findAll(new PageRequestDto());
-            for (final SambaDomainDto domain : domains.getEntries()) {
-
-                if (!defaultSambaDomainExists
-                        && domain.getSambaDomainName().equals(sambaDomainProperties.getDefaultSambaDomain()
-                        .getSambaDomainName())) {
-
-                    log.info("Default samba domain [{}] exists.", domain.getSambaDomainName());
-                    defaultSambaDomainExists = true;
-                    sambaDomainProperties.setDefaultSambaDomain(domain);
-                }
-
-                ObjectIdentity objectIdentity = getObjectIdentityRetrievalStrategy().getObjectIdentity(domain);
-                try {
-                    getAclService().readAclById(objectIdentity);
-                } catch (org.springframework.security.acls.model.NotFoundException e) { // NOSONAR
-                    log.info("No ACL found for samba domain [{}] - creating default ACL.", domain.getSambaDomainName());
-                    initAcl(objectIdentity);
+            SambaDomainDto firstDomain = null;
+            long domainCount = 0;
+            final List<ObjectIdentity> objectIdentities = new ArrayList<>();
+            try (Stream<SambaDomainLdap> entities = sambaDomainLdapDao.streamAll()) {
+                final Iterator<SambaDomainLdap> iterator = entities.iterator();
+                while (iterator.hasNext()) {
+                    final SambaDomainDto domain = sambaDomainLdapMapper.mapToDto(iterator.next());
+                    domainCount++;
+                    if (firstDomain == null) {
+                        firstDomain = domain;
+                    }
+
+                    if (!defaultSambaDomainExists
+                            && domain.getSambaDomainName().equals(sambaDomainProperties.getDefaultSambaDomain()
+                            .getSambaDomainName())) {
+
+                        log.info("Default samba domain [{}] exists.", domain.getSambaDomainName());
+                        defaultSambaDomainExists = true;
+                        sambaDomainProperties.setDefaultSambaDomain(domain);
+                    }
+
+                    objectIdentities.add(getObjectIdentityRetrievalStrategy().getObjectIdentity(domain));
                 }
             }
+            initMissingAcls(objectIdentities, "samba domain");
 
             if (!defaultSambaDomainExists
                     && sambaDomainProperties.isCreateDefaultSambaDomain()
@@ -322,10 +379,10 @@ public class SambaDomainServiceImpl extends AbstractServiceImpl implements Samba
 
                 create(sambaDomainProperties.getDefaultSambaDomain());
 
-            } else if (!defaultSambaDomainExists && domains.getEntries().size() == 1) {
+            } else if (!defaultSambaDomainExists && domainCount == 1) {
 
-                log.info("Setting default samba domain to " + domains.getEntries().get(0));
-                sambaDomainProperties.setDefaultSambaDomain(domains.getEntries().get(0));
+                log.info("Setting default samba domain to " + firstDomain);
+                sambaDomainProperties.setDefaultSambaDomain(firstDomain);
 
             } else if (!defaultSambaDomainExists) {
 
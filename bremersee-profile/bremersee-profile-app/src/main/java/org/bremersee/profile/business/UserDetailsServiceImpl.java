@@ -17,6 +17,7 @@
 package org.bremersee.profile.business;
 
 import org.apache.commons.lang3.Validate;
+import org.bremersee.profile.ExpiringCache;
 import org.bremersee.profile.domain.ldap.dao.RoleLdapDao;
 import org.bremersee.profile.domain.ldap.dao.UserProfileLdapDao;
 import org.bremersee.profile.domain.ldap.entity.UserProfileLdap;
@@ -47,6 +48,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserProfileLdapDao userProfileLdapDao;
 
+    private RoleProperties roleProperties = new RoleProperties();
+
+    private ExpiringCache<String, User> userDetailsCache;
+
     @Autowired
     public UserDetailsServiceImpl(
             final RoleLdapDao roleLdapDao,
@@ -56,10 +61,30 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         this.userProfileLdapDao = userProfileLdapDao;
     }
 
+    @Autowired(required = false)
+    public void setRoleProperties(RoleProperties roleProperties) {
+        if (roleProperties != null) {
+            this.roleProperties = roleProperties;
+        }
+    }
+
+    @Autowired
+    public void setUserDetailsCache(ExpiringCache<String, User> userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
     @Override
     public UserDetails loadUserByUsername(final String username) {
 
         Validate.notBlank(username, "User name must not be null or blank.");
+        // The authentication manager erases the credentials of the returned user, so the cached one is copied.
+        final User user = userDetailsCache.get(username, this::loadUser);
+        return new User(username, user.getPassword(), true, true, true,
+                true, user.getAuthorities());
+    }
+
+    private User loadUser(final String username) {
+
         UserProfileLdap entity;
         if (username.contains("@")) {
             entity = userProfileLdapDao.findByEmail(username);
@@ -79,11 +104,12 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         List<GrantedAuthority> authorities = new ArrayList<>();
         Set<String> roles = roleLdapDao.findRoleNamesByMember(entity.getUid());
+        roles.addAll(roleProperties.getVirtualUserRoles());
         for (String role : roles) {
             authorities.add(new SimpleGrantedAuthority(role));
         }
 
-        return new User(username, entity.getPassword(), true, true, true,
+        return new User(entity.getUid(), entity.getPassword(), true, true, true,
                 true, authorities);
     }
 
@@ -25,6 +25,7 @@ import org.bremersee.pagebuilder.PageBuilderUtils;
 import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.pagebuilder.model.PageRequestDto;
+import org.bremersee.profile.StartupInitializer;
 import org.bremersee.profile.domain.ldap.dao.UserGroupLdapDao;
 import org.bremersee.profile.domain.ldap.entity.UserGroupLdap;
 import org.bremersee.profile.domain.ldap.mapper.UserGroupLdapMapper;
@@ -37,15 +38,20 @@ import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
  */
 @Service("userGroupService")
 @EnableConfigurationProperties(UserGroupProperties.class)
-public class UserGroupServiceImpl extends AbstractServiceImpl implements UserGroupService {
+public class UserGroupServiceImpl extends AbstractServiceImpl implements UserGroupService, StartupInitializer {
+
+    static final String INITIALIZER_NAME = "userGroups";
 
     private static final String GROUP_NAME_MUST_BE_PRESENT = "Group name must be present.";
 
@@ -71,6 +77,19 @@ public class UserGroupServiceImpl extends AbstractServiceImpl implements UserGro
         this.userGroupProperties = userGroupProperties;
     }
 
+    @Override
+    public String getInitializerName() {
+        return INITIALIZER_NAME;
+    }
+
+    /**
+     * The initializer only creates missing ACLs of the user groups, so the application may be ready before.
+     */
+    @Override
+    public boolean isCriticalInitializer() {
+        return false;
+    }
+
     @Override
     protected void doInit() {
         runAsSystem(new Initializer());
@@ -254,17 +273,7 @@ public class UserGroupServiceImpl extends AbstractServiceImpl implements UserGro
     public UserGroupDto findByIdentifier(final String identifier) {
         log.info("{}: Find user group by identifier [{}] ...", getCurrentUserName(), identifier);
         BadRequestException.validateNotBlank(identifier, "User group identifier must be present.");
-        UserGroupLdap entity = userGroupLdapDao.findByName(identifier);
-        if (entity == null) {
-            entity = userGroupLdapDao.findBySambaSID(identifier);
-            if (entity == null) {
-                try {
-                    entity = userGroupLdapDao.findByGidNumber(Long.parseLong(identifier));
-                } catch (NumberFormatException e) { // NOSONAR
-                    entity = null;
-                }
-            }
-        }
+        final UserGroupLdap entity = userGroupLdapDao.findByIdentifier(identifier);
         NotFoundException.validateNotNull(entity,
                 String.format("User group with identifier [%s] was not found.", identifier));
         UserGroupDto dto = userGroupLdapMapper.mapToDto(entity);
@@ -319,15 +328,7 @@ public class UserGroupServiceImpl extends AbstractServiceImpl implements UserGro
     public boolean existsByIdentifier(final String identifier) {
         log.info("{}: User group with identifier [{}] exists? ...", getCurrentUserName(), identifier);
         BadRequestException.validateNotBlank(identifier, "User group identifier must be present.");
-        Long gidNumber;
-        try {
-            gidNumber = Long.parseLong(identifier);
-        } catch (NumberFormatException ignored) {
-            gidNumber = null;
-        }
-        final boolean result = userGroupLdapDao.existsByName(identifier)
-                || userGroupLdapDao.existsBySambaSID(identifier)
-                || (gidNumber != null && userGroupLdapDao.existsByGidNumber(gidNumber));
+        final boolean result = userGroupLdapDao.existsByIdentifier(identifier);
         log.info("{}: User group with identifier [{}] exists? {}", getCurrentUserName(), identifier, result);
         return result;
     }
@@ -457,16 +458,17 @@ public class UserGroupServiceImpl extends AbstractServiceImpl implements UserGro
 
         @Override
         public void run() {
-            Page<UserGroupDto> domains = findAll(new PageRequestDto());
-            for (final UserGroupDto entity : domains.getEntries()) {
-                ObjectIdentity objectIdentity = getObjectIdentityRetrievalStrategy().getObjectIdentity(entity);
-                try {
-                    getAclService().readAclById(objectIdentity);
-                } catch (org.springframework.security.acls.model.NotFoundException e) { // NOSONAR
-                    log.info("No ACL found for user group [{}] - creating default ACL.", entity.getName());
-                    initAcl(objectIdentity);
-                }
+            final List<ObjectIdentity> objectIdentities = new ArrayList<>(ACL_BATCH_SIZE);
+            try (Stream<UserGroupLdap> entities = userGroupLdapDao.streamAll()) {
+                entities.map(userGroupLdapMapper::mapToDto).forEach(entity -> {
+                    objectIdentities.add(getObjectIdentityRetrievalStrategy().getObjectIdentity(entity));
+                    if (objectIdentities.size() >= ACL_BATCH_SIZE) {
+                        initMissingAcls(objectIdentities, "user group");
+                        objectIdentities.clear();
+                    }
+                });
             }
+            initMissingAcls(objectIdentities, "user group");
         }
     }
 
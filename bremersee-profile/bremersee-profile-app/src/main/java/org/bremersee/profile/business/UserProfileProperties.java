@@ -32,8 +32,19 @@ import java.util.List;
 @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection", "WeakerAccess"})
 public class UserProfileProperties {
 
+    /**
+     * If {@code true}, all profiles are reconciled with their roles and ACLs in the background, when the
+     * application is ready. Profiles that were already reconciled with the current settings are skipped.
+     */
     private boolean checkAllProfilesAtStartup = true;
 
+    /**
+     * The number of threads that reconcile the profiles. Each thread holds one ldap connection and the reading of
+     * the profiles holds another one, so the threads are capped to {@code bremersee.ldaptive.max-pool-size / 2 - 1}
+     * (4 threads with a pool of 10 connections).
+     */
+    private int reconciliationThreads = 4;
+
     private String adminPassword = "secret4ADMIN"; // NOSONAR
 
     private List<String> defaultUserRoles = new ArrayList<>();
@@ -28,11 +28,14 @@ import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.pagebuilder.model.PageRequestDto;
 import org.bremersee.pagebuilder.spring.PageBuilderSpringUtils;
 import org.bremersee.pagebuilder.spring.SpringPageRequest;
+import org.bremersee.profile.StartupInitializer;
+import org.bremersee.profile.domain.ldap.dao.LdapConnectionScope;
 import org.bremersee.profile.domain.ldap.dao.UserProfileLdapDao;
 import org.bremersee.profile.domain.ldap.entity.UserProfileLdap;
 import org.bremersee.profile.domain.ldap.mapper.UserProfileLdapMapper;
 import org.bremersee.profile.domain.mongodb.entity.UserProfileMongo;
 import org.bremersee.profile.domain.mongodb.mapper.UserProfileMongoMapper;
+import org.bremersee.profile.domain.mongodb.repository.KeysetPage;
 import org.bremersee.profile.domain.mongodb.repository.UserProfileMongoRepository;
 import org.bremersee.profile.model.*;
 import org.bremersee.profile.validation.EmailValidator;
@@ -40,6 +43,7 @@ import org.bremersee.profile.validation.PasswordValidator;
 import org.bremersee.profile.validation.UserNameValidator;
 import org.bremersee.profile.validation.ValidatorConstants;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -47,22 +51,54 @@ import org.springframework.security.acls.domain.BasePermission;
 import org.springframework.security.acls.domain.GrantedAuthoritySid;
 import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.Acl;
 import org.springframework.security.acls.model.MutableAcl;
 import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
  */
 @Service("userProfileService")
 @EnableConfigurationProperties(UserProfileProperties.class)
-public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl implements UserProfileService {
+public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl
+        implements UserProfileService, StartupInitializer {
+
+    static final String INITIALIZER_NAME = "userProfiles";
+
+    /**
+     * The attributes of a user profile that have their own ACL.
+     */
+    private static final String[] ACL_ATTRIBUTE_NAMES = {
+            MailSettingsDto.USER_PROFILE_ATTRIBUTE_NAME,
+            OrganisationSettingsDto.USER_PROFILE_ATTRIBUTE_NAME,
+            PosixSettingsDto.USER_PROFILE_ATTRIBUTE_NAME,
+            SambaSettingsDto.USER_PROFILE_ATTRIBUTE_NAME
+    };
+
+    /**
+     * The version of the reconciliation. Increment it, if all profiles must be reconciled again.
+     */
+    private static final int RECONCILIATION_VERSION = 1;
 
     private final RoleNameService roleNameService;
 
@@ -80,6 +116,12 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
 
     private final EmailValidator emailValidator;
 
+    private RoleProperties roleProperties = new RoleProperties();
+
+    private int ldapMaxPoolSize = 10;
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
     @SuppressWarnings("SpringJavaAutowiringInspection")
     @Autowired
     public UserProfileServiceImpl( // NOSONAR
@@ -108,9 +150,55 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
         this.emailValidator = emailValidator;
     }
 
+    @Autowired(required = false)
+    public void setRoleProperties(RoleProperties roleProperties) {
+        if (roleProperties != null) {
+            this.roleProperties = roleProperties;
+        }
+    }
+
+    @Value("${bremersee.ldaptive.max-pool-size:10}")
+    public void setLdapMaxPoolSize(int ldapMaxPoolSize) {
+        this.ldapMaxPoolSize = ldapMaxPoolSize;
+    }
+
+    @Override
+    public String getInitializerName() {
+        return INITIALIZER_NAME;
+    }
+
+    @Override
+    public Collection<String> getInitializerDependencies() {
+        return Arrays.asList(RoleServiceImpl.INITIALIZER_NAME, SambaDomainServiceImpl.INITIALIZER_NAME);
+    }
+
     @Override
     protected void doInit() {
         runAsSystemWithoutResult(new Initializer());
+        reconcileAllProfiles();
+    }
+
+    /**
+     * Starts the reconciliation of all user profiles in the background. It is started, when the initializer has
+     * finished, so that the roles exist.
+     */
+    private void reconcileAllProfiles() {
+        if (userProfileProperties.isCheckAllProfilesAtStartup() && reconciling.compareAndSet(false, true)) {
+            final Thread thread = new Thread(() -> {
+                // The stream of all profiles holds one connection until the reconciliation has finished.
+                LdapConnectionScope.begin();
+                try {
+                    runAsSystemWithoutResult(new Reconciliation());
+                } catch (RuntimeException e) {
+                    log.error("Reconciliation of the user profiles failed.", e);
+                } finally {
+                    LdapConnectionScope.end();
+                    reconciling.set(false);
+                }
+            }, "user-profile-reconciliation");
+            thread.setDaemon(true);
+            thread.start();
+        }
     }
 
     private boolean isQueryPresent(final PageRequest pageRequest) {
@@ -146,14 +234,29 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
         if (StringUtils.isBlank(pageRequest.getQuery())) {
             springPage = userProfileMongoRepository.findAll(pageable);
         } else {
-            springPage = userProfileMongoRepository.findBySearchRegex(pageRequest.getQuery(), pageable);
+            springPage = userProfileMongoRepository.findBySearchQuery(pageRequest.getQuery(), pageable);
         }
         Page<UserProfileDto> dtos = PageBuilderSpringUtils.fromSpringPage(springPage, userProfileMongoMapper::mapToDto);
+        prefetchAcls(dtos.getEntries());
         log.info("{}: Find all users with page request [{}]: Returning page no. {} with {} entries.",
                 getCurrentUserName(), pageRequest, dtos.getPageRequest().getPageNumber(), dtos.getEntries().size());
         return dtos;
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM','ROLE_READ_ALL_PROFILES')")
+    @Override
+    public CursorPageDto<UserProfileDto> findAll(final String cursor, final Integer pageSize, final String query,
+                                                 final boolean estimateTotal) {
+
+        log.info("{}: Find all users with cursor [{}] and query [{}] ...", getCurrentUserName(), cursor, query);
+        final KeysetPage<UserProfileMongo> page = userProfileMongoRepository
+                .findByCursor(cursor, pageSize, query, estimateTotal);
+        final CursorPageDto<UserProfileDto> dtos = createCursorPage(page, userProfileMongoMapper::mapToDto);
+        log.info("{}: Find all users with cursor [{}] and query [{}]: Returning {} entries.",
+                getCurrentUserName(), cursor, query, dtos.getEntries().size());
+        return dtos;
+    }
+
     @PreAuthorize("isAuthenticated()")
     @PostAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM','ROLE_READ_ALL_PROFILES')"
             + " or hasPermission(#returnObject.uid, 'UserProfile', 'read')")
@@ -162,19 +265,7 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
 
         log.info("{}: Find user by identifier [{}] ...", getCurrentUserName(), identifier);
         BadRequestException.validateNotBlank(identifier, "Identifier must be present.");
-        UserProfileLdap ldap = userProfileLdapDao.findByUserName(identifier);
-        Long uidNumber;
-        try {
-            uidNumber = Long.parseLong(identifier);
-        } catch (NumberFormatException ignored) {
-            uidNumber = null;
-        }
-        if (ldap == null) {
-            ldap = userProfileLdapDao.findByEmail(identifier);
-        }
-        if (ldap == null && uidNumber != null) {
-            ldap = userProfileLdapDao.findByUidNumber(uidNumber);
-        }
+        final UserProfileLdap ldap = userProfileLdapDao.findByIdentifier(identifier);
         // sambaSID is possible, too
         NotFoundException.validateNotNull(ldap, String.format("User with identifier [%s] was not found.", identifier));
         UserProfileMongo entity = findOrCreateUserProfileMongo(ldap);
@@ -235,16 +326,8 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
     public boolean existsByIdentifier(String identifier) {
         log.info("{}: User with identifier [{}] exists? ...", getCurrentUserName(), identifier);
         BadRequestException.validateNotBlank(identifier, "Identifier must be present.");
-        Long uidNumber;
-        try {
-            uidNumber = Long.parseLong(identifier);
-        } catch (NumberFormatException ignored) {
-            uidNumber = null;
-        }
         // sambaSID is possible, too
-        final boolean result = userProfileLdapDao.existsByUserName(identifier)
-                || userProfileLdapDao.existsByEmail(identifier)
-                || (uidNumber != null && userProfileLdapDao.existsByUidNumber(uidNumber));
+        final boolean result = userProfileLdapDao.existsByIdentifier(identifier);
         log.info("{}: User with identifier [{}] exists? {}", getCurrentUserName(), identifier, result);
         return result;
     }
@@ -302,6 +385,7 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
         });
         userProfileLdapDao.deleteByUserName(userName);
         userProfileMongoRepository.deleteByUid(userName);
+        evictUserDetails(userName);
         log.info("{}: Deleting user with name [{}]: DONE!", getCurrentUserName(), userName);
     }
 
@@ -352,6 +436,8 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
     }
 
     private UserProfileDto create(UserProfileLdap userProfileLdap, UserProfileMongo userProfileMongo) {
+        addToAvailabilityIndex(ValidatorConstants.USER_TABLE_MASK, userProfileLdap.getUid(),
+                userProfileLdap.getEmail());
         UserProfileLdap ldap = userProfileLdapDao.save(userProfileLdap);
         UserProfileMongo entity = userProfileMongoRepository.save(userProfileMongo);
         initUserProfile(ldap);
@@ -365,64 +451,97 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
 
     private void initUserProfileRoles(UserProfileLdap ldap) {
         // Add user to roles.
-        Set<String> roles = new HashSet<>();
+        for (String role : getDefaultUserRoleNames()) {
+            createRoleIfMissing(role, ldap.getUid());
+            if (!roleProperties.getVirtualUserRoles().contains(role)) {
+                roleService.addMembers(role, Collections.singleton(ldap.getUid()));
+            }
+        }
+        createFriendsRoleIfMissing(ldap);
+        // The default user group will be created at 'applyPosixSettingsToProfile'.
+    }
+
+    private Set<String> getDefaultUserRoleNames() {
+        Set<String> roles = new TreeSet<>();
         roles.add(RoleDto.USER_ROLE_NAME);
         roles.addAll(userProfileProperties.getDefaultUserRoles());
-        for (String role : roles) {
-            if (!roleService.existsByName(role)) {
-                RoleDto createRoleRequest = new RoleDto();
-                createRoleRequest.setName(role);
-                createRoleRequest.setDescription("Role was created during creation of OAuth2Client with name ["
-                        + ldap.getUid() + "].");
-                roleService.create(createRoleRequest);
-            }
-            roleService.addMembers(role, Collections.singleton(ldap.getUid()));
+        return roles;
+    }
+
+    private void createRoleIfMissing(String role, String userName) {
+        if (!roleService.existsByName(role)) {
+            RoleDto createRoleRequest = new RoleDto();
+            createRoleRequest.setName(role);
+            createRoleRequest.setDescription("Role was created during creation of OAuth2Client with name ["
+                    + userName + "].");
+            roleService.create(createRoleRequest);
         }
-        // create friends role
+    }
+
+    private void createFriendsRoleIfMissing(UserProfileLdap ldap) {
         if (!roleService.existsByName(roleNameService.createFriendsRoleName(ldap.getUid()))) {
             friendsService.createFriendsRole(ldap.getUid());
         }
-        // The default user group will be created at 'applyPosixSettingsToProfile'.
     }
 
     private void initUserProfileAcls(UserProfileLdap ldap) {
+        initUserProfileAcls(ldap, readAcls(getUserProfileObjectIdentities(ldap)));
+    }
 
-        final PrincipalSid ownerSid = new PrincipalSid(ldap.getUid());
-        MutableAcl acl;
-        try {
-            acl = (MutableAcl) getAclService().readAclById(getObjectIdentityRetrievalStrategy()
-                    .getObjectIdentity(ldap));
+    /**
+     * Initializes the ACLs of the given user profiles. The existing ACLs are read with one batched lookup.
+     */
+    private void initUserProfileAcls(List<UserProfileLdap> ldaps) {
+        final List<ObjectIdentity> objectIdentities = new ArrayList<>(ldaps.size() * (ACL_ATTRIBUTE_NAMES.length + 1));
+        for (final UserProfileLdap ldap : ldaps) {
+            objectIdentities.addAll(getUserProfileObjectIdentities(ldap));
+        }
+        final Map<ObjectIdentity, Acl> acls = readAcls(objectIdentities);
+        for (final UserProfileLdap ldap : ldaps) {
+            initUserProfileAcls(ldap, acls);
+        }
+    }
 
-        } catch (org.springframework.security.acls.model.NotFoundException e) { // NOSONAR
+    /**
+     * Returns the object identities of the user profile and of its attributes.
+     */
+    private List<ObjectIdentity> getUserProfileObjectIdentities(UserProfileLdap ldap) {
+        final List<ObjectIdentity> objectIdentities = new ArrayList<>(ACL_ATTRIBUTE_NAMES.length + 1);
+        objectIdentities.add(getObjectIdentityRetrievalStrategy().getObjectIdentity(ldap));
+        for (final String attributeName : ACL_ATTRIBUTE_NAMES) {
+            objectIdentities.add(createObjectIdentityWithAttribute(
+                    ldap.getUid(),
+                    UserProfileDto.TYPE_ID,
+                    attributeName));
+        }
+        return objectIdentities;
+    }
 
-            acl = initAcl(ldap, ldap.getUid());
-            acl.insertAce(acl.getEntries().size(), BasePermission.ADMINISTRATION, ownerSid, true);
-            acl.insertAce(acl.getEntries().size(), BasePermission.CREATE, ownerSid, true);
-            acl.insertAce(acl.getEntries().size(), BasePermission.DELETE, ownerSid, true);
-            acl.insertAce(acl.getEntries().size(), BasePermission.READ, ownerSid, true);
-            acl.insertAce(acl.getEntries().size(), BasePermission.WRITE, ownerSid, true);
+    private void initUserProfileAcls(UserProfileLdap ldap, Map<ObjectIdentity, Acl> acls) {
+
+        final PrincipalSid ownerSid = new PrincipalSid(ldap.getUid());
+        Acl acl = acls.get(getObjectIdentityRetrievalStrategy().getObjectIdentity(ldap));
+        if (acl == null) {
+
+            MutableAcl newAcl = initAcl(ldap, ldap.getUid());
+            newAcl.insertAce(newAcl.getEntries().size(), BasePermission.ADMINISTRATION, ownerSid, true);
+            newAcl.insertAce(newAcl.getEntries().size(), BasePermission.CREATE, ownerSid, true);
+            newAcl.insertAce(newAcl.getEntries().size(), BasePermission.DELETE, ownerSid, true);
+            newAcl.insertAce(newAcl.getEntries().size(), BasePermission.READ, ownerSid, true);
+            newAcl.insertAce(newAcl.getEntries().size(), BasePermission.WRITE, ownerSid, true);
 
             final String friendsRoleName = roleNameService.createFriendsRoleName(ldap.getUid());
             final GrantedAuthoritySid friendsSid = new GrantedAuthoritySid(friendsRoleName);
-            acl.insertAce(acl.getEntries().size(), BasePermission.READ, friendsSid, true);
-            acl = getAclService().updateAcl(acl);
+            newAcl.insertAce(newAcl.getEntries().size(), BasePermission.READ, friendsSid, true);
+            acl = getAclService().updateAcl(newAcl);
         }
 
-        final String[] attributeNames = {
-                MailSettingsDto.USER_PROFILE_ATTRIBUTE_NAME,
-                OrganisationSettingsDto.USER_PROFILE_ATTRIBUTE_NAME,
-                PosixSettingsDto.USER_PROFILE_ATTRIBUTE_NAME,
-                SambaSettingsDto.USER_PROFILE_ATTRIBUTE_NAME
-        };
-        for (final String attribuetName : attributeNames) {
+        for (final String attribuetName : ACL_ATTRIBUTE_NAMES) {
             final ObjectIdentity objectIdentity = createObjectIdentityWithAttribute(
                     ldap.getUid(),
                     UserProfileDto.TYPE_ID,
                     attribuetName);
-            try {
-                getAclService().readAclById(objectIdentity);
-
-            } catch (org.springframework.security.acls.model.NotFoundException e) { // NOSONAR
+            if (!acls.containsKey(objectIdentity)) {
                 MutableAcl mailSettingsAcl = initAcl(objectIdentity, getSystemName(), acl, false);
                 mailSettingsAcl.insertAce(mailSettingsAcl.getEntries().size(), BasePermission.READ, ownerSid, true);
                 getAclService().updateAcl(mailSettingsAcl);
@@ -443,6 +562,7 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
         UserProfileMongo mongo = findOrCreateUserProfileMongo(ldap);
         userProfileLdapMapper.updateEntity(userProfile, ldap);
         userProfileLdapDao.save(ldap);
+        evictUserDetails(userName);
         userProfileMongoMapper.updateEntity(userProfile, mongo);
         mongo = userProfileMongoRepository.save(mongo);
         UserProfileDto dto = userProfileMongoMapper.mapToDto(mongo);
@@ -462,10 +582,12 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
     private void doChangePassword(final String userName, final String newPassword, final String oldPassword) {
 
         UserProfileLdap ldap = loadUserProfileLdap(userName);
-        passwordValidator.validate(newPassword, ldap.getPassword(), oldPassword, null);
-        ldap.setPassword(passwordEncoder.encode(newPassword));
-        ldap.setSambaLmPassword(passwordEncoder.createSambaLMPassword(newPassword));
-        ldap.setSambaNtPassword(passwordEncoder.createSambaNTPassword(newPassword));
+        hashPassword(() -> {
+            passwordValidator.validate(newPassword, ldap.getPassword(), oldPassword, null);
+            ldap.setPassword(passwordEncoder.encode(newPassword));
+            ldap.setSambaLmPassword(passwordEncoder.createSambaLMPassword(newPassword));
+            ldap.setSambaNtPassword(passwordEncoder.createSambaNTPassword(newPassword));
+        });
         SambaSettingsDto sambaSettings = ldap.getSambaSettings();
         if (sambaSettings == null) {
             sambaSettings = new SambaSettingsDto();
@@ -473,6 +595,7 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
         }
         sambaSettings.setSambaPwdLastSet((int) (System.currentTimeMillis() / 1000L));
         userProfileLdapDao.save(ldap);
+        evictUserDetails(userName);
     }
 
     @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_SYSTEM')")
@@ -487,14 +610,6 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
 
         @Override
         public void run() {
-            if (userProfileProperties.isCheckAllProfilesAtStartup()) {
-                List<UserProfileLdap> ldaps = userProfileLdapDao.findAll(new PageRequestDto()).getEntries();
-                for (UserProfileLdap ldap : ldaps) {
-                    findOrCreateUserProfileMongo(ldap);
-                    initUserProfile(ldap);
-                }
-            }
-
             if (!existsByUserName(getAdminName())) {
                 UserProfileCreateRequestDto request = new UserProfileCreateRequestDto();
                 request.setPassword(userProfileProperties.getAdminPassword());
@@ -509,4 +624,134 @@ public class UserProfileServiceImpl extends AbstractUserProfileServiceImpl imple
         }
     }
 
+    /**
+     * Reconciles all user profiles with their mongo entities, roles and ACLs. The profiles are read in batches
+     * that are reconciled by a bounded number of workers. A reconciled profile gets a mark, so that it is skipped
+     * by the next reconciliation (e. g. after a restart) as long as the default roles don't change.
+     */
+    private class Reconciliation extends RunAsCallbackWithoutResult {
+
+        private final String mark = "v" + RECONCILIATION_VERSION + ":" + getDefaultUserRoleNames()
+                + ":" + new TreeSet<>(roleProperties.getVirtualUserRoles());
+
+        private final AtomicLong reconciled = new AtomicLong();
+
+        private final AtomicLong skipped = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        @Override
+        public void run() {
+            final long start = System.currentTimeMillis();
+            log.info("{}: Reconciling user profiles with mark [{}] ...", getCurrentUserName(), mark);
+            for (String role : getDefaultUserRoleNames()) {
+                createRoleIfMissing(role, getSystemName());
+            }
+            final int threads = getReconciliationThreads();
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            final Semaphore permits = new Semaphore(threads * 2);
+            try (Stream<UserProfileLdap> ldaps = userProfileLdapDao.streamAll()) {
+                List<UserProfileLdap> batch = new ArrayList<>(ACL_BATCH_SIZE);
+                final Iterator<UserProfileLdap> iterator = ldaps.iterator();
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() >= ACL_BATCH_SIZE || !iterator.hasNext()) {
+                        permits.acquire();
+                        executor.execute(new Worker(batch, permits));
+                        batch = new ArrayList<>(ACL_BATCH_SIZE);
+                    }
+                }
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Reconciliation of the user profiles was interrupted.");
+
+            } finally {
+                executor.shutdownNow();
+            }
+            log.info("{}: Reconciling user profiles: DONE! (reconciled = {}, skipped = {}, failed = {}, "
+                            + "duration = {} ms)", getCurrentUserName(), reconciled.get(), skipped.get(), failed.get(),
+                    System.currentTimeMillis() - start);
+        }
+
+        /**
+         * Every worker holds one ldap connection and the stream of all profiles holds another one. The workers
+         * are capped, so that at least half of the pool is left for the requests.
+         */
+        private int getReconciliationThreads() {
+            final int maxThreads = Math.max(1, (ldapMaxPoolSize / 2) - 1);
+            final int threads = Math.max(1, userProfileProperties.getReconciliationThreads());
+            if (threads > maxThreads) {
+                log.warn("{} reconciliation threads would occupy more than half of the ldap connection pool "
+                        + "(max-pool-size = {}), using {} threads.", threads, ldapMaxPoolSize, maxThreads);
+                return maxThreads;
+            }
+            return threads;
+        }
+
+        private void reconcile(final List<UserProfileLdap> ldaps) {
+
+            // New entities have no mark, so they are reconciled, too.
+            final Map<String, UserProfileMongo> mongos = findOrCreateUserProfileMongos(ldaps);
+            final List<UserProfileLdap> inconsistent = new ArrayList<>(ldaps.size());
+            for (UserProfileLdap ldap : ldaps) {
+                final UserProfileMongo mongo = mongos.get(ldap.getUid());
+                if (mongo == null || !mark.equals(mongo.getReconciliationMark())) {
+                    inconsistent.add(ldap);
+                }
+            }
+            skipped.addAndGet(ldaps.size() - (long) inconsistent.size());
+            if (inconsistent.isEmpty()) {
+                return;
+            }
+
+            final List<String> inconsistentUids = inconsistent.stream().map(UserProfileLdap::getUid)
+                    .collect(Collectors.toList());
+            for (String role : getDefaultUserRoleNames()) {
+                if (!roleProperties.getVirtualUserRoles().contains(role)) {
+                    roleService.addMembers(role, inconsistentUids);
+                }
+            }
+            inconsistent.forEach(UserProfileServiceImpl.this::createFriendsRoleIfMissing);
+            initUserProfileAcls(inconsistent);
+
+            // The entities are not saved, so that concurrent updates of them are not overwritten.
+            userProfileMongoRepository.updateReconciliationMark(inconsistentUids, mark);
+            reconciled.addAndGet(inconsistent.size());
+        }
+
+        private class Worker implements Runnable {
+
+            private final List<UserProfileLdap> batch;
+
+            private final Semaphore permits;
+
+            Worker(final List<UserProfileLdap> batch, final Semaphore permits) {
+                this.batch = batch;
+                this.permits = permits;
+            }
+
+            @Override
+            public void run() {
+                LdapConnectionScope.begin();
+                try {
+                    runAsSystemWithoutResult(new RunAsCallbackWithoutResult() {
+                        @Override
+                        public void run() {
+                            reconcile(batch);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    failed.addAndGet(batch.size());
+                    log.error("Reconciliation of " + batch.size() + " user profiles failed.", e);
+                } finally {
+                    LdapConnectionScope.end();
+                    permits.release();
+                }
+            }
+        }
+    }
+
 }
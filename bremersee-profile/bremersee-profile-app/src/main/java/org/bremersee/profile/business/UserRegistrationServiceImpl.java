@@ -30,7 +30,9 @@ import org.bremersee.pagebuilder.spring.PageBuilderSpringUtils;
 import org.bremersee.pagebuilder.spring.SpringPageRequest;
 import org.bremersee.profile.domain.mongodb.entity.UserRegistrationMongo;
 import org.bremersee.profile.domain.mongodb.mapper.UserRegistrationMongoMapper;
+import org.bremersee.profile.domain.mongodb.repository.KeysetPage;
 import org.bremersee.profile.domain.mongodb.repository.UserRegistrationMongoRepository;
+import org.bremersee.profile.model.CursorPageDto;
 import org.bremersee.profile.model.UserRegistrationDto;
 import org.bremersee.profile.model.UserRegistrationRequestDto;
 import org.bremersee.profile.validation.EmailValidator;
@@ -144,11 +146,22 @@ public class UserRegistrationServiceImpl extends AbstractServiceImpl implements
             entity.setRegistrationHash(UUID.randomUUID().toString());
         }
 
+        addToAvailabilityIndex(ValidatorConstants.USER_REGISTRATION_TABLE_MASK, entity.getUid(), entity.getEmail());
         entity = userRegistrationMongoRepository.save(entity);
 
         sendValidationEmail(entity);
     }
 
+    @Override
+    public boolean isUserNameAvailable(final String userName) {
+        return userNameValidator.isAvailable(userName, ValidatorConstants.ALL_TABLE_MASK);
+    }
+
+    @Override
+    public boolean isEmailAvailable(final String email) {
+        return emailValidator.isAvailable(email, ValidatorConstants.ALL_TABLE_MASK);
+    }
+
     private void sendValidationEmail(final UserRegistrationMongo userRegistration) {
 
         MimeMessagePreparator preparator = mimeMessage -> {
@@ -236,11 +249,20 @@ public class UserRegistrationServiceImpl extends AbstractServiceImpl implements
         if (StringUtils.isBlank(pageRequest.getQuery())) {
             springPage = userRegistrationMongoRepository.findAll(pageable);
         } else {
-            springPage = userRegistrationMongoRepository.findBySearchRegex(pageRequest.getQuery(), pageable);
+            springPage = userRegistrationMongoRepository.findBySearchQuery(pageRequest.getQuery(), pageable);
         }
         return PageBuilderSpringUtils.fromSpringPage(springPage, userRegistrationMongoMapper::mapToDto);
     }
 
+    @Override
+    public CursorPageDto<UserRegistrationDto> findAll(final String cursor, final Integer pageSize,
+                                                      final String query, final boolean estimateTotal) {
+
+        final KeysetPage<UserRegistrationMongo> page = userRegistrationMongoRepository
+                .findByCursor(cursor, pageSize, query, estimateTotal);
+        return createCursorPage(page, userRegistrationMongoMapper::mapToDto);
+    }
+
     @Override
     public UserRegistrationDto findByRegistrationHash(final String registrationHash) {
 
@@ -275,8 +297,10 @@ public class UserRegistrationServiceImpl extends AbstractServiceImpl implements
 
     @Scheduled(cron = "0 13 0 * * ?") // second, minute, hour, day of month, month, day(s) of week
     public void deleteExpired() {
+        // Normally the TTL index has already removed the expired entries.
         log.debug("Deleting expired user registration entries ...");
-        userRegistrationMongoRepository.findExpiredAndRemove();
+        final long count = userRegistrationMongoRepository.removeExpired();
+        log.debug("Deleting expired user registration entries: DONE! ({} removed)", count);
     }
 
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.controller.rest;
+
+import org.bremersee.profile.StartupOrchestrator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Tells the load balancer whether the application is ready: the status is 200 (OK), when all critical
+ * initializers are finished, otherwise 503 (Service Unavailable). The body contains the state of every initializer.
+ *
+ * @author Christian Bremer
+ */
+@RestController
+@RequestMapping(path = "/api/readiness")
+public class ReadinessRestController extends AbstractRestControllerImpl {
+
+    private final StartupOrchestrator startupOrchestrator;
+
+    @Autowired
+    public ReadinessRestController(final StartupOrchestrator startupOrchestrator) {
+        this.startupOrchestrator = startupOrchestrator;
+    }
+
+    @Override
+    protected void doInit() {
+        // nothing to init
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<Map<String, String>> getReadiness() {
+        final HttpStatus status = startupOrchestrator.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return new ResponseEntity<>(startupOrchestrator.getInitializerReport(), status);
+    }
+
+}
@@ -254,4 +254,15 @@ public class RoleRestController extends AbstractRestControllerImpl {
         return ResponseEntity.created(location).build();
     }
 
+    @ApiOperation(value = "Remove the stored occupants of the virtual roles (one-off migration).")
+    @CrossOrigin
+    @RequestMapping(
+            path = "/f/virtual-role-occupants",
+            method = RequestMethod.DELETE)
+    public ResponseEntity<Void> removeOccupantsOfVirtualRoles() {
+
+        roleService.removeOccupantsOfVirtualRoles();
+        return ResponseEntity.ok().build();
+    }
+
 }
@@ -27,6 +27,7 @@ import org.bremersee.profile.SwaggerConfig;
 import org.bremersee.profile.business.ChangeEmailService;
 import org.bremersee.profile.business.ChangeMobileService;
 import org.bremersee.profile.business.UserProfileService;
+import org.bremersee.profile.model.CursorPageDto;
 import org.bremersee.profile.model.UserProfileCreateRequestDto;
 import org.bremersee.profile.model.UserProfileDto;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -82,6 +83,22 @@ public class UserProfileRestController extends AbstractRestControllerImpl {
         return PageBuilderUtils.createPageDto(page, null);
     }
 
+    @ApiOperation(value = "Finds all user profiles with a cursor (sorted by last name and user name).")
+    @CrossOrigin
+    @RequestMapping(
+            path = "/f/cursor",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public CursorPageDto<UserProfileDto> findAllByCursor(
+            @RequestParam(name = "cursor", required = false) @ApiParam("The previous cursor.") String cursor,
+            @RequestParam(name = "s", required = false) @ApiParam("The page size.") Integer pageSize,
+            @RequestParam(name = "q", required = false) @ApiParam("A query value (first page only).") String query,
+            @RequestParam(name = "estimateTotal", defaultValue = "false")
+            @ApiParam("Estimate the total number of entries.") boolean estimateTotal) {
+
+        return userProfileService.findAll(cursor, pageSize, query, estimateTotal);
+    }
+
     @ApiOperation(value = "Find user profile by identifier.")
     @CrossOrigin
     @RequestMapping(
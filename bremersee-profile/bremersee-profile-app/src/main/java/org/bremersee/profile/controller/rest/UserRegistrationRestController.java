@@ -23,6 +23,7 @@ import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageDto;
 import org.bremersee.profile.SwaggerConfig;
 import org.bremersee.profile.business.UserRegistrationService;
+import org.bremersee.profile.model.CursorPageDto;
 import org.bremersee.profile.model.UserRegistrationDto;
 import org.bremersee.profile.model.UserRegistrationRequestDto;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -79,6 +80,28 @@ public class UserRegistrationRestController extends AbstractRestControllerImpl {
         return ResponseEntity.ok(dto);
     }
 
+    @ApiOperation(value = "Checks whether a user name is available for a registration.")
+    @CrossOrigin
+    @RequestMapping(path = "/validation/f/user-name",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public ResponseEntity<Boolean> isUserNameAvailable(
+            @RequestParam(name = "name") @ApiParam(value = "The user name", required = true) String userName) {
+
+        return ResponseEntity.ok(userRegistrationService.isUserNameAvailable(userName));
+    }
+
+    @ApiOperation(value = "Checks whether an email is available for a registration.")
+    @CrossOrigin
+    @RequestMapping(path = "/validation/f/email",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public ResponseEntity<Boolean> isEmailAvailable(
+            @RequestParam(name = "email") @ApiParam(value = "The email", required = true) String email) {
+
+        return ResponseEntity.ok(userRegistrationService.isEmailAvailable(email));
+    }
+
 
     @ApiOperation("Finds all user registration requests.")
     @CrossOrigin
@@ -96,6 +119,22 @@ public class UserRegistrationRestController extends AbstractRestControllerImpl {
         return PageBuilderUtils.createPageDto(page, null);
     }
 
+    @ApiOperation(value = "Finds all user registration requests with a cursor (sorted by last name and user name).")
+    @CrossOrigin
+    @RequestMapping(
+            path = "/f/cursor",
+            method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public CursorPageDto<UserRegistrationDto> findAllByCursor(
+            @RequestParam(name = "cursor", required = false) @ApiParam("The previous cursor.") String cursor,
+            @RequestParam(name = "s", required = false) @ApiParam("The page size.") Integer pageSize,
+            @RequestParam(name = "q", required = false) @ApiParam("A query value (first page only).") String query,
+            @RequestParam(name = "estimateTotal", defaultValue = "false")
+            @ApiParam("Estimate the total number of entries.") boolean estimateTotal) {
+
+        return userRegistrationService.findAll(cursor, pageSize, query, estimateTotal);
+    }
+
     @ApiOperation("Finds an user registration requests by hash.")
     @CrossOrigin
     @RequestMapping(
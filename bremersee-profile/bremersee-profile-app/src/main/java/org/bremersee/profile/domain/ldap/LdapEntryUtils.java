@@ -19,19 +19,14 @@ package org.bremersee.profile.domain.ldap;
 import org.apache.commons.lang3.StringUtils;
 import org.bremersee.common.exception.BadRequestException;
 import org.bremersee.profile.domain.ldap.dao.AbstractLdapProperties;
-import org.bremersee.utils.CodingUtils;
 import org.ldaptive.LdapAttribute;
 import org.ldaptive.LdapEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * @author Christian Bremer
@@ -78,10 +73,10 @@ public abstract class LdapEntryUtils {
             return nullValue;
         }
 
-        String v;
+        final String v;
         if (attr.isBinary()) {
             final byte[] b = attr.getBinaryValue();
-            v = new String(b, Charset.forName("UTF-8"));
+            v = b == null ? null : new String(b, StandardCharsets.UTF_8);
         } else {
             v = attr.getStringValue();
         }
@@ -95,32 +90,24 @@ public abstract class LdapEntryUtils {
     public static List<String> getStringList(final LdapEntry entry, final String attribute) {
 
         final LdapAttribute attr = entry.getAttribute(attribute);
-        if (attr == null) {
+        if (attr == null || attr.size() == 0) {
             return new ArrayList<>();
         }
+        final List<String> values = new ArrayList<>(attr.size());
         if (attr.isBinary()) {
-            final ValidBytesPredicate validBytesPredicate = new ValidBytesPredicate();
-            final BytesToUtf8 bytesToUtf8 = new BytesToUtf8();
-            return attr.getBinaryValues().stream().filter(validBytesPredicate).map(bytesToUtf8).collect(Collectors.toList());
+            for (final byte[] bytes : attr.getBinaryValues()) {
+                if (bytes != null && bytes.length > 0) {
+                    values.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
         } else {
-            return attr.getStringValues().stream().filter(StringUtils::isNotBlank).collect(Collectors.toList());
-        }
-    }
-
-    private static class ValidBytesPredicate implements Predicate<byte[]> {
-
-        @Override
-        public boolean test(byte[] o) {
-            return o != null && o.length > 0;
-        }
-    }
-
-    private static class BytesToUtf8 implements Function<byte[], String> {
-
-        @Override
-        public String apply(byte[] bytes) {
-            return CodingUtils.toStringSilently(bytes, StandardCharsets.UTF_8);
+            for (final String value : attr.getStringValues()) {
+                if (StringUtils.isNotBlank(value)) {
+                    values.add(value);
+                }
+            }
         }
+        return values;
     }
 
 }
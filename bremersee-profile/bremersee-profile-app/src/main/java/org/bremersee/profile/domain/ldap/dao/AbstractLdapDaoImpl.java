@@ -17,30 +17,50 @@
 package org.bremersee.profile.domain.ldap.dao;
 
 import org.apache.commons.lang3.Validate;
+import org.bremersee.comparator.model.ComparatorItem;
 import org.bremersee.common.exception.InternalServerError;
 import org.bremersee.pagebuilder.PageBuilder;
 import org.bremersee.pagebuilder.PageBuilderImpl;
+import org.bremersee.pagebuilder.model.Page;
+import org.bremersee.pagebuilder.model.PageRequest;
+import org.bremersee.profile.domain.ldap.LdapEntryUtils;
 import org.ldaptive.*;
 import org.ldaptive.beans.LdapEntryMapper;
+import org.ldaptive.control.*;
+import org.ldaptive.handler.SearchEntryHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.PostConstruct;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Christian Bremer
  */
 public abstract class AbstractLdapDaoImpl {
 
+    /**
+     * The return attributes for searches that only need the DN of the entries, e.g. existence checks (RFC 4511).
+     */
+    static final String[] NO_ATTRIBUTES = ReturnAttributes.NONE.value();
+
+    /**
+     * Maps an entry to the value of its common name.
+     */
+    static final Function<LdapEntry, String> CN_MAPPER = entry -> LdapEntryUtils.getString(entry, "cn", null);
+
     final Logger log = LoggerFactory.getLogger(getClass());
 
     private ConnectionFactory connectionFactory;
 
     PageBuilder pageBuilder = new PageBuilderImpl();
 
+    private LdapEntryCache ldapEntryCache;
+
     @Autowired
     public void setConnectionFactory(ConnectionFactory connectionFactory) {
         this.connectionFactory = connectionFactory;
@@ -53,6 +73,11 @@ public abstract class AbstractLdapDaoImpl {
         }
     }
 
+    @Autowired(required = false)
+    public void setLdapEntryCache(LdapEntryCache ldapEntryCache) {
+        this.ldapEntryCache = ldapEntryCache;
+    }
+
     @PostConstruct
     public void init() {
         log.info("Initializing " + getClass().getSimpleName() + " ...");
@@ -69,12 +94,17 @@ public abstract class AbstractLdapDaoImpl {
     abstract AbstractLdapProperties getProperties();
 
     /**
-     * Gets connection from the factory. Opens the connection if needed.
+     * Gets connection from the factory. Opens the connection if needed. Within a {@link LdapConnectionScope} the
+     * connection that is bound to the scope is returned.
      *
      * @return the connection
      * @throws LdapException the ldap exception
      */
     Connection getConnection() throws LdapException {
+        final Connection bound = LdapConnectionScope.getBoundConnection(this.connectionFactory);
+        if (bound != null) {
+            return bound;
+        }
         final Connection c = this.connectionFactory.getConnection();
         if (!c.isOpen()) {
             c.open();
@@ -89,6 +119,9 @@ public abstract class AbstractLdapDaoImpl {
      * @param context the Ldap connection to close
      */
     void closeConnection(final Connection context) {
+        if (LdapConnectionScope.isBound(context)) {
+            return;
+        }
         if (context != null && context.isOpen()) {
             try {
                 context.close();
@@ -99,29 +132,33 @@ public abstract class AbstractLdapDaoImpl {
     }
 
     /**
-     * Builds a new request.
+     * Builds a new request. If no return attributes are specified, the return attributes of the search request
+     * template are used or, if the template has none, all user attributes.
      *
-     * @param filter the filter
+     * @param filter           the filter
+     * @param returnAttributes the attributes to return
      * @return the search request
      */
     private SearchRequest newRequest(final SearchFilter filter, final String... returnAttributes) {
 
         final SearchRequest searchRequestTemplate = getProperties().getSearchRequest();
 
-        final SearchRequest sr;
-        if (returnAttributes == null || returnAttributes.length == 0) {
-            sr = new SearchRequest(searchRequestTemplate.getBaseDn(), filter);
+        final SearchRequest sr = new SearchRequest(searchRequestTemplate.getBaseDn(), filter);
+        if (returnAttributes != null && returnAttributes.length > 0) {
+            sr.setReturnAttributes(returnAttributes);
+        } else if (searchRequestTemplate.getReturnAttributes() != null
+                && searchRequestTemplate.getReturnAttributes().length > 0) {
+            sr.setReturnAttributes(searchRequestTemplate.getReturnAttributes());
         } else {
-            sr = new SearchRequest(searchRequestTemplate.getBaseDn(), filter, returnAttributes);
+            sr.setReturnAttributes(ReturnAttributes.ALL_USER.value());
         }
 
-        sr.setBinaryAttributes(ReturnAttributes.ALL_USER.value());
+        sr.setBinaryAttributes(getProperties().getBinaryAttributes());
         sr.setDerefAliases(searchRequestTemplate.getDerefAliases());
         sr.setSearchEntryHandlers(searchRequestTemplate.getSearchEntryHandlers());
         sr.setSearchReferenceHandlers(searchRequestTemplate.getSearchReferenceHandlers());
         // new in 1.2
         //sr.setFollowReferrals(searchRequestTemplate.getFollowReferrals()); // NOSONAR
-        sr.setReturnAttributes(ReturnAttributes.ALL_USER.value());
         sr.setSearchScope(searchRequestTemplate.getSearchScope());
         sr.setSizeLimit(searchRequestTemplate.getSizeLimit());
         sr.setSortBehavior(searchRequestTemplate.getSortBehavior());
@@ -142,16 +179,41 @@ public abstract class AbstractLdapDaoImpl {
      * Execute search operation.
      *
      * @param connection the connection
-     * @param filter     the filter
+     * @param filter           the filter
+     * @param returnAttributes the attributes to return
+     * @return the response
+     * @throws LdapException the ldap exception
+     */
+    Response<SearchResult> executeSearchOperation(final Connection connection, final SearchFilter filter,
+                                                  final String... returnAttributes)
+            throws LdapException {
+
+        final SearchOperation searchOperation = new SearchOperation(connection);
+        final SearchRequest request = newRequest(filter, returnAttributes);
+        if (log.isDebugEnabled()) {
+            log.debug("Using search request {}", request.toString());
+        }
+        return searchOperation.execute(request);
+    }
+
+    /**
+     * Execute search operation and let the given handler process the found entries.
+     *
+     * @param connection       the connection
+     * @param filter           the filter
+     * @param handler          the handler of the found entries
+     * @param returnAttributes the attributes to return
      * @return the response
      * @throws LdapException the ldap exception
      */
     Response<SearchResult> executeSearchOperation(final Connection connection, final SearchFilter filter,
+                                                  final SearchEntryHandler handler,
                                                   final String... returnAttributes)
             throws LdapException {
 
         final SearchOperation searchOperation = new SearchOperation(connection);
         final SearchRequest request = newRequest(filter, returnAttributes);
+        request.setSearchEntryHandlers(appendSearchEntryHandler(request.getSearchEntryHandlers(), handler));
         if (log.isDebugEnabled()) {
             log.debug("Using search request {}", request.toString());
         }
@@ -233,6 +295,478 @@ public abstract class AbstractLdapDaoImpl {
         return null;
     }
 
+    /**
+     * Checks whether an entry matches the given filter. The search is limited to one entry and returns no
+     * attributes.
+     *
+     * @param filter the filter
+     * @return {@code true} if an entry matches the filter, otherwise {@code false}
+     */
+    boolean existsByFilter(final String filter) {
+
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            final SearchRequest request = newRequest(new SearchFilter(filter), NO_ATTRIBUTES);
+            request.setSizeLimit(1L);
+            final Response<SearchResult> response = new SearchOperation(connection).execute(request);
+            return hasResults(response);
+
+        } catch (final LdapException e) {
+            InternalServerError ise = new InternalServerError(e);
+            log.error(String.format("Checking existence of LDAP entry by filter [%s] failed.", filter), ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * Compares the value of an attribute of the entry with the given DN (LDAP compare operation).
+     *
+     * @param dn             the DN of the entry
+     * @param attributeName  the attribute name
+     * @param attributeValue the attribute value
+     * @return {@code true} if the entry exists and has the attribute value, otherwise {@code false}
+     */
+    boolean compare(final String dn, final String attributeName, final String attributeValue) {
+
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            final CompareRequest request = new CompareRequest(dn, new LdapAttribute(attributeName, attributeValue));
+            final Response<Boolean> response = new CompareOperation(connection).execute(request);
+            return Boolean.TRUE.equals(response.getResult());
+
+        } catch (final LdapException e) {
+            if (isNoCompareMatch(e.getResultCode())) {
+                return false;
+            }
+            InternalServerError ise = new InternalServerError(e);
+            log.error(String.format("Comparing attribute [%s] of LDAP entry [%s] failed.", attributeName, dn), ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * Checks whether the result code of a failed compare operation means that the entry doesn't have the value. Some
+     * servers (e. g. OpenLDAP) answer a compare of an attribute that the entry doesn't have with noSuchAttribute
+     * instead of compareFalse, e. g. for a role without occupants.
+     *
+     * @param resultCode the result code
+     * @return {@code true} if the entry or the attribute doesn't exist, otherwise {@code false}
+     */
+    static boolean isNoCompareMatch(final ResultCode resultCode) {
+        return ResultCode.NO_SUCH_OBJECT.equals(resultCode)
+                || ResultCode.NO_SUCH_ATTRIBUTE.equals(resultCode)
+                || ResultCode.UNDEFINED_ATTRIBUTE_TYPE.equals(resultCode);
+    }
+
+    /**
+     * Builds an or-filter of the given identifier attributes, e. g. {@code (|(uid=value)(mail=value))}. If an
+     * object class filter is given, the or-filter is combined with it.
+     *
+     * @param objectClassFilter    the object class filter (may be {@code null})
+     * @param identifierAttributes the identifier attributes and their values
+     * @return the filter
+     */
+    static String identifierFilter(final String objectClassFilter, final Map<String, String> identifierAttributes) {
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, String> attribute : identifierAttributes.entrySet()) {
+            sb.append('(').append(attribute.getKey()).append('=').append(attribute.getValue()).append(')');
+        }
+        final String filter = identifierAttributes.size() > 1 ? "(|" + sb + ")" : sb.toString();
+        return objectClassFilter == null ? filter : "(&" + objectClassFilter + filter + ")";
+    }
+
+    /**
+     * Finds an entry by one of the given identifier attributes with a single search. If more than one entry
+     * matches, the entry that matches the first identifier attribute wins (the map must be ordered by
+     * precedence).
+     *
+     * @param objectClassFilter    the object class filter (may be {@code null})
+     * @param identifierAttributes the identifier attributes and their values in the order of precedence
+     * @param returnAttributes     the attributes to return
+     * @return the found entry or {@code null}
+     */
+    LdapEntry findOneByIdentifier(final String objectClassFilter, final Map<String, String> identifierAttributes,
+                                  final String... returnAttributes) {
+
+        final String[] attributes;
+        if (returnAttributes == null || returnAttributes.length == 0) {
+            attributes = returnAttributes;
+        } else {
+            final Set<String> attributeSet = new LinkedHashSet<>(Arrays.asList(returnAttributes));
+            attributeSet.addAll(identifierAttributes.keySet());
+            attributes = attributeSet.toArray(new String[attributeSet.size()]);
+        }
+        final Collection<LdapEntry> entries = findByFilter(identifierFilter(objectClassFilter, identifierAttributes),
+                attributes);
+        if (entries.size() <= 1) {
+            return entries.isEmpty() ? null : entries.iterator().next();
+        }
+        for (final Map.Entry<String, String> identifier : identifierAttributes.entrySet()) {
+            for (final LdapEntry entry : entries) {
+                final LdapAttribute attribute = entry.getAttribute(identifier.getKey());
+                if (attribute != null && containsIgnoreCase(attribute.getStringValues(), identifier.getValue())) {
+                    return entry;
+                }
+            }
+        }
+        return entries.iterator().next();
+    }
+
+    /**
+     * Checks whether an entry with one of the given identifier attributes exists with a single search.
+     *
+     * @param objectClassFilter    the object class filter (may be {@code null})
+     * @param identifierAttributes the identifier attributes and their values
+     * @return {@code true} if such an entry exists, otherwise {@code false}
+     */
+    boolean existsByIdentifier(final String objectClassFilter, final Map<String, String> identifierAttributes) {
+        return existsByFilter(identifierFilter(objectClassFilter, identifierAttributes));
+    }
+
+    private static boolean containsIgnoreCase(final Collection<String> values, final String value) {
+        for (final String v : values) {
+            if (v != null && v.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the entities that match the given filter. The entries are mapped while they are read, so that the
+     * search result is not kept in memory.
+     *
+     * @param filter           the filter
+     * @param mapper           the mapper of the found entries
+     * @param returnAttributes the attributes to return
+     * @return the entities
+     */
+    <T> List<T> findEntitiesByFilter(final String filter, final Function<LdapEntry, T> mapper,
+                                     final String... returnAttributes) {
+
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            final EntitySearchEntryHandler<T> handler = new EntitySearchEntryHandler<>(mapper);
+            executeSearchOperation(connection, new SearchFilter(filter), handler, returnAttributes);
+            return handler.getEntities();
+
+        } catch (final LdapException e) {
+            InternalServerError ise = new InternalServerError(e);
+            log.error(String.format("Getting entities by filter [%s] failed.", filter), ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * Finds the first entity that matches the given filter.
+     *
+     * @param filter           the filter
+     * @param mapper           the mapper of the found entry
+     * @param returnAttributes the attributes to return
+     * @return the entity or {@code null}, if there is no such entry
+     */
+    <T> T findEntityByFilter(final String filter, final Function<LdapEntry, T> mapper,
+                             final String... returnAttributes) {
+
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            final EntitySearchEntryHandler<T> handler = new EntitySearchEntryHandler<>(mapper, 0L, 1L);
+            executeSearchOperation(connection, new SearchFilter(filter), handler, returnAttributes);
+            return handler.getFirstEntity();
+
+        } catch (final LdapException e) {
+            InternalServerError ise = new InternalServerError(e);
+            log.error(String.format("Getting one entity by filter [%s] failed.", filter), ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * Finds the entity with the given DN. If the {@link LdapEntryCache} is enabled, the entry is read through the
+     * cache, otherwise it is searched with the given filter.
+     *
+     * @param dn               the DN of the entry (the cache key)
+     * @param filter           the filter that finds the entry
+     * @param mapper           the mapper of the found entry
+     * @param returnAttributes the attributes to return (all callers of a DN must use the same attributes)
+     * @return the entity or {@code null}, if there is no such entry
+     */
+    <T> T findCachedEntity(final String dn, final String filter, final Function<LdapEntry, T> mapper,
+                           final String... returnAttributes) {
+
+        if (ldapEntryCache == null || !ldapEntryCache.isEnabled()) {
+            return findEntityByFilter(filter, mapper, returnAttributes);
+        }
+        final LdapEntry entry = ldapEntryCache.get(dn, this::findVersion,
+                () -> findOneByFilter(filter, LdapEntryCache.withVersionAttributes(returnAttributes)));
+        return entry == null ? null : mapper.apply(entry);
+    }
+
+    /**
+     * Reads only the version attributes of the entry with the given DN.
+     */
+    private String findVersion(final String dn) {
+
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            final SearchRequest request = new SearchRequest(dn, new SearchFilter("(objectClass=*)"),
+                    LdapEntryCache.VERSION_ATTRIBUTES);
+            request.setSearchScope(SearchScope.OBJECT);
+            final Response<SearchResult> response = new SearchOperation(connection).execute(request);
+            return hasResults(response) ? LdapEntryCache.getVersion(response.getResult().getEntry()) : null;
+
+        } catch (final LdapException e) {
+            if (ResultCode.NO_SUCH_OBJECT.equals(e.getResultCode())) {
+                return null;
+            }
+            InternalServerError ise = new InternalServerError(e);
+            log.error(String.format("Reading version of LDAP entry [%s] failed.", dn), ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * Removes the entry with the given DN from the {@link LdapEntryCache}.
+     *
+     * @param dn the DN
+     */
+    void evictCachedEntry(final String dn) {
+        if (ldapEntryCache != null && dn != null) {
+            ldapEntryCache.evict(dn);
+        }
+    }
+
+    /**
+     * Streams the entities that match the given filter. The entries are read page by page with the simple paged
+     * results control, so only one page of entities is held in memory. The stream holds a connection until it is
+     * closed, so it should be used in a try-with-resources statement.
+     *
+     * @param filter           the filter
+     * @param mapper           the mapper of the found entries
+     * @param returnAttributes the attributes to return
+     * @return the stream of entities
+     */
+    <T> Stream<T> streamByFilter(final String filter, final Function<LdapEntry, T> mapper,
+                                 final String... returnAttributes) {
+
+        final Connection connection;
+        try {
+            connection = getConnection();
+
+        } catch (final LdapException e) {
+            InternalServerError ise = new InternalServerError(e);
+            log.error(String.format("Streaming entities by filter [%s] failed.", filter), ise);
+            throw ise;
+        }
+        final PagedSearchIterator<T> iterator = new PagedSearchIterator<>(connection,
+                newRequest(new SearchFilter(filter), returnAttributes), mapper);
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .onClose(() -> {
+                    try {
+                        iterator.abandon();
+                    } finally {
+                        closeConnection(connection);
+                    }
+                });
+    }
+
+    /**
+     * Finds the requested page of the entries that match the given filter. Unless the paging mode is
+     * {@link LdapPagingMode#CLIENT}, the entries are sorted by the server and only the entries of the requested page
+     * are kept and mapped.
+     *
+     * @param filter               the filter
+     * @param request              the page request
+     * @param sortAttributes       the LDAP attributes that can be used for sorting mapped by the comparator fields
+     * @param defaultSortAttribute the LDAP attribute that is used for sorting, if the request has no known field
+     * @param transformer          the transformer of the LDAP entries of the page
+     * @param returnAttributes     the attributes to return
+     * @return the page
+     */
+    <T> Page<T> findPageByFilter(final String filter, final PageRequest request,
+                                 final Map<String, String> sortAttributes, final String defaultSortAttribute,
+                                 final Function<LdapEntry, T> transformer, final String... returnAttributes) {
+
+        final LdapPagingMode pagingMode = getProperties().getPagingMode();
+        if (pagingMode == null || LdapPagingMode.CLIENT.equals(pagingMode)) {
+            return pageBuilder.buildFilteredPage(findByFilter(filter, returnAttributes), request, null,
+                    transformer::apply);
+        }
+
+        final SortKey[] sortKeys = createSortKeys(request.getComparatorItem(), sortAttributes, defaultSortAttribute);
+        final long pageSize = request.getPageSize() < 1 ? Integer.MAX_VALUE : request.getPageSize();
+        final long pageNumber = request.getPageNumber() < 0 ? 0 : request.getPageNumber();
+        final EntitySearchEntryHandler<T> window = new EntitySearchEntryHandler<>(transformer,
+                pageNumber * pageSize, pageSize);
+
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            if (LdapPagingMode.VIRTUAL_LIST_VIEW.equals(pagingMode)) {
+                executeVirtualListViewSearch(connection, newRequest(new SearchFilter(filter), returnAttributes),
+                        sortKeys, window);
+            } else {
+                executePagedResultsSearch(connection, newRequest(new SearchFilter(filter), returnAttributes),
+                        sortKeys, window);
+            }
+            return pageBuilder.buildPage(window.getEntities(), null, request, window.getTotalSize(),
+                    (T entity) -> entity);
+
+        } catch (final LdapException e) {
+            InternalServerError ise = new InternalServerError(e);
+            log.error(String.format("Getting page of LDAP entries by filter [%s] failed.", filter), ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
+        }
+    }
+
+    private SortKey[] createSortKeys(final ComparatorItem comparatorItem, final Map<String, String> sortAttributes,
+                                     final String defaultSortAttribute) {
+
+        final List<SortKey> sortKeys = new ArrayList<>();
+        ComparatorItem item = comparatorItem;
+        while (item != null) {
+            final String attribute = item.getField() == null ? null : sortAttributes.get(item.getField());
+            if (attribute != null) {
+                sortKeys.add(new SortKey(attribute, null, !item.isAsc()));
+            }
+            item = item.getNextComparatorItem();
+        }
+        if (sortKeys.isEmpty()) {
+            sortKeys.add(new SortKey(defaultSortAttribute));
+        }
+        return sortKeys.toArray(new SortKey[sortKeys.size()]);
+    }
+
+    /**
+     * Walks the sorted result set with the simple paged results control until the window is complete. The entries
+     * before the window must still be transferred (the costs grow with the offset), but the sorted search stops
+     * after the window and the server side result set is abandoned. If there are more entries, they are counted
+     * with a search that returns no attributes, so the total size is always exact.
+     */
+    private void executePagedResultsSearch(final Connection connection, final SearchRequest request,
+                                           final SortKey[] sortKeys, final EntitySearchEntryHandler<?> window)
+            throws LdapException {
+
+        request.setSearchEntryHandlers(appendSearchEntryHandler(request.getSearchEntryHandlers(), window));
+        final SearchOperation searchOperation = new SearchOperation(connection);
+        final int ldapPageSize = Math.max(1, getProperties().getPagedResultsSize());
+        byte[] cookie = null;
+        do {
+            final int size = (int) Math.min(ldapPageSize, Math.max(1L, window.getRemainingResults()));
+            request.setControls(appendControls(getProperties().getSearchRequest().getControls(),
+                    new SortRequestControl(sortKeys, false),
+                    new PagedResultsControl(size, cookie, true)));
+            if (log.isDebugEnabled()) {
+                log.debug("Using paged search request {}", request.toString());
+            }
+            final Response<SearchResult> response = searchOperation.execute(request);
+            final PagedResultsControl control = (PagedResultsControl) response.getControl(PagedResultsControl.OID);
+            cookie = control == null ? null : control.getCookie();
+
+        } while (cookie != null && cookie.length > 0 && window.getRemainingResults() > 0L);
+
+        if (cookie != null && cookie.length > 0) {
+            // a page size of zero abandons the result set on the server (RFC 2696)
+            request.setControls(appendControls(getProperties().getSearchRequest().getControls(),
+                    new SortRequestControl(sortKeys, false),
+                    new PagedResultsControl(0, cookie, true)));
+            searchOperation.execute(request);
+            window.setTotalSize(countEntries(connection, request.getSearchFilter()));
+        }
+    }
+
+    /**
+     * Counts the entries that match the given filter. The result set is walked with the simple paged results
+     * control without sorting and without returning any attributes, so the entries are not mapped.
+     */
+    private long countEntries(final Connection connection, final SearchFilter filter) throws LdapException {
+
+        final EntitySearchEntryHandler<Object> counter = new EntitySearchEntryHandler<>(entry -> null, 0L, 0L);
+        final SearchRequest request = newRequest(filter, NO_ATTRIBUTES);
+        request.setSearchEntryHandlers(appendSearchEntryHandler(request.getSearchEntryHandlers(), counter));
+        final SearchOperation searchOperation = new SearchOperation(connection);
+        final int ldapPageSize = Math.max(1, getProperties().getPagedResultsSize());
+        byte[] cookie = null;
+        do {
+            request.setControls(appendControls(getProperties().getSearchRequest().getControls(),
+                    new PagedResultsControl(ldapPageSize, cookie, true)));
+            final Response<SearchResult> response = searchOperation.execute(request);
+            final PagedResultsControl control = (PagedResultsControl) response.getControl(PagedResultsControl.OID);
+            cookie = control == null ? null : control.getCookie();
+
+        } while (cookie != null && cookie.length > 0);
+        return counter.getTotalSize();
+    }
+
+    private void executeVirtualListViewSearch(final Connection connection, final SearchRequest request,
+                                              final SortKey[] sortKeys, final EntitySearchEntryHandler<?> window)
+            throws LdapException {
+
+        request.setSearchEntryHandlers(appendSearchEntryHandler(request.getSearchEntryHandlers(), window));
+        // the target offset of the virtual list view is one based
+        final int targetOffset = (int) Math.min(window.getFirstResult() + 1L, Integer.MAX_VALUE);
+        final int afterCount = (int) Math.min(window.getMaxResults() - 1L, Integer.MAX_VALUE);
+        request.setControls(appendControls(getProperties().getSearchRequest().getControls(),
+                new SortRequestControl(sortKeys, true),
+                new VirtualListViewRequestControl(targetOffset, 0, afterCount, true)));
+        if (log.isDebugEnabled()) {
+            log.debug("Using virtual list view search request {}", request.toString());
+        }
+        final Response<SearchResult> response = new SearchOperation(connection).execute(request);
+        final VirtualListViewResponseControl control = (VirtualListViewResponseControl) response
+                .getControl(VirtualListViewResponseControl.OID);
+        if (control != null) {
+            window.setTotalSize(control.getContentCount());
+        } else {
+            window.setTotalSize(window.getFirstResult() + window.getEntities().size());
+        }
+    }
+
+    private static SearchEntryHandler[] appendSearchEntryHandler(final SearchEntryHandler[] handlers,
+                                                                 final SearchEntryHandler handler) {
+        final List<SearchEntryHandler> list = new ArrayList<>();
+        if (handlers != null) {
+            list.addAll(Arrays.asList(handlers));
+        }
+        list.add(handler);
+        return list.toArray(new SearchEntryHandler[list.size()]);
+    }
+
+    private static RequestControl[] appendControls(final RequestControl[] controls,
+                                                   final RequestControl... additionalControls) {
+        final List<RequestControl> list = new ArrayList<>();
+        if (controls != null) {
+            list.addAll(Arrays.asList(controls));
+        }
+        list.addAll(Arrays.asList(additionalControls));
+        return list.toArray(new RequestControl[list.size()]);
+    }
+
     <T> LdapEntry doSave(final Connection connection, final T entity, LdapEntry destination,
                          final LdapEntryMapper<T> ldapEntryMapper)
             throws LdapException {
@@ -243,14 +777,121 @@ public abstract class AbstractLdapDaoImpl {
             ldapEntryMapper.map(entity, target);
             final AddOperation operation = new AddOperation(connection);
             operation.execute(new AddRequest(target.getDn(), target.getAttributes()));
+            evictCachedEntry(target.getDn());
         } else {
             LdapEntry source = new LdapEntry(target.getDn(), target.getAttributes());
             ldapEntryMapper.map(entity, source);
             ModifyOperation modify = new ModifyOperation(connection);
             ModifyRequest request = new ModifyRequest(target.getDn(), LdapEntry.computeModifications(source, target));
             modify.execute(request);
+            evictCachedEntry(target.getDn());
         }
         return target;
     }
 
+    /**
+     * Adds, removes or replaces attribute values of the entry with the given DN without reading the entry first.
+     * The request is sent with the permissive modify control, so that adding an existing value or removing a
+     * missing value is not an error.
+     *
+     * @param connection    the connection
+     * @param dn            the DN of the entry
+     * @param modifications the modifications
+     * @throws LdapException the ldap exception
+     */
+    void modifyAttributeValues(final Connection connection, final String dn,
+                               final AttributeModification... modifications) throws LdapException {
+
+        final ModifyRequest request = new ModifyRequest(dn, modifications);
+        request.setControls(new PermissiveModifyControl());
+        if (log.isDebugEnabled()) {
+            log.debug("Using modify request {}", request.toString());
+        }
+        new ModifyOperation(connection).execute(request);
+        evictCachedEntry(dn);
+    }
+
+    /**
+     * An iterator that fetches the next page of a paged search, when all entities of the current page are consumed.
+     */
+    private class PagedSearchIterator<T> implements Iterator<T> {
+
+        private final SearchOperation searchOperation;
+
+        private final SearchRequest request;
+
+        private final Function<LdapEntry, T> mapper;
+
+        private Iterator<T> page = Collections.emptyIterator();
+
+        private byte[] cookie;
+
+        private boolean lastPage;
+
+        PagedSearchIterator(final Connection connection, final SearchRequest request,
+                            final Function<LdapEntry, T> mapper) {
+            this.searchOperation = new SearchOperation(connection);
+            this.request = request;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !lastPage) {
+                fetchNextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        /**
+         * Abandons the result set on the server, if the iterator was not exhausted.
+         */
+        void abandon() {
+            if (lastPage || cookie == null || cookie.length == 0) {
+                return;
+            }
+            lastPage = true;
+            page = Collections.emptyIterator();
+            // a page size of zero abandons the result set on the server (RFC 2696)
+            request.setSearchEntryHandlers(getProperties().getSearchRequest().getSearchEntryHandlers());
+            request.setControls(appendControls(getProperties().getSearchRequest().getControls(),
+                    new PagedResultsControl(0, cookie, true)));
+            try {
+                searchOperation.execute(request);
+
+            } catch (final LdapException e) {
+                log.warn(String.format("Abandoning paged search request [%s] failed.", request), e);
+            }
+        }
+
+        private void fetchNextPage() {
+            final EntitySearchEntryHandler<T> handler = new EntitySearchEntryHandler<>(mapper);
+            request.setSearchEntryHandlers(appendSearchEntryHandler(
+                    getProperties().getSearchRequest().getSearchEntryHandlers(), handler));
+            request.setControls(appendControls(getProperties().getSearchRequest().getControls(),
+                    new PagedResultsControl(getProperties().getPagedResultsSize(), cookie, true)));
+            try {
+                final Response<SearchResult> response = searchOperation.execute(request);
+                final PagedResultsControl control = (PagedResultsControl) response
+                        .getControl(PagedResultsControl.OID);
+                cookie = control == null ? null : control.getCookie();
+                lastPage = cookie == null || cookie.length == 0;
+                page = handler.getEntities().iterator();
+
+            } catch (final LdapException e) {
+                InternalServerError ise = new InternalServerError(e);
+                log.error(String.format("Getting next page of search request [%s] failed.", request), ise);
+                throw ise;
+            }
+        }
+    }
+
 }
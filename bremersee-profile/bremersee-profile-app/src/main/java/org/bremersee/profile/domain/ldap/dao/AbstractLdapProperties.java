@@ -31,4 +31,27 @@ public abstract class AbstractLdapProperties {
 
     private String rdn;
 
+    /**
+     * The attributes with a binary syntax in the directory schema. All other attributes are decoded as strings.
+     */
+    private String[] binaryAttributes = {
+            "jpegPhoto",
+            "audio",
+            "userCertificate",
+            "userSMIMECertificate",
+            "cACertificate",
+            "certificateRevocationList",
+            "authorityRevocationList",
+            "deltaRevocationList",
+            "crossCertificatePair"
+    };
+
+    /**
+     * How a page of entries is cut out of the result set. With {@link LdapPagingMode#PAGED_RESULTS} the entries
+     * before the requested page are still transferred, use {@link LdapPagingMode#VIRTUAL_LIST_VIEW} for deep pages.
+     */
+    private LdapPagingMode pagingMode = LdapPagingMode.PAGED_RESULTS;
+
+    private int pagedResultsSize = 500;
+
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.ldap.dao;
+
+import org.ldaptive.Connection;
+import org.ldaptive.LdapEntry;
+import org.ldaptive.SearchEntry;
+import org.ldaptive.SearchRequest;
+import org.ldaptive.handler.HandlerResult;
+import org.ldaptive.handler.SearchEntryHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A search entry handler that maps the entries of a search directly into entities. The entries are not added to the
+ * search result, so they can be collected as soon as they are mapped. Only the entries of the window that is defined
+ * by the first result and the maximum number of results are mapped, all others are just counted.
+ *
+ * @author Christian Bremer
+ */
+class EntitySearchEntryHandler<T> implements SearchEntryHandler {
+
+    private final Function<LdapEntry, T> mapper;
+
+    private final long firstResult;
+
+    private final long maxResults;
+
+    private final List<T> entities = new ArrayList<>();
+
+    private long totalSize;
+
+    EntitySearchEntryHandler(final Function<LdapEntry, T> mapper) {
+        this(mapper, 0L, Long.MAX_VALUE);
+    }
+
+    EntitySearchEntryHandler(final Function<LdapEntry, T> mapper, final long firstResult, final long maxResults) {
+        this.mapper = mapper;
+        this.firstResult = firstResult;
+        this.maxResults = maxResults;
+    }
+
+    long getFirstResult() {
+        return firstResult;
+    }
+
+    long getMaxResults() {
+        return maxResults;
+    }
+
+    List<T> getEntities() {
+        return entities;
+    }
+
+    T getFirstEntity() {
+        return entities.isEmpty() ? null : entities.get(0);
+    }
+
+    long getTotalSize() {
+        return totalSize;
+    }
+
+    void setTotalSize(final long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    /**
+     * Returns the number of entries that must still be handled until the window is complete.
+     *
+     * @return the number of missing entries (0 if the window is complete)
+     */
+    long getRemainingResults() {
+        if (maxResults == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, firstResult + maxResults - totalSize);
+    }
+
+    @Override
+    public HandlerResult<SearchEntry> handle(final Connection conn, final SearchRequest request,
+                                             final SearchEntry entry) {
+        if (entry != null) {
+            if (totalSize >= firstResult && entities.size() < maxResults) {
+                final T entity = mapper.apply(entry);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+            }
+            totalSize++;
+        }
+        // the entry is not added to the search result
+        return new HandlerResult<>(null);
+    }
+
+    @Override
+    public void initializeRequest(final SearchRequest request) {
+        // nothing to initialize
+    }
+
+}
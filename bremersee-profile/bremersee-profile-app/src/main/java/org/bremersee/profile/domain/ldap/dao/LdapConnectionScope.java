@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.ldap.dao;
+
+import org.ldaptive.Connection;
+import org.ldaptive.ConnectionFactory;
+import org.ldaptive.LdapException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Binds ldap connections to the current thread, analogous to Spring's transaction synchronization.
+ * <p>
+ * Within a scope the DAOs borrow at most one connection per connection factory from the pool and reuse it for
+ * every operation. The connection is borrowed lazily on first use and returned to the pool when the outermost
+ * scope ends. Scopes may be nested. Outside of a scope every DAO operation borrows its own connection.
+ *
+ * @author Christian Bremer
+ */
+public final class LdapConnectionScope {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LdapConnectionScope.class);
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private LdapConnectionScope() {
+        super();
+    }
+
+    /**
+     * Begins a (possibly nested) scope on the current thread. Each call must be followed by a call of {@link #end()}.
+     */
+    public static void begin() {
+        Scope scope = SCOPE.get();
+        if (scope == null) {
+            scope = new Scope();
+            SCOPE.set(scope);
+        }
+        scope.depth++;
+    }
+
+    /**
+     * Ends the current scope. If it is the outermost one, the bound connections are returned to the pool.
+     */
+    public static void end() {
+        final Scope scope = SCOPE.get();
+        if (scope == null) {
+            return;
+        }
+        scope.depth--;
+        if (scope.depth <= 0) {
+            SCOPE.remove();
+            for (final Connection connection : scope.connections.values()) {
+                release(connection);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a scope is active on the current thread.
+     *
+     * @return {@code true} if a scope is active, otherwise {@code false}
+     */
+    public static boolean isActive() {
+        return SCOPE.get() != null;
+    }
+
+    /**
+     * Executes the callback within a scope.
+     *
+     * @param callback the callback
+     * @param <T>      the type of the result
+     * @return the result of the callback
+     */
+    public static <T> T execute(final Supplier<T> callback) {
+        begin();
+        try {
+            return callback.get();
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Runs the callback within a scope.
+     *
+     * @param callback the callback
+     */
+    public static void run(final Runnable callback) {
+        begin();
+        try {
+            callback.run();
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Returns the connection that is bound to the current scope. If there is no bound connection yet, one is
+     * borrowed from the factory and bound. If there is no active scope, {@code null} is returned.
+     *
+     * @param connectionFactory the connection factory
+     * @return the bound and opened connection or {@code null}
+     * @throws LdapException if opening the connection fails
+     */
+    static Connection getBoundConnection(final ConnectionFactory connectionFactory) throws LdapException {
+        final Scope scope = SCOPE.get();
+        if (scope == null) {
+            return null;
+        }
+        Connection connection = scope.connections.get(connectionFactory);
+        if (connection == null) {
+            connection = connectionFactory.getConnection();
+            scope.connections.put(connectionFactory, connection);
+        }
+        if (!connection.isOpen()) {
+            connection.open();
+        }
+        return connection;
+    }
+
+    /**
+     * Checks whether the given connection is bound to the current scope.
+     *
+     * @param connection the connection
+     * @return {@code true} if the connection is bound, otherwise {@code false}
+     */
+    static boolean isBound(final Connection connection) {
+        final Scope scope = SCOPE.get();
+        return scope != null && connection != null && scope.connections.containsValue(connection);
+    }
+
+    private static void release(final Connection connection) {
+        if (connection != null && connection.isOpen()) {
+            try {
+                connection.close();
+            } catch (final Exception ex) {
+                LOG.warn("Closing bound ldap connection failed.", ex);
+            }
+        }
+    }
+
+    private static class Scope {
+
+        private final Map<ConnectionFactory, Connection> connections = new IdentityHashMap<>();
+
+        private int depth;
+    }
+
+}
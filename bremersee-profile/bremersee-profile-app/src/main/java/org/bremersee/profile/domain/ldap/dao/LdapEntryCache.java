@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.ldap.dao;
+
+import lombok.ToString;
+import org.bremersee.profile.ExpiringCache;
+import org.bremersee.profile.domain.ldap.LdapEntryUtils;
+import org.ldaptive.LdapEntry;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A near-cache of LDAP entries keyed by DN. An entry is returned without asking the directory server for the
+ * revalidation interval. After that it is revalidated by reading only its version (the operational attribute
+ * {@code entryCSN} or, if the server doesn't support it, {@code modifyTimestamp}). The entries are stored in an
+ * {@link ExpiringCache}, so they are evicted after the time to live or, if the cache is full, the least recently
+ * used entries are evicted. Local writes evict the entry immediately.
+ *
+ * @author Christian Bremer
+ */
+@ManagedResource
+@ToString(of = {"enabled", "revalidationIntervalSeconds", "cache"})
+public class LdapEntryCache {
+
+    /**
+     * The operational attributes that are used as the version of an entry in the order of precedence.
+     */
+    static final String[] VERSION_ATTRIBUTES = {"entryCSN", "modifyTimestamp"};
+
+    private final ExpiringCache<String, Entry> cache = new ExpiringCache<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder revalidations = new LongAdder();
+
+    private final LongAdder staleEntries = new LongAdder();
+
+    private boolean enabled = false;
+
+    private long revalidationIntervalSeconds = 5L;
+
+    /**
+     * Creates a disabled cache with a time to live of 300 seconds and a maximum size of 10000 entries.
+     */
+    public LdapEntryCache() {
+        cache.setTimeToLiveSeconds(300L);
+        cache.setMaxSize(10000);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTimeToLiveSeconds() {
+        return cache.getTimeToLiveSeconds();
+    }
+
+    public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+        cache.setTimeToLiveSeconds(timeToLiveSeconds);
+    }
+
+    public long getRevalidationIntervalSeconds() {
+        return revalidationIntervalSeconds;
+    }
+
+    public void setRevalidationIntervalSeconds(long revalidationIntervalSeconds) {
+        this.revalidationIntervalSeconds = revalidationIntervalSeconds;
+    }
+
+    public int getMaxSize() {
+        return cache.getMaxSize();
+    }
+
+    public void setMaxSize(int maxSize) {
+        cache.setMaxSize(maxSize);
+    }
+
+    /**
+     * Appends the version attributes to the given return attributes. If no return attributes are given, all user
+     * attributes and the version attributes are returned.
+     *
+     * @param returnAttributes the return attributes
+     * @return the return attributes with the version attributes
+     */
+    static String[] withVersionAttributes(final String... returnAttributes) {
+        final String[] attributes = returnAttributes == null || returnAttributes.length == 0
+                ? new String[]{"*"} : returnAttributes;
+        final String[] result = Arrays.copyOf(attributes, attributes.length + VERSION_ATTRIBUTES.length);
+        System.arraycopy(VERSION_ATTRIBUTES, 0, result, attributes.length, VERSION_ATTRIBUTES.length);
+        return result;
+    }
+
+    /**
+     * Returns the version of the given entry.
+     *
+     * @param entry the entry
+     * @return the version or {@code null}, if the entry has no version attribute
+     */
+    static String getVersion(final LdapEntry entry) {
+        for (final String attribute : VERSION_ATTRIBUTES) {
+            final String version = LdapEntryUtils.getString(entry, attribute, null);
+            if (version != null) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached entry with the given DN. If there is no entry or the entry is stale, the entry is loaded
+     * and cached. The loaded entry must contain the version attributes (see {@link #withVersionAttributes}).
+     *
+     * @param dn            the DN
+     * @param versionReader reads the current version of the entry with the given DN from the directory server
+     * @param loader        the loader of the entry
+     * @return the entry or {@code null}, if there is no such entry
+     */
+    LdapEntry get(final String dn, final Function<String, String> versionReader, final Supplier<LdapEntry> loader) {
+        final String key = normalize(dn);
+        final Entry[] loaded = new Entry[1];
+        final Entry entry = cache.get(key, k -> loaded[0] = load(loader));
+        if (entry == null || entry == loaded[0]) {
+            return entry == null ? null : entry.value;
+        }
+        final long now = System.currentTimeMillis();
+        if (entry.validatedAt + revalidationIntervalSeconds * 1000L > now) {
+            hits.increment();
+            return entry.value;
+        }
+        revalidations.increment();
+        if (entry.version != null && entry.version.equals(versionReader.apply(entry.value.getDn()))) {
+            entry.validatedAt = now;
+            hits.increment();
+            return entry.value;
+        }
+        staleEntries.increment();
+        cache.remove(key);
+        final Entry reloaded = cache.get(key, k -> load(loader));
+        return reloaded == null ? null : reloaded.value;
+    }
+
+    private Entry load(final Supplier<LdapEntry> loader) {
+        misses.increment();
+        final LdapEntry value = loader.get();
+        return value == null ? null : new Entry(value);
+    }
+
+    /**
+     * Removes the entry with the given DN.
+     *
+     * @param dn the DN
+     */
+    void evict(final String dn) {
+        cache.remove(normalize(dn));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @ManagedOperation(description = "Removes all entries.")
+    public void clear() {
+        cache.clear();
+    }
+
+    private static String normalize(final String dn) {
+        return dn.replaceAll("\\s*([,=])\\s*", "$1").toLowerCase(Locale.ENGLISH);
+    }
+
+    @ManagedAttribute(description = "The number of entries.")
+    public int getSize() {
+        return cache.getSize();
+    }
+
+    @ManagedAttribute(description = "The number of cache hits (including revalidated entries).")
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(description = "The number of cache misses (including stale entries).")
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "The number of version checks against the directory server.")
+    public long getRevalidationCount() {
+        return revalidations.sum();
+    }
+
+    @ManagedAttribute(description = "The number of revalidated entries whose version had changed.")
+    public long getStaleCount() {
+        return staleEntries.sum();
+    }
+
+    @ManagedAttribute(description = "The number of entries that were evicted because the cache was full.")
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    @ManagedAttribute(description = "The ratio of hits to all requests.")
+    public double getHitRatio() {
+        final long h = hits.sum();
+        final long total = h + misses.sum();
+        return total == 0L ? 0D : (double) h / total;
+    }
+
+    private static class Entry {
+
+        private final LdapEntry value;
+
+        private final String version;
+
+        private volatile long validatedAt = System.currentTimeMillis();
+
+        private Entry(final LdapEntry value) {
+            this.value = value;
+            this.version = getVersion(value);
+        }
+    }
+
+}
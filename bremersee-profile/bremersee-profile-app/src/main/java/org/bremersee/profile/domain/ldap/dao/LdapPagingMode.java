@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.ldap.dao;
+
+/**
+ * Defines how a page of LDAP entries is cut out of the whole result set.
+ *
+ * @author Christian Bremer
+ */
+public enum LdapPagingMode {
+
+    /**
+     * All entries are fetched and the page is built in memory.
+     * Use this only, if the directory server supports neither paged results nor virtual list views.
+     */
+    CLIENT,
+
+    /**
+     * The result set is walked with the simple paged results control (RFC 2696) and sorted by the server side
+     * sort control (RFC 2891). Only the entries of the requested page are kept and mapped, and the sorted walk
+     * stops after the requested page. The remaining entries are counted by a search without attributes. The
+     * entries before the requested page are still transferred, so the costs grow with the page number. Use
+     * {@link #VIRTUAL_LIST_VIEW} for deep pages, if the server supports it.
+     */
+    PAGED_RESULTS,
+
+    /**
+     * The server returns only the requested page by using the virtual list view control together with the
+     * server side sort control.
+     */
+    VIRTUAL_LIST_VIEW
+
+}
@@ -117,17 +117,13 @@ public class OAuth2ClientLdapDaoImpl extends AbstractLdapDaoImpl implements OAut
     public boolean exists(final String clientId) {
 
         BadRequestException.validateNotBlank(clientId, "OAuth2 client ID must be present.");
-        return findLdapEntryByClientId(clientId) != null;
-    }
-
-    private LdapEntry findLdapEntryByClientId(final String clientId) {
         final String filter = String.format("(&(objectClass=namedObject)(objectClass=uidObject)(uid=%s))", clientId);
-        return findOneByFilter(filter);
+        return existsByFilter(filter);
     }
 
     private LdapEntry findLdapEntryByClientId(final Connection connection, final String clientId) throws LdapException {
         final String filter = String.format("(&(objectClass=namedObject)(objectClass=uidObject)(uid=%s))", clientId);
-        return findOneByFilter(connection, filter);
+        return findOneByFilter(connection, filter, NO_ATTRIBUTES);
     }
 
 }
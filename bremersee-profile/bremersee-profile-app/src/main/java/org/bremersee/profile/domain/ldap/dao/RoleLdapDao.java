@@ -22,6 +22,7 @@ import org.bremersee.profile.domain.ldap.entity.RoleLdap;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
@@ -30,6 +31,21 @@ public interface RoleLdapDao {
 
     Page<RoleLdap> findAll(PageRequest pageRequest);
 
+    /**
+     * Streams all entities. The stream must be closed after use to release the LDAP connection.
+     *
+     * @return the stream of all entities
+     */
+    Stream<RoleLdap> streamAll();
+
+    /**
+     * Streams the names of all roles. Only the names are read, not the members. The stream must be closed after
+     * use to release the LDAP connection.
+     *
+     * @return the stream of all role names
+     */
+    Stream<String> streamAllNames();
+
     RoleLdap save(RoleLdap entity);
 
     RoleLdap findByName(String roleName);
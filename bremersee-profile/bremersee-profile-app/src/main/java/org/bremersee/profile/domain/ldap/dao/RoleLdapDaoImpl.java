@@ -31,10 +31,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
@@ -45,6 +43,15 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
 
     private static final String ROLE_NAME_MUST_BE_PRESENT = "Role name must be present.";
 
+    private static final Map<String, String> SORT_ATTRIBUTES;
+
+    static {
+        final Map<String, String> sortAttributes = new HashMap<>();
+        sortAttributes.put("name", "cn");
+        sortAttributes.put("description", "description");
+        SORT_ATTRIBUTES = Collections.unmodifiableMap(sortAttributes);
+    }
+
     private final RoleLdapEntryMapper ldapEntryMapper;
 
     private RoleLdapProperties properties = new RoleLdapProperties();
@@ -75,8 +82,18 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
 
         final PageRequest pageRequest = request == null ? new PageRequestDto() : request;
         final String filter = findAllFilter(pageRequest.getQuery());
-        final Collection<LdapEntry> allLdapEntries = findByFilter(filter);
-        return pageBuilder.buildFilteredPage(allLdapEntries, pageRequest, null, ldapEntryMapper::toEntity);
+        return findPageByFilter(filter, pageRequest, SORT_ATTRIBUTES, "cn", ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
+    }
+
+    @Override
+    public Stream<RoleLdap> streamAll() {
+        return streamByFilter(findAllFilter(null), ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
+    }
+
+    @Override
+    public Stream<String> streamAllNames() {
+        return streamByFilter(findAllFilter(null), CN_MAPPER, "cn");
     }
 
     private String findAllFilter(String query) {
@@ -125,13 +142,8 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
     public RoleLdap findByName(final String roleName) {
 
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
-        LdapEntry ldapEntry = findLdapEntryByName(roleName);
-        if (ldapEntry == null) {
-            return null;
-        }
-        RoleLdap role = new RoleLdap();
-        ldapEntryMapper.map(ldapEntry, role);
-        return role;
+        return findCachedEntity(ldapEntryMapper.createDn(roleName), nameFilter(roleName), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
@@ -140,15 +152,15 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
         BadRequestException.validateNotBlank(roleNamePrefix, "Role name prefix must be present."); // NOSONAR
         final PageRequest pageRequest = request == null ? new PageRequestDto() : request;
         final String filter = "(&(objectClass=organizationalRole)(cn=" + roleNamePrefix + "*))"; // NOSONAR
-        final Collection<LdapEntry> allLdapEntries = findByFilter(filter);
-        return pageBuilder.buildFilteredPage(allLdapEntries, pageRequest, null, ldapEntryMapper::toEntity);
+        return findPageByFilter(filter, pageRequest, SORT_ATTRIBUTES, "cn", ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
     public boolean existsByName(final String roleName) {
 
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
-        return findLdapEntryByName(roleName) != null;
+        return existsByFilter(nameFilter(roleName));
     }
 
     @Override
@@ -162,6 +174,7 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
             final DeleteOperation delete = new DeleteOperation(connection);
             final DeleteRequest request = new DeleteRequest(dn);
             final Response<Void> res = delete.execute(request);
+            evictCachedEntry(dn);
             boolean result = res.getResultCode() == ResultCode.SUCCESS;
             if (log.isDebugEnabled()) {
                 log.debug("Role [" + roleName + "] "
@@ -198,6 +211,7 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
                     final DeleteOperation delete = new DeleteOperation(connection);
                     final DeleteRequest request = new DeleteRequest(entry.getDn());
                     final Response<Void> res = delete.execute(request);
+                    evictCachedEntry(entry.getDn());
                     boolean result = res.getResultCode() == ResultCode.SUCCESS;
                     if (result) { // NOSONAR
                         deletedRoleNames.add(roleName);
@@ -224,15 +238,7 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
 
         BadRequestException.validateNotBlank(member, "Member must be present."); // NOSONAR
         String filter = "(&(objectClass=organizationalRole)(roleOccupant=" + ldapEntryMapper.createMemberDn(member) + "))";
-        Set<String> roles = new LinkedHashSet<>();
-        Collection<LdapEntry> allLdapEntries = findByFilter(filter, "cn");
-        for (LdapEntry ldapEntry : allLdapEntries) {
-            LdapAttribute attr = ldapEntry.getAttribute("cn");
-            if (attr != null && StringUtils.isNotBlank(attr.getStringValue())) {
-                roles.add(attr.getStringValue());
-            }
-        }
-        return roles;
+        return new LinkedHashSet<>(findEntitiesByFilter(filter, CN_MAPPER, "cn"));
     }
 
     @Override
@@ -245,15 +251,7 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
                 + "(cn=" + roleNamePrefix + "*)"
                 + "(roleOccupant=" + ldapEntryMapper.createMemberDn(member) + ")"
                 + ")";
-        Set<String> roles = new LinkedHashSet<>();
-        Collection<LdapEntry> allLdapEntries = findByFilter(filter, "cn");
-        for (LdapEntry ldapEntry : allLdapEntries) {
-            LdapAttribute attr = ldapEntry.getAttribute("cn");
-            if (attr != null && StringUtils.isNotBlank(attr.getStringValue())) {
-                roles.add(attr.getStringValue());
-            }
-        }
-        return roles;
+        return new LinkedHashSet<>(findEntitiesByFilter(filter, CN_MAPPER, "cn"));
     }
 
     @Override
@@ -261,18 +259,16 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
 
         BadRequestException.validateNotBlank(member, "Member must be present.");
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
-        return findRoleNamesByMember(member).contains(roleName);
+        return compare(ldapEntryMapper.createDn(roleName), "roleOccupant", ldapEntryMapper.createMemberDn(member));
     }
 
     @Override
     public Set<String> getMembers(final String roleName) {
 
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
-        LdapEntry ldapEntry = findLdapEntryByName(roleName);
-        NotFoundException.validateNotNull(ldapEntry, "Role with name [" + roleName // NOSONAR
+        RoleLdap role = findByName(roleName);
+        NotFoundException.validateNotNull(role, "Role with name [" + roleName // NOSONAR
                 + "] was not found."); // NOSONAR
-        RoleLdap role = new RoleLdap();
-        ldapEntryMapper.map(ldapEntry, role);
         return role.getMembers();
     }
 
@@ -281,12 +277,7 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
 
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
         if (members != null && !members.isEmpty()) {
-            LdapEntry ldapEntry = findLdapEntryByName(roleName);
-            NotFoundException.validateNotNull(ldapEntry, "Role with name [" + roleName + "] was not found.");
-            RoleLdap role = new RoleLdap();
-            ldapEntryMapper.map(ldapEntry, role);
-            role.getMembers().addAll(members);
-            save(role);
+            modifyMembers(roleName, AttributeModificationType.ADD, members);
         }
     }
 
@@ -295,12 +286,48 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
 
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
         if (members != null && !members.isEmpty()) {
-            LdapEntry ldapEntry = findLdapEntryByName(roleName);
-            NotFoundException.validateNotNull(ldapEntry, "Role with name [" + roleName + "] was not found.");
-            RoleLdap role = new RoleLdap();
-            ldapEntryMapper.map(ldapEntry, role);
-            role.getMembers().removeAll(members);
-            save(role);
+            modifyMembers(roleName, AttributeModificationType.REMOVE, members);
+        }
+    }
+
+    /**
+     * Adds or removes the members without reading the role. If the last member is removed, the default member
+     * (if there is one) is added.
+     */
+    private void modifyMembers(final String roleName, final AttributeModificationType type,
+                               final Collection<String> members) {
+
+        final String dn = ldapEntryMapper.createDn(roleName);
+        final String[] memberDns = new String[members.size()];
+        int i = 0;
+        for (final String member : members) {
+            memberDns[i] = ldapEntryMapper.createMemberDn(member);
+            i++;
+        }
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            modifyAttributeValues(connection, dn,
+                    new AttributeModification(type, new LdapAttribute("roleOccupant", memberDns)));
+            if (AttributeModificationType.REMOVE.equals(type)
+                    && StringUtils.isNotBlank(properties.getDefaultMember())
+                    && !existsByFilter("(&(objectClass=organizationalRole)(cn=" + roleName + ")(roleOccupant=*))")) {
+                final String defaultMemberDn = ldapEntryMapper.createMemberDn(properties.getDefaultMember());
+                modifyAttributeValues(connection, dn, new AttributeModification(AttributeModificationType.ADD,
+                        new LdapAttribute("roleOccupant", defaultMemberDn)));
+            }
+
+        } catch (final LdapException e) {
+
+            if (ResultCode.NO_SUCH_OBJECT.equals(e.getResultCode())) {
+                throw new NotFoundException("Role with name [" + roleName + "] was not found.");
+            }
+            InternalServerError ise = new InternalServerError(e);
+            log.error("Modifying members of role [" + roleName + "] failed.", ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
         }
     }
 
@@ -308,10 +335,8 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
     public void updateMembers(final String roleName, final Collection<String> members) {
 
         BadRequestException.validateNotBlank(roleName, ROLE_NAME_MUST_BE_PRESENT);
-        LdapEntry ldapEntry = findLdapEntryByName(roleName);
-        NotFoundException.validateNotNull(ldapEntry, "Role with name [" + roleName + "] was not found.");
-        RoleLdap role = new RoleLdap();
-        ldapEntryMapper.map(ldapEntry, role);
+        RoleLdap role = findByName(roleName);
+        NotFoundException.validateNotNull(role, "Role with name [" + roleName + "] was not found.");
         role.getMembers().clear();
         if (members != null) {
             role.getMembers().addAll(members);
@@ -319,16 +344,13 @@ public class RoleLdapDaoImpl extends AbstractLdapDaoImpl implements RoleLdapDao
         save(role);
     }
 
-    private LdapEntry findLdapEntryByName(final String name) {
+    private static String nameFilter(final String name) {
         Validate.notBlank(name, "Name must not be null or blank.");
-        String filter = "(&(objectClass=organizationalRole)(cn=" + name + "))";
-        return findOneByFilter(filter);
+        return "(&(objectClass=organizationalRole)(cn=" + name + "))";
     }
 
     private LdapEntry findLdapEntryByName(final Connection connection, final String name) throws LdapException {
-        Validate.notBlank(name, "Name must not be null or blank.");
-        String filter = "(&(objectClass=organizationalRole)(cn=" + name + "))";
-        return findOneByFilter(connection, filter);
+        return findOneByFilter(connection, nameFilter(name));
     }
 
 }
@@ -28,6 +28,8 @@ public interface RoleLdapEntryMapper extends LdapEntryMapper<RoleLdap> {
 
     RoleLdap toEntity(LdapEntry source);
 
+    String[] getEntityAttributes();
+
     String createDn(String roleName);
     
     String createMemberDn(String uid);
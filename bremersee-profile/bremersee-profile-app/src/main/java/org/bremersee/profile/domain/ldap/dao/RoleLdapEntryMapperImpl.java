@@ -31,6 +31,12 @@ import org.springframework.stereotype.Component;
 @EnableConfigurationProperties(RoleLdapProperties.class)
 public class RoleLdapEntryMapperImpl extends AbstractLdapEntryMapper implements RoleLdapEntryMapper {
 
+    private static final String[] ENTITY_ATTRIBUTES = {
+            "cn",
+            "description",
+            "roleOccupant"
+    };
+
     private RoleLdapProperties properties = new RoleLdapProperties();
 
     @Autowired(required = false)
@@ -94,6 +100,11 @@ public class RoleLdapEntryMapperImpl extends AbstractLdapEntryMapper implements
         return destination;
     }
 
+    @Override
+    public String[] getEntityAttributes() {
+        return ENTITY_ATTRIBUTES.clone();
+    }
+
     @Override
     public String createMemberDn(String uid) {
         return createMemberDn(uid, properties.getMemberRdn(), properties.getMemberBaseDn());
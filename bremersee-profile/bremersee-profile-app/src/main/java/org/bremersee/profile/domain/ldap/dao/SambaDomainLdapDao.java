@@ -20,6 +20,8 @@ import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.profile.domain.ldap.entity.SambaDomainLdap;
 
+import java.util.stream.Stream;
+
 /**
  * @author Christian Bremer
  */
@@ -29,6 +31,13 @@ public interface SambaDomainLdapDao {
 
     Page<SambaDomainLdap> findAll(PageRequest pageRequest);
 
+    /**
+     * Streams all entities. The stream must be closed after use to release the LDAP connection.
+     *
+     * @return the stream of all entities
+     */
+    Stream<SambaDomainLdap> streamAll();
+
     SambaDomainLdap findBySambaDomainName(String sambaDomainName);
 
     SambaDomainLdap findBySambaSID(String sambaSID);
@@ -43,5 +52,19 @@ public interface SambaDomainLdapDao {
 
     void deleteBySambaDomainName(String sambaDomainName);
 
+    /**
+     * Atomically reserves a block of uid or gid numbers of the samba domain by increasing the value of the given
+     * attribute ({@code uidNumber} or {@code gidNumber}) by the size of the block. If the samba domain has no id
+     * pool yet, the object class {@code sambaUnixIdPool} is added and the numbering starts with 10000.
+     *
+     * @param sambaDomainName the samba domain name
+     * @param attributeName   the attribute name ({@code uidNumber} or {@code gidNumber})
+     * @param blockSize       the size of the block
+     * @return the first number of the reserved block or {@code null}, if the samba domain doesn't exist
+     * @throws org.bremersee.common.exception.InternalServerError if the reservation failed, also when the entry was
+     *                                                            modified concurrently more often than retries are
+     *                                                            configured
+     */
+    Long reserveIdNumbers(String sambaDomainName, String attributeName, long blockSize);
 
 }
@@ -22,13 +22,18 @@ import org.bremersee.common.exception.InternalServerError;
 import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.pagebuilder.model.PageRequestDto;
+import org.bremersee.profile.domain.ldap.LdapEntryUtils;
 import org.bremersee.profile.domain.ldap.entity.SambaDomainLdap;
 import org.ldaptive.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
@@ -37,6 +42,20 @@ import java.util.Collection;
 @EnableConfigurationProperties(SambaDomainLdapProperties.class)
 public class SambaDomainLdapDaoImpl extends AbstractLdapDaoImpl implements SambaDomainLdapDao {
 
+    private static final Map<String, String> SORT_ATTRIBUTES;
+
+    static {
+        final Map<String, String> sortAttributes = new HashMap<>();
+        sortAttributes.put("sambaDomainName", "sambaDomainName");
+        sortAttributes.put("sambaSID", "sambaSID");
+        SORT_ATTRIBUTES = Collections.unmodifiableMap(sortAttributes);
+    }
+
+    /**
+     * The first uid or gid number, if the samba domain has no such attribute yet.
+     */
+    private static final long FIRST_ID_NUMBER = 10000L;
+
     private final SambaDomainLdapEntryMapper ldapEntryMapper;
 
     private SambaDomainLdapProperties properties = new SambaDomainLdapProperties();
@@ -62,27 +81,22 @@ public class SambaDomainLdapDaoImpl extends AbstractLdapDaoImpl implements Samba
         return properties;
     }
 
-
-    private LdapEntry findLdapEntryBySambaDomainName(final String sambaDomainName) {
-        final String filter = String.format("(&(objectClass=sambaDomain)(sambaDomainName=%s))", sambaDomainName);
-        return findOneByFilter(filter);
+    private static String sambaDomainNameFilter(final String sambaDomainName) {
+        return String.format("(&(objectClass=sambaDomain)(sambaDomainName=%s))", sambaDomainName);
     }
 
-    private LdapEntry findLdapEntryBySambaDomainName(final Connection connection, final String sambaDomainName)
-            throws LdapException {
-        final String filter = String.format("(&(objectClass=sambaDomain)(sambaDomainName=%s))", sambaDomainName);
-        return findOneByFilter(connection, filter);
+    private static String sambaSIDFilter(final String sambaSID) {
+        return String.format("(&(objectClass=sambaDomain)(sambaSID=%s))", sambaSID);
     }
 
-    private LdapEntry findLdapEntryBySambaSID(final String sambaSID) {
-        final String filter = String.format("(&(objectClass=sambaDomain)(sambaSID=%s))", sambaSID);
-        return findOneByFilter(filter);
+    private static String sambaDomainNameOrSambaSIDFilter(final String sambaDomainNameOrSambaSID) {
+        return String.format("(&(objectClass=sambaDomain)(|(sambaDomainName=%s)(sambaSID=%s)))",
+                sambaDomainNameOrSambaSID, sambaDomainNameOrSambaSID);
     }
 
-    private LdapEntry findLdapEntryBySambaDomainNameOrSambaSID(final String sambaDomainNameOrSambaSID) {
-        final String filter = String.format("(&(objectClass=sambaDomain)(|(sambaDomainName=%s)(sambaSID=%s)))",
-                sambaDomainNameOrSambaSID, sambaDomainNameOrSambaSID);
-        return findOneByFilter(filter);
+    private LdapEntry findLdapEntryBySambaDomainName(final Connection connection, final String sambaDomainName)
+            throws LdapException {
+        return findOneByFilter(connection, sambaDomainNameFilter(sambaDomainName));
     }
 
     @Override
@@ -113,8 +127,13 @@ public class SambaDomainLdapDaoImpl extends AbstractLdapDaoImpl implements Samba
 
         final PageRequest pageRequest = request == null ? new PageRequestDto() : request;
         final String filter = findAllFilter(pageRequest.getQuery());
-        Collection<LdapEntry> allLdapEntries = findByFilter(filter);
-        return pageBuilder.buildFilteredPage(allLdapEntries, pageRequest, null, ldapEntryMapper::toEntity);
+        return findPageByFilter(filter, pageRequest, SORT_ATTRIBUTES, "sambaDomainName",
+                ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
+    }
+
+    @Override
+    public Stream<SambaDomainLdap> streamAll() {
+        return streamByFilter(findAllFilter(null), ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
     }
 
     private String findAllFilter(String query) {
@@ -138,22 +157,16 @@ public class SambaDomainLdapDaoImpl extends AbstractLdapDaoImpl implements Samba
     public SambaDomainLdap findBySambaDomainName(final String sambaDomainName) {
 
         BadRequestException.validateNotBlank(sambaDomainName, "Samba domain name must be present.");
-        LdapEntry entry = findLdapEntryBySambaDomainName(sambaDomainName);
-        if (entry == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(entry);
+        return findEntityByFilter(sambaDomainNameFilter(sambaDomainName), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
     public SambaDomainLdap findBySambaSID(final String sambaSID) {
 
         BadRequestException.validateNotBlank(sambaSID, "Samba SID must be present.");
-        LdapEntry entry = findLdapEntryBySambaSID(sambaSID);
-        if (entry == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(entry);
+        return findEntityByFilter(sambaSIDFilter(sambaSID), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
@@ -161,25 +174,22 @@ public class SambaDomainLdapDaoImpl extends AbstractLdapDaoImpl implements Samba
 
         BadRequestException.validateNotBlank(sambaDomainNameOrSambaSID,
                 "Samba domain name or samba SID must be present.");
-        LdapEntry entry = findLdapEntryBySambaDomainNameOrSambaSID(sambaDomainNameOrSambaSID);
-        if (entry == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(entry);
+        return findEntityByFilter(sambaDomainNameOrSambaSIDFilter(sambaDomainNameOrSambaSID),
+                ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
     public boolean existsBySambaDomainName(final String sambaDomainName) {
 
         BadRequestException.validateNotBlank(sambaDomainName, "Samba domain name must be present.");
-        return findLdapEntryBySambaDomainName(sambaDomainName) != null;
+        return existsByFilter(sambaDomainNameFilter(sambaDomainName));
     }
 
     @Override
     public boolean existsBySambaSID(final String sambaSID) {
 
         BadRequestException.validateNotBlank(sambaSID, "Samba SID must be present.");
-        return findLdapEntryBySambaSID(sambaSID) != null;
+        return existsByFilter(sambaSIDFilter(sambaSID));
     }
 
     @Override
@@ -187,7 +197,101 @@ public class SambaDomainLdapDaoImpl extends AbstractLdapDaoImpl implements Samba
 
         BadRequestException.validateNotBlank(sambaDomainNameOrSambaSID,
                 "Samba domain name or samba SID must be present.");
-        return findLdapEntryBySambaDomainNameOrSambaSID(sambaDomainNameOrSambaSID) != null;
+        return existsByFilter(sambaDomainNameOrSambaSIDFilter(sambaDomainNameOrSambaSID));
+    }
+
+    @Override
+    public Long reserveIdNumbers(final String sambaDomainName, final String attributeName, final long blockSize) {
+
+        BadRequestException.validateNotBlank(sambaDomainName, "Samba domain name must be present.");
+        BadRequestException.validateTrue("uidNumber".equals(attributeName) || "gidNumber".equals(attributeName),
+                "Attribute name must be 'uidNumber' or 'gidNumber'.");
+        BadRequestException.validateTrue(blockSize > 0L, "Block size must be greater than zero.");
+        final int attempts = Math.max(0, properties.getIdNumberReservationRetries()) + 1;
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            for (int i = 0; i < attempts; i++) {
+                final LdapEntry entry = findOneByFilter(connection, sambaDomainNameFilter(sambaDomainName),
+                        attributeName);
+                if (entry == null) {
+                    return null;
+                }
+                final String value = LdapEntryUtils.getString(entry, attributeName, null);
+                final long first = value == null ? FIRST_ID_NUMBER : Long.parseLong(value);
+                final String next = Long.toString(first + blockSize);
+                // Compare and swap: removing the old value fails, if another node has changed it in the meantime,
+                // adding the missing id pool fails, if another node has added it in the meantime.
+                final ModifyRequest request = value == null
+                        ? new ModifyRequest(entry.getDn(),
+                        new AttributeModification(AttributeModificationType.ADD,
+                                new LdapAttribute("objectClass", "sambaUnixIdPool")),
+                        new AttributeModification(AttributeModificationType.ADD,
+                                new LdapAttribute(attributeName, next)),
+                        new AttributeModification(AttributeModificationType.ADD,
+                                new LdapAttribute("uidNumber".equals(attributeName) ? "gidNumber" : "uidNumber",
+                                        Long.toString(FIRST_ID_NUMBER))))
+                        : new ModifyRequest(entry.getDn(),
+                        new AttributeModification(AttributeModificationType.REMOVE,
+                                new LdapAttribute(attributeName, value)),
+                        new AttributeModification(AttributeModificationType.ADD,
+                                new LdapAttribute(attributeName, next)));
+                try {
+                    new ModifyOperation(connection).execute(request);
+                    log.debug("Reserved {} [{} - {}] of samba domain [{}].", attributeName, first,
+                            first + blockSize - 1L, sambaDomainName);
+                    return first;
+
+                } catch (final LdapException e) {
+                    if (!isConcurrentModification(e)) {
+                        throw e;
+                    }
+                    log.debug("{} of samba domain [{}] was modified concurrently, retrying ...", attributeName,
+                            sambaDomainName);
+                }
+                if (i + 1 < attempts) {
+                    backoff(i);
+                }
+            }
+
+        } catch (final LdapException e) {
+            InternalServerError ise = new InternalServerError(e);
+            log.error("Reserving " + attributeName + " of samba domain [" + sambaDomainName + "] failed.", ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
+        }
+
+        InternalServerError ise = new InternalServerError(new IllegalStateException("Reserving " + attributeName
+                + " of samba domain [" + sambaDomainName + "] failed " + attempts
+                + " times because of concurrent modifications."));
+        log.error("Reserving " + attributeName + " of samba domain [" + sambaDomainName + "] failed.", ise);
+        throw ise;
+    }
+
+    /**
+     * Waits a random time that grows with the number of failed attempts (half of it is fixed, the other half is
+     * random), so that concurrent reservations don't collide again.
+     */
+    private void backoff(final int failedAttempts) {
+        final long base = properties.getIdNumberReservationBackoffMillis();
+        if (base <= 0L) {
+            return;
+        }
+        final long max = base << Math.min(failedAttempts, 10);
+        try {
+            Thread.sleep(max / 2L + ThreadLocalRandom.current().nextLong(max / 2L + 1L));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerError(e);
+        }
+    }
+
+    private static boolean isConcurrentModification(final LdapException e) {
+        return ResultCode.NO_SUCH_ATTRIBUTE.equals(e.getResultCode())
+                || ResultCode.ATTRIBUTE_OR_VALUE_EXISTS.equals(e.getResultCode())
+                || ResultCode.CONSTRAINT_VIOLATION.equals(e.getResultCode());
     }
 
     @Override
@@ -27,6 +27,8 @@ public interface SambaDomainLdapEntryMapper extends LdapEntryMapper<SambaDomainL
 
     SambaDomainLdap toEntity(LdapEntry source);
 
+    String[] getEntityAttributes();
+
     String createDn(String sambaDomainName);
 
 }
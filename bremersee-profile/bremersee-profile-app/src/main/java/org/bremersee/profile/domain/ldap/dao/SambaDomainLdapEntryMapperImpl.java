@@ -30,6 +30,25 @@ import org.springframework.stereotype.Component;
 @EnableConfigurationProperties(SambaDomainLdapProperties.class)
 public class SambaDomainLdapEntryMapperImpl extends AbstractLdapEntryMapper implements SambaDomainLdapEntryMapper {
 
+    private static final String[] ENTITY_ATTRIBUTES = {
+            "sambaDomainName",
+            "sambaSID",
+            "sambaAlgorithmicRidBase",
+            "sambaForceLogoff",
+            "sambaLockoutDuration",
+            "sambaLockoutObservationWindow",
+            "sambaLockoutThreshold",
+            "sambaLogonToChgPwd",
+            "sambaMaxPwdAge",
+            "sambaMinPwdAge",
+            "sambaMinPwdLength",
+            "sambaNextUserRid",
+            "sambaPwdHistoryLength",
+            "sambaRefuseMachinePwdChange",
+            "uidNumber",
+            "gidNumber"
+    };
+
     private SambaDomainLdapProperties properties = new SambaDomainLdapProperties();
 
     @Autowired(required = false)
@@ -160,6 +179,8 @@ public class SambaDomainLdapEntryMapperImpl extends AbstractLdapEntryMapper impl
         dest.setSambaNextUserRid(getLong(source, "sambaNextUserRid", 1000L));
         dest.setSambaPwdHistoryLength(getLong(source, "sambaPwdHistoryLength", 0L).intValue());
         dest.setSambaRefuseMachinePwdChange(getLong(source, "sambaRefuseMachinePwdChange", 0L).intValue());
+        dest.setSambaSID(getString(source, "sambaSID", null));
+        dest.setUidNumber(getLong(source, "uidNumber", null));
     }
 
     @Override
@@ -169,4 +190,9 @@ public class SambaDomainLdapEntryMapperImpl extends AbstractLdapEntryMapper impl
         return destination;
     }
 
+    @Override
+    public String[] getEntityAttributes() {
+        return ENTITY_ATTRIBUTES.clone();
+    }
+
 }
@@ -33,6 +33,18 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @EqualsAndHashCode(callSuper = true)
 public class SambaDomainLdapProperties extends AbstractLdapProperties {
 
+    /**
+     * How often the reservation of uid or gid numbers is retried, if the entry was modified concurrently (a negative
+     * value means no retry).
+     */
+    private int idNumberReservationRetries = 10;
+
+    /**
+     * The base of the randomized backoff in milliseconds before a reservation of uid or gid numbers is retried. The
+     * backoff doubles with every retry (up to 1024 times the base).
+     */
+    private long idNumberReservationBackoffMillis = 10L;
+
     public SambaDomainLdapProperties() {
         setRdn("sambaDomainName");
         getSearchRequest().setBaseDn("");
@@ -22,6 +22,7 @@ import org.bremersee.profile.domain.ldap.entity.UserGroupLdap;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
@@ -30,6 +31,13 @@ public interface UserGroupLdapDao {
 
     Page<UserGroupLdap> findAll(PageRequest pageRequest);
 
+    /**
+     * Streams all entities. The stream must be closed after use to release the LDAP connection.
+     *
+     * @return the stream of all entities
+     */
+    Stream<UserGroupLdap> streamAll();
+
     UserGroupLdap save(UserGroupLdap entity);
 
     UserGroupLdap findByName(String userGroupName);
@@ -38,12 +46,24 @@ public interface UserGroupLdapDao {
 
     UserGroupLdap findBySambaSID(String sambaSID);
 
+    /**
+     * Finds a group by name, samba SID or gid number with a single search. If more than one group matches, the
+     * group with the matching name wins over the one with the matching samba SID and that one over the one with
+     * the matching gid number.
+     *
+     * @param identifier the name, samba SID or gid number
+     * @return the group or {@code null}
+     */
+    UserGroupLdap findByIdentifier(String identifier);
+
     boolean existsByName(String userGroupName);
 
     boolean existsByGidNumber(long gidNumber);
 
     boolean existsBySambaSID(String sambaSID);
 
+    boolean existsByIdentifier(String identifier);
+
     void deleteByName(String userGroupName);
 
     Set<String> findUserGroupNamesByMember(String member);
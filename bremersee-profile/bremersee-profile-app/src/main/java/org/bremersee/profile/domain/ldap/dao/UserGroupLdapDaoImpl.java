@@ -17,6 +17,7 @@
 package org.bremersee.profile.domain.ldap.dao;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.bremersee.common.exception.BadRequestException;
 import org.bremersee.common.exception.InternalServerError;
 import org.bremersee.common.exception.NotFoundException;
@@ -29,9 +30,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
@@ -42,6 +42,19 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
 
     private static final String GROUP_NAME_MUST_BE_PRESENT = "Group name must be present.";
 
+    private static final String GROUP_OBJECT_CLASS_FILTER = "(&(objectClass=posixGroup)(objectClass=groupOfNames))";
+
+    private static final Map<String, String> SORT_ATTRIBUTES;
+
+    static {
+        final Map<String, String> sortAttributes = new HashMap<>();
+        sortAttributes.put("name", "cn");
+        sortAttributes.put("description", "description");
+        sortAttributes.put("gidNumber", "gidNumber");
+        sortAttributes.put("sambaSID", "sambaSID");
+        SORT_ATTRIBUTES = Collections.unmodifiableMap(sortAttributes);
+    }
+
     private final UserGroupLdapEntryMapper ldapEntryMapper;
 
     private UserGroupLdapProperties properties = new UserGroupLdapProperties();
@@ -72,8 +85,13 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
 
         final PageRequest pageRequest = request == null ? new PageRequestDto() : request;
         final String filter = findAllFilter(pageRequest.getQuery());
-        final Collection<LdapEntry> allLdapEntries = findByFilter(filter);
-        return pageBuilder.buildFilteredPage(allLdapEntries, pageRequest, null, ldapEntryMapper::toEntity);
+        return findPageByFilter(filter, pageRequest, SORT_ATTRIBUTES, "cn", ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
+    }
+
+    @Override
+    public Stream<UserGroupLdap> streamAll() {
+        return streamByFilter(findAllFilter(null), ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
     }
 
     private String findAllFilter(String query) {
@@ -120,50 +138,68 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
     @Override
     public UserGroupLdap findByName(final String userGroupName) {
 
-        LdapEntry ldapEntry = findLdapEntryByName(userGroupName);
-        if (ldapEntry == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(ldapEntry);
+        return findCachedEntity(ldapEntryMapper.createDn(userGroupName), nameFilter(userGroupName),
+                ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
     public boolean existsByName(final String userGroupName) {
 
         BadRequestException.validateNotBlank(userGroupName, GROUP_NAME_MUST_BE_PRESENT);
-        return findLdapEntryByName(userGroupName) != null;
+        return existsByFilter(nameFilter(userGroupName));
     }
 
     @Override
     public UserGroupLdap findByGidNumber(final long gidNumber) {
 
-        LdapEntry ldapEntry = findLdapEntryByGidNumber(gidNumber);
-        if (ldapEntry == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(ldapEntry);
+        return findEntityByFilter(gidNumberFilter(gidNumber), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
     public boolean existsByGidNumber(final long gidNumber) {
 
-        return findLdapEntryByGidNumber(gidNumber) != null;
+        return existsByFilter(gidNumberFilter(gidNumber));
     }
 
     @Override
     public UserGroupLdap findBySambaSID(final String sambaSID) {
         BadRequestException.validateNotBlank(sambaSID, "Samba SID must be present.");
-        LdapEntry ldapEntry = findLdapEntryBySambaSID(sambaSID);
-        if (ldapEntry == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(ldapEntry);
+        return findEntityByFilter(sambaSIDFilter(sambaSID), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
     @Override
     public boolean existsBySambaSID(final String sambaSID) {
         BadRequestException.validateNotBlank(sambaSID, "Samba SID must be present.");
-        return findLdapEntryBySambaSID(sambaSID) != null;
+        return existsByFilter(sambaSIDFilter(sambaSID));
+    }
+
+    @Override
+    public UserGroupLdap findByIdentifier(final String identifier) {
+        BadRequestException.validateNotBlank(identifier, "User group identifier must be present.");
+        final LdapEntry ldapEntry = findOneByIdentifier(GROUP_OBJECT_CLASS_FILTER, identifierAttributes(identifier),
+                ldapEntryMapper.getEntityAttributes());
+        return ldapEntry == null ? null : ldapEntryMapper.toEntity(ldapEntry);
+    }
+
+    @Override
+    public boolean existsByIdentifier(final String identifier) {
+        BadRequestException.validateNotBlank(identifier, "User group identifier must be present.");
+        return existsByIdentifier(GROUP_OBJECT_CLASS_FILTER, identifierAttributes(identifier));
+    }
+
+    /**
+     * Returns the identifier attributes of a group in the order of precedence: name, samba SID and gid number.
+     */
+    private static Map<String, String> identifierAttributes(final String identifier) {
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("cn", identifier);
+        attributes.put("sambaSID", identifier);
+        if (NumberUtils.isDigits(identifier)) {
+            attributes.put("gidNumber", identifier);
+        }
+        return attributes;
     }
 
     @Override
@@ -177,6 +213,7 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
             final DeleteOperation delete = new DeleteOperation(connection);
             final DeleteRequest request = new DeleteRequest(dn);
             final Response<Void> res = delete.execute(request);
+            evictCachedEntry(dn);
             boolean result = res.getResultCode() == ResultCode.SUCCESS;
             if (log.isDebugEnabled()) {
                 log.debug("User group [" + userGroupName + "] "
@@ -199,15 +236,7 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
 
         BadRequestException.validateNotBlank(member, "Member must be present.");
         String filter = "(&(objectClass=posixGroup)(objectClass=groupOfNames)(memberUid=" + member + "))";
-        Set<String> userGroups = new LinkedHashSet<>();
-        Collection<LdapEntry> allLdapEntries = findByFilter(filter, "cn");
-        for (LdapEntry ldapEntry : allLdapEntries) {
-            LdapAttribute attr = ldapEntry.getAttribute("cn");
-            if (attr != null && StringUtils.isNotBlank(attr.getStringValue())) {
-                userGroups.add(attr.getStringValue());
-            }
-        }
-        return userGroups;
+        return new LinkedHashSet<>(findEntitiesByFilter(filter, CN_MAPPER, "cn"));
     }
 
     @Override
@@ -215,16 +244,15 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
 
         BadRequestException.validateNotBlank(member, "Member must be present.");
         BadRequestException.validateNotBlank(userGroupName, GROUP_NAME_MUST_BE_PRESENT);
-        return findUserGroupNamesByMember(member).contains(userGroupName);
+        return compare(ldapEntryMapper.createDn(userGroupName), "memberUid", member);
     }
 
     @Override
     public Set<String> getMembers(final String userGroupName) {
 
         BadRequestException.validateNotBlank(userGroupName, GROUP_NAME_MUST_BE_PRESENT);
-        LdapEntry ldapEntry = findLdapEntryByName(userGroupName);
-        UserGroupLdap userGroup = new UserGroupLdap();
-        ldapEntryMapper.map(ldapEntry, userGroup);
+        UserGroupLdap userGroup = findByName(userGroupName);
+        NotFoundException.validateNotNull(userGroup, "Group with name [" + userGroupName + "] was not found.");
         return userGroup.getMembers();
     }
 
@@ -233,13 +261,7 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
 
         if (members != null && !members.isEmpty()) {
             BadRequestException.validateNotBlank(userGroupName, GROUP_NAME_MUST_BE_PRESENT);
-            LdapEntry ldapEntry = findLdapEntryByName(userGroupName);
-            NotFoundException.validateNotNull(ldapEntry, "Group with name [" // NOSONAR
-                    + userGroupName + "] was not found."); // NOSONAR
-            UserGroupLdap userGroup = new UserGroupLdap();
-            ldapEntryMapper.map(ldapEntry, userGroup);
-            userGroup.getMembers().addAll(members);
-            save(userGroup);
+            modifyMembers(userGroupName, AttributeModificationType.ADD, members);
         }
     }
 
@@ -248,13 +270,72 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
 
         if (members != null && !members.isEmpty()) {
             BadRequestException.validateNotBlank(userGroupName, GROUP_NAME_MUST_BE_PRESENT);
-            LdapEntry ldapEntry = findLdapEntryByName(userGroupName);
-            NotFoundException.validateNotNull(ldapEntry, "Group with name [" + userGroupName
-                    + "] was not found.");
-            UserGroupLdap userGroup = new UserGroupLdap();
-            ldapEntryMapper.map(ldapEntry, userGroup);
-            userGroup.getMembers().removeAll(members);
-            save(userGroup);
+            modifyMembers(userGroupName, AttributeModificationType.REMOVE, members);
+        }
+    }
+
+    /**
+     * Adds or removes the members without reading the group. The attribute {@code member} is required by the
+     * object class {@code groupOfNames}, so if the last member is removed, the default member or, if there is none,
+     * the DN of the group itself is added in the same request. The DN of the group is removed again, when members
+     * are added.
+     */
+    private void modifyMembers(final String userGroupName, final AttributeModificationType type,
+                               final Collection<String> members) {
+
+        final String dn = ldapEntryMapper.createDn(userGroupName);
+        final String[] memberDns = new String[members.size()];
+        int i = 0;
+        for (final String member : members) {
+            memberDns[i] = ldapEntryMapper.createMemberDn(member);
+            i++;
+        }
+        final AttributeModification memberModification = new AttributeModification(type,
+                new LdapAttribute("member", memberDns));
+        final AttributeModification memberUidModification = new AttributeModification(type,
+                new LdapAttribute("memberUid", members.toArray(new String[members.size()])));
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            if (AttributeModificationType.ADD.equals(type)) {
+                modifyAttributeValues(connection, dn, memberModification, memberUidModification,
+                        new AttributeModification(AttributeModificationType.REMOVE, new LdapAttribute("member", dn)));
+                return;
+            }
+            try {
+                modifyAttributeValues(connection, dn, memberModification, memberUidModification);
+
+            } catch (final LdapException e) {
+                if (!ResultCode.OBJECT_CLASS_VIOLATION.equals(e.getResultCode())) {
+                    throw e;
+                }
+                // The last members were removed. The request is applied atomically, so members that were added
+                // concurrently are kept.
+                final String defaultMember = properties.getDefaultMember();
+                if (StringUtils.isNotBlank(defaultMember)) {
+                    modifyAttributeValues(connection, dn, memberModification, memberUidModification,
+                            new AttributeModification(AttributeModificationType.ADD, new LdapAttribute("member",
+                                    ldapEntryMapper.createMemberDn(defaultMember))),
+                            new AttributeModification(AttributeModificationType.ADD,
+                                    new LdapAttribute("memberUid", defaultMember)));
+                } else {
+                    modifyAttributeValues(connection, dn, memberModification, memberUidModification,
+                            new AttributeModification(AttributeModificationType.ADD,
+                                    new LdapAttribute("member", dn)));
+                }
+            }
+
+        } catch (final LdapException e) {
+
+            if (ResultCode.NO_SUCH_OBJECT.equals(e.getResultCode())) {
+                throw new NotFoundException("Group with name [" + userGroupName + "] was not found.");
+            }
+            InternalServerError ise = new InternalServerError(e);
+            log.error("Modifying members of group [" + userGroupName + "] failed.", ise);
+            throw ise;
+
+        } finally {
+            closeConnection(connection);
         }
     }
 
@@ -262,10 +343,8 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
     public void updateMembers(final String userGroupName, final Collection<String> members) {
 
         BadRequestException.validateNotBlank(userGroupName, GROUP_NAME_MUST_BE_PRESENT);
-        LdapEntry ldapEntry = findLdapEntryByName(userGroupName);
-        NotFoundException.validateNotNull(ldapEntry, "Group with name [" + userGroupName + "] was not found.");
-        UserGroupLdap userGroup = new UserGroupLdap();
-        ldapEntryMapper.map(ldapEntry, userGroup);
+        UserGroupLdap userGroup = findByName(userGroupName);
+        NotFoundException.validateNotNull(userGroup, "Group with name [" + userGroupName + "] was not found.");
         userGroup.getMembers().clear();
         if (members != null) {
             userGroup.getMembers().addAll(members);
@@ -273,24 +352,20 @@ public class UserGroupLdapDaoImpl extends AbstractLdapDaoImpl implements UserGro
         save(userGroup);
     }
 
-    private LdapEntry findLdapEntryByName(final String name) {
-        final String filter = "(&(objectClass=posixGroup)(objectClass=groupOfNames)(cn=" + name + "))";
-        return findOneByFilter(filter);
+    private static String nameFilter(final String name) {
+        return "(&(objectClass=posixGroup)(objectClass=groupOfNames)(cn=" + name + "))";
     }
 
-    private LdapEntry findLdapEntryByName(final Connection connection, final String name) throws LdapException {
-        final String filter = "(&(objectClass=posixGroup)(objectClass=groupOfNames)(cn=" + name + "))";
-        return findOneByFilter(connection, filter);
+    private static String gidNumberFilter(final long gidNumber) {
+        return "(&(objectClass=posixGroup)(objectClass=groupOfNames)(gidNumber=" + gidNumber + "))";
     }
 
-    private LdapEntry findLdapEntryByGidNumber(final long gidNumber) {
-        final String filter = "(&(objectClass=posixGroup)(objectClass=groupOfNames)(gidNumber=" + gidNumber + "))";
-        return findOneByFilter(filter);
+    private static String sambaSIDFilter(final String sambaSID) {
+        return "(&(objectClass=posixGroup)(objectClass=groupOfNames)(sambaSID=" + sambaSID + "))";
     }
 
-    private LdapEntry findLdapEntryBySambaSID(String sambaSID) {
-        final String filter = "(&(objectClass=posixGroup)(objectClass=groupOfNames)(sambaSID=" + sambaSID + "))";
-        return findOneByFilter(filter);
+    private LdapEntry findLdapEntryByName(final Connection connection, final String name) throws LdapException {
+        return findOneByFilter(connection, nameFilter(name));
     }
 
 }
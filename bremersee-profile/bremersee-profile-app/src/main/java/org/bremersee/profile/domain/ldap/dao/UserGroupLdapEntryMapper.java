@@ -27,6 +27,8 @@ public interface UserGroupLdapEntryMapper extends LdapEntryMapper<UserGroupLdap>
 
     UserGroupLdap toEntity(LdapEntry source);
 
+    String[] getEntityAttributes();
+
     String createDn(String groupName);
 
     String createMemberDn(String uid);
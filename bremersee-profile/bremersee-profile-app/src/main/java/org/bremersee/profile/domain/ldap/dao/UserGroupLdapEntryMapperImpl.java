@@ -34,6 +34,15 @@ import java.util.List;
 @EnableConfigurationProperties(UserGroupLdapProperties.class)
 public class UserGroupLdapEntryMapperImpl extends AbstractLdapEntryMapper implements UserGroupLdapEntryMapper {
 
+    private static final String[] ENTITY_ATTRIBUTES = {
+            "cn",
+            "description",
+            "gidNumber",
+            "sambaGroupType",
+            "sambaSID",
+            "memberUid"
+    };
+
     private UserGroupLdapProperties properties = new UserGroupLdapProperties();
 
     @Autowired(required = false)
@@ -126,6 +135,11 @@ public class UserGroupLdapEntryMapperImpl extends AbstractLdapEntryMapper implem
         return destination;
     }
 
+    @Override
+    public String[] getEntityAttributes() {
+        return ENTITY_ATTRIBUTES.clone();
+    }
+
     @Override
     public String createMemberDn(String uid) {
         return createMemberDn(uid, properties.getMemberRdn(), properties.getMemberBaseDn());
@@ -20,6 +20,8 @@ import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.profile.domain.ldap.entity.UserProfileLdap;
 
+import java.util.stream.Stream;
+
 /**
  * @author Christian Bremer
  */
@@ -27,6 +29,21 @@ public interface UserProfileLdapDao {
 
     Page<UserProfileLdap> findAll(PageRequest pageRequest);
 
+    /**
+     * Streams all entities. The stream must be closed after use to release the LDAP connection.
+     *
+     * @return the stream of all entities
+     */
+    Stream<UserProfileLdap> streamAll();
+
+    /**
+     * Streams all entities with only the user name and the email, the other attributes are not read. The stream
+     * must be closed after use to release the LDAP connection.
+     *
+     * @return the stream of all entities with user name and email
+     */
+    Stream<UserProfileLdap> streamAllUserNamesAndEmails();
+
     UserProfileLdap save(UserProfileLdap entity);
 
     UserProfileLdap findByUserName(String userName);
@@ -37,6 +54,16 @@ public interface UserProfileLdapDao {
 
     UserProfileLdap findByMobile(String mobile);
 
+    /**
+     * Finds a user by user name, email or uid number with a single search. If more than one user matches, the
+     * user with the matching user name wins over the one with the matching email and that one over the one with
+     * the matching uid number.
+     *
+     * @param identifier the user name, email or uid number
+     * @return the user or {@code null}
+     */
+    UserProfileLdap findByIdentifier(String identifier);
+
     boolean existsByUserName(String userName);
 
     boolean existsByUidNumber(long uidNumber);
@@ -45,6 +72,8 @@ public interface UserProfileLdapDao {
 
     boolean existsByMobile(String mobile);
 
+    boolean existsByIdentifier(String identifier);
+
     void deleteByUserName(String userName);
 
 }
@@ -17,18 +17,24 @@
 package org.bremersee.profile.domain.ldap.dao;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.bremersee.common.exception.BadRequestException;
 import org.bremersee.common.exception.InternalServerError;
 import org.bremersee.pagebuilder.model.Page;
 import org.bremersee.pagebuilder.model.PageRequest;
 import org.bremersee.pagebuilder.model.PageRequestDto;
+import org.bremersee.profile.domain.ldap.LdapEntryUtils;
 import org.bremersee.profile.domain.ldap.entity.UserProfileLdap;
 import org.ldaptive.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * @author Christian Bremer
@@ -37,6 +43,18 @@ import java.util.Collection;
 @EnableConfigurationProperties(UserProfileLdapProperties.class)
 public class UserProfileLdapDaoImpl extends AbstractLdapDaoImpl implements UserProfileLdapDao {
 
+    private static final Map<String, String> SORT_ATTRIBUTES;
+
+    static {
+        final Map<String, String> sortAttributes = new HashMap<>();
+        sortAttributes.put("uid", "uid");
+        sortAttributes.put("firstName", "givenName");
+        sortAttributes.put("lastName", "sn");
+        sortAttributes.put("email", "mail");
+        sortAttributes.put("mobile", "mobile");
+        SORT_ATTRIBUTES = Collections.unmodifiableMap(sortAttributes);
+    }
+
     private UserProfileLdapProperties properties;
 
     private final UserProfileLdapEntryMapper ldapEntryMapper;
@@ -67,8 +85,23 @@ public class UserProfileLdapDaoImpl extends AbstractLdapDaoImpl implements UserP
 
         final PageRequest pageRequest = request == null ? new PageRequestDto() : request;
         String filter = findAllFilter(pageRequest.getQuery());
-        Collection<LdapEntry> allLdapEntries = findByFilter(filter);
-        return pageBuilder.buildFilteredPage(allLdapEntries, pageRequest, null, ldapEntryMapper::toEntity);
+        return findPageByFilter(filter, pageRequest, SORT_ATTRIBUTES, "uid", ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
+    }
+
+    @Override
+    public Stream<UserProfileLdap> streamAll() {
+        return streamByFilter(findAllFilter(null), ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
+    }
+
+    @Override
+    public Stream<UserProfileLdap> streamAllUserNamesAndEmails() {
+        return streamByFilter(findAllFilter(null), entry -> {
+            final UserProfileLdap entity = new UserProfileLdap();
+            entity.setUid(LdapEntryUtils.getString(entry, "uid", null));
+            entity.setEmail(LdapEntryUtils.getString(entry, "mail", null));
+            return entity;
+        }, "uid", "mail");
     }
 
     private String findAllFilter(final String query) {
@@ -119,83 +152,99 @@ public class UserProfileLdapDaoImpl extends AbstractLdapDaoImpl implements UserP
     public UserProfileLdap findByUserName(final String userName) {
 
         BadRequestException.validateNotBlank(userName, "User name must be present.");
-        LdapEntry source = findLdapEntryByUserName(userName);
-        if (source == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(source);
+        return findCachedEntity(ldapEntryMapper.createDn(userName), userNameFilter(userName),
+                ldapEntryMapper::toEntity, ldapEntryMapper.getEntityAttributes());
     }
 
-    private LdapEntry findLdapEntryByUserName(final String userName) {
-        return findOneByFilter("(uid=" + userName + ")");
+    private static String userNameFilter(final String userName) {
+        return "(uid=" + userName + ")";
     }
 
     private LdapEntry findLdapEntryByUserName(final Connection connection, final String userName) throws LdapException {
-        return findOneByFilter(connection, "(uid=" + userName + ")");
+        return findOneByFilter(connection, userNameFilter(userName));
     }
 
     @Override
     public UserProfileLdap findByUidNumber(final long uidNumber) {
 
-        LdapEntry source = findLdapEntryByUidNumber(uidNumber);
-        if (source == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(source);
+        return findEntityByFilter(uidNumberFilter(uidNumber), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
-    private LdapEntry findLdapEntryByUidNumber(final long uidNumber) {
-        return findOneByFilter("(uidNumber=" + uidNumber + ")");
+    private static String uidNumberFilter(final long uidNumber) {
+        return "(uidNumber=" + uidNumber + ")";
     }
 
     @Override
     public UserProfileLdap findByEmail(final String email) {
 
         BadRequestException.validateNotBlank(email, "Email must be present.");
-        LdapEntry source = findLdapEntryByEmail(email);
-        if (source == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(source);
+        return findEntityByFilter(emailFilter(email), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
     }
 
-    private LdapEntry findLdapEntryByEmail(final String email) {
-        return findOneByFilter("(mail=" + email + ")");
+    private static String emailFilter(final String email) {
+        return "(mail=" + email + ")";
     }
 
     @Override
     public UserProfileLdap findByMobile(final String mobile) {
 
         BadRequestException.validateNotBlank(mobile, "Mobile number must be present.");
-        LdapEntry source = findLdapEntryByMobile(mobile);
-        if (source == null) {
-            return null;
-        }
-        return ldapEntryMapper.toEntity(source);
+        return findEntityByFilter(mobileFilter(mobile), ldapEntryMapper::toEntity,
+                ldapEntryMapper.getEntityAttributes());
+    }
+
+    private static String mobileFilter(final String mobile) {
+        return "(mobile=" + mobile + ")";
+    }
+
+    @Override
+    public UserProfileLdap findByIdentifier(final String identifier) {
+
+        BadRequestException.validateNotBlank(identifier, "Identifier must be present.");
+        final LdapEntry ldapEntry = findOneByIdentifier(null, identifierAttributes(identifier),
+                ldapEntryMapper.getEntityAttributes());
+        return ldapEntry == null ? null : ldapEntryMapper.toEntity(ldapEntry);
     }
 
-    private LdapEntry findLdapEntryByMobile(final String mobile) {
-        return findOneByFilter("(mobile=" + mobile + ")");
+    /**
+     * Returns the identifier attributes of a user in the order of precedence: user name, email and uid number.
+     */
+    private static Map<String, String> identifierAttributes(final String identifier) {
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("uid", identifier);
+        attributes.put("mail", identifier);
+        if (NumberUtils.isDigits(identifier)) {
+            attributes.put("uidNumber", identifier);
+        }
+        return attributes;
     }
 
     @Override
     public boolean existsByUserName(final String userName) {
-        return findLdapEntryByUserName(userName) != null;
+        return existsByFilter(userNameFilter(userName));
     }
 
     @Override
     public boolean existsByUidNumber(final long uidNumber) {
-        return findLdapEntryByUidNumber(uidNumber) != null;
+        return existsByFilter(uidNumberFilter(uidNumber));
     }
 
     @Override
     public boolean existsByEmail(final String email) {
-        return findLdapEntryByEmail(email) != null;
+        return existsByFilter(emailFilter(email));
     }
 
     @Override
     public boolean existsByMobile(final String mobile) {
-        return findLdapEntryByMobile(mobile) != null;
+        return existsByFilter(mobileFilter(mobile));
+    }
+
+    @Override
+    public boolean existsByIdentifier(final String identifier) {
+        BadRequestException.validateNotBlank(identifier, "Identifier must be present.");
+        return existsByIdentifier(null, identifierAttributes(identifier));
     }
 
     @Override
@@ -209,6 +258,7 @@ public class UserProfileLdapDaoImpl extends AbstractLdapDaoImpl implements UserP
             final DeleteOperation delete = new DeleteOperation(connection);
             final DeleteRequest request = new DeleteRequest(dn);
             final Response<Void> res = delete.execute(request);
+            evictCachedEntry(dn);
             boolean result = res.getResultCode() == ResultCode.SUCCESS;
             if (log.isDebugEnabled()) {
                 log.debug("User profile [" + userName + "] "
@@ -27,6 +27,8 @@ public interface UserProfileLdapEntryMapper extends LdapEntryMapper<UserProfileL
 
     UserProfileLdap toEntity(LdapEntry source);
 
+    String[] getEntityAttributes();
+
     String createDn(String uid);
 
 }
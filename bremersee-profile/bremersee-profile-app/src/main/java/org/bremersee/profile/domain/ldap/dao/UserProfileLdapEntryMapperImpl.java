@@ -62,6 +62,58 @@ public class UserProfileLdapEntryMapperImpl extends AbstractLdapEntryMapper impl
             "gosaMailAccount"
     };
 
+    private static final String[] ENTITY_ATTRIBUTES = {
+            "uid",
+            "dateOfBirth",
+            "mail",
+            "givenName",
+            "gender",
+            "homePhone",
+            "homePostalAddress",
+            "labeledURI",
+            "sn",
+            "l",
+            "mobile",
+            "userPassword",
+            "preferredLanguage",
+            "st",
+            "personalTitle",
+            "departmentNumber",
+            "employeeNumber",
+            "employeeType",
+            "facsimileTelephoneNumber",
+            "o",
+            "ou",
+            "pager",
+            "postalAddress",
+            "roomNumber",
+            "telephoneNumber",
+            "uidNumber",
+            "gidNumber",
+            "gecos",
+            "homeDirectory",
+            "loginShell",
+            "sambaBadPasswordCount",
+            "sambaBadPasswordTime",
+            "sambaLMPassword",
+            "sambaNTPassword",
+            "sambaPwdLastSet",
+            "sambaAcctFlags",
+            "sambaDomainName",
+            "sambaLogoffTime",
+            "sambaLogonTime",
+            "sambaMungedDial",
+            "sambaPrimaryGroupSID",
+            "sambaSID",
+            "gosaMailServer",
+            "gosaMailAlternateAddress",
+            "gosaMailDeliveryMode",
+            "gosaMailForwardingAddress",
+            "gosaMailQuota",
+            "gosaSpamMailbox",
+            "gosaSpamSortLevel"
+    };
+
     private UserProfileLdapProperties properties = new UserProfileLdapProperties();
 
     @Autowired(required = false)
@@ -91,6 +143,11 @@ public class UserProfileLdapEntryMapperImpl extends AbstractLdapEntryMapper impl
         return destination;
     }
 
+    @Override
+    public String[] getEntityAttributes() {
+        return ENTITY_ATTRIBUTES.clone();
+    }
+
     @Override
     public void map(UserProfileLdap source, LdapEntry dest) { // NOSONAR
 
@@ -21,7 +21,9 @@ import org.bremersee.common.domain.mongodb.entity.AbstractBaseMongo;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 /**
  * @author Christian Bremer
@@ -29,17 +31,21 @@ import java.util.Date;
  */
 @Getter
 @Setter
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = "searchKeys")
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 @Document(collection = "mailChangeRequest")
-public class MailChangeRequestMongo extends AbstractBaseMongo {
+public class MailChangeRequestMongo extends AbstractBaseMongo implements Searchable {
 
     private static final long serialVersionUID = 1L;
     
     @Indexed(unique = true)
     private String changeHash;
     
+    /**
+     * The expiration date. The entity is removed by the TTL index after it has expired.
+     */
+    @Indexed(expireAfterSeconds = 0)
     private Date changeExpiration;
     
     @Indexed(unique = true)
@@ -48,4 +54,12 @@ public class MailChangeRequestMongo extends AbstractBaseMongo {
     @Indexed(unique = true)
     private String newEmail;
 
+    @Indexed
+    private List<String> searchKeys;
+
+    @Override
+    public List<String> searchableValues() {
+        return Arrays.asList(uid, newEmail);
+    }
+
 }
@@ -21,24 +21,30 @@ import org.bremersee.common.domain.mongodb.entity.AbstractBaseMongo;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 /**
  * @author Christian Bremer
  */
 @Getter
 @Setter
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = "searchKeys")
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 @Document(collection = "mobileChangeRequest")
-public class MobileChangeRequestMongo extends AbstractBaseMongo {
+public class MobileChangeRequestMongo extends AbstractBaseMongo implements Searchable {
 
     private static final long serialVersionUID = 1L;
 
     @Indexed(unique = true)
     private String changeHash;
 
+    /**
+     * The expiration date. The entity is removed by the TTL index after it has expired.
+     */
+    @Indexed(expireAfterSeconds = 0)
     private Date changeExpiration;
 
     @Indexed(unique = true)
@@ -47,4 +53,12 @@ public class MobileChangeRequestMongo extends AbstractBaseMongo {
     @Indexed
     private String newMobile;
 
+    @Indexed
+    private List<String> searchKeys;
+
+    @Override
+    public List<String> searchableValues() {
+        return Arrays.asList(uid, newMobile);
+    }
+
 }
@@ -21,8 +21,10 @@ import org.bremersee.common.domain.mongodb.entity.AbstractBaseMongo;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -32,11 +34,11 @@ import java.util.Set;
  */
 @Getter
 @Setter
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = "searchKeys")
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 @Document(collection = "oauth2Client")
-public class OAuth2ClientMongo extends AbstractBaseMongo {
+public class OAuth2ClientMongo extends AbstractBaseMongo implements Searchable {
     
     private static final long serialVersionUID = 1L;
 
@@ -63,4 +65,12 @@ public class OAuth2ClientMongo extends AbstractBaseMongo {
 
     private Map<String, Object> additionalInformation = new LinkedHashMap<>();
 
+    @Indexed
+    private List<String> searchKeys;
+
+    @Override
+    public List<String> searchableValues() {
+        return Collections.singletonList(clientId);
+    }
+
 }
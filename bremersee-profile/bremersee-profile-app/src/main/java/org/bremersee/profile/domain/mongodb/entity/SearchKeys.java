@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.entity;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Creates the search keys of a {@link Searchable} and of a search query.
+ * <p>
+ * The values are normalized (lower case without diacritics) and split into tokens. The keys are the prefixes of
+ * every token ({@code t:}) and the prefixes of the whole value ({@code a:}), so that a token prefix query and an
+ * anchored prefix query are answered by an index lookup. A query that starts with {@code ^} is anchored.
+ *
+ * @author Christian Bremer
+ */
+public abstract class SearchKeys {
+
+    /**
+     * Longer prefixes are truncated. A query term that is longer matches all values with the same prefix.
+     */
+    static final int MAX_PREFIX_LENGTH = 16;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final String TOKEN = "t:";
+
+    private static final String ANCHORED = "a:";
+
+    private SearchKeys() {
+        super();
+    }
+
+    /**
+     * Normalizes a value: lower case, without diacritics and surrounding whitespace.
+     *
+     * @param value the value
+     * @return the normalized value
+     */
+    public static String normalize(final String value) {
+        if (value == null) {
+            return "";
+        }
+        final String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static List<String> tokenize(final String normalized) {
+        final List<String> tokens = new ArrayList<>();
+        for (final String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addPrefixes(final String prefix, final String value, final Set<String> keys) {
+        final int length = Math.min(value.length(), MAX_PREFIX_LENGTH);
+        for (int i = 1; i <= length; i++) {
+            keys.add(prefix + value.substring(0, i));
+        }
+    }
+
+    private static String truncate(final String value) {
+        return value.length() > MAX_PREFIX_LENGTH ? value.substring(0, MAX_PREFIX_LENGTH) : value;
+    }
+
+    /**
+     * Creates the search keys of the searchable values.
+     *
+     * @param searchable the searchable entity
+     * @return the search keys
+     */
+    public static List<String> create(final Searchable searchable) {
+        final Set<String> keys = new LinkedHashSet<>();
+        for (final String value : searchable.searchableValues()) {
+            final String normalized = normalize(value);
+            addPrefixes(ANCHORED, normalized, keys);
+            for (final String token : tokenize(normalized)) {
+                addPrefixes(TOKEN, token, keys);
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Creates the keys that an entity must have to match the query. Without a leading {@code ^} every token of
+     * the query must be the prefix of a token of the entity. With a leading {@code ^} the query must be the prefix
+     * of a whole value.
+     *
+     * @param query the search query
+     * @return the keys (an empty list if the query has no letters or digits)
+     */
+    public static List<String> createQueryKeys(final String query) {
+        final String normalized = normalize(query);
+        if (normalized.startsWith("^")) {
+            final String anchored = normalized.substring(1);
+            return anchored.isEmpty()
+                    ? Collections.emptyList()
+                    : Collections.singletonList(ANCHORED + truncate(anchored));
+        }
+        final Set<String> keys = new LinkedHashSet<>();
+        for (final String token : tokenize(normalized)) {
+            keys.add(TOKEN + truncate(token));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Ranks a matching entity: exact matches before prefix matches of a whole value before prefix matches of a
+     * token, and matches of important values before matches of less important ones.
+     *
+     * @param searchable the matching entity
+     * @param query      the search query
+     * @return the rank (the higher the better)
+     */
+    public static long rank(final Searchable searchable, final String query) {
+        String normalized = normalize(query);
+        if (normalized.startsWith("^")) {
+            normalized = normalized.substring(1);
+        }
+        final List<String> queryTokens = tokenize(normalized);
+        final List<String> values = searchable.searchableValues();
+        long rank = 0L;
+        for (int i = 0; i < values.size(); i++) {
+            final long weight = (long) values.size() - i;
+            final String value = normalize(values.get(i));
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (value.equals(normalized)) {
+                rank += 100L * weight;
+            } else if (value.startsWith(normalized)) {
+                rank += 10L * weight;
+            } else {
+                final List<String> tokens = tokenize(value);
+                for (final String queryToken : queryTokens) {
+                    if (tokens.stream().anyMatch(token -> token.startsWith(queryToken))) {
+                        rank += weight;
+                    }
+                }
+            }
+        }
+        return rank;
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.entity;
+
+import java.util.List;
+
+/**
+ * A mongo entity that can be found by a search query. Its search keys are created from the searchable values on
+ * every save and are stored in an indexed field.
+ *
+ * @author Christian Bremer
+ */
+public interface Searchable {
+
+    /**
+     * The name of the field with the search keys.
+     */
+    String SEARCH_KEYS = "searchKeys";
+
+    /**
+     * Returns the values that can be searched in the order of their weight (the first is the most important).
+     *
+     * @return the searchable values (may contain {@code null})
+     */
+    List<String> searchableValues();
+
+    List<String> getSearchKeys();
+
+    void setSearchKeys(List<String> searchKeys);
+
+}
@@ -19,9 +19,12 @@ package org.bremersee.profile.domain.mongodb.entity;
 import lombok.*;
 import org.bremersee.common.domain.mongodb.entity.AbstractBaseMongo;
 import org.bremersee.common.model.Gender;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
@@ -30,11 +33,12 @@ import java.util.TimeZone;
  */
 @Getter
 @Setter
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = "searchKeys")
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 @Document(collection = "userProfile")
-public class UserProfileMongo extends AbstractBaseMongo {
+@CompoundIndex(name = "lastName_uid", def = "{'lastName': 1, 'uid': 1}")
+public class UserProfileMongo extends AbstractBaseMongo implements Searchable {
 
     private static final long serialVersionUID = 1L;
 
@@ -73,4 +77,18 @@ public class UserProfileMongo extends AbstractBaseMongo {
 
     private String labeledURI;
 
+    /**
+     * The mark of the last reconciliation of the profile with its roles and ACLs (see
+     * {@code UserProfileServiceImpl}). If it is equal to the current mark, the profile is known to be consistent.
+     */
+    private String reconciliationMark;
+
+    @Indexed
+    private List<String> searchKeys;
+
+    @Override
+    public List<String> searchableValues() {
+        return Arrays.asList(uid, lastName, firstName, email);
+    }
+
 }
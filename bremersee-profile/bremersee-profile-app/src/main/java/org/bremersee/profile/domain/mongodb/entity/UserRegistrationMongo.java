@@ -19,11 +19,14 @@ package org.bremersee.profile.domain.mongodb.entity;
 import lombok.*;
 import org.bremersee.common.domain.mongodb.entity.AbstractBaseMongo;
 import org.bremersee.common.model.Gender;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
@@ -33,11 +36,12 @@ import java.util.TimeZone;
  */
 @Getter
 @Setter
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = "searchKeys")
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 @Document(collection = "userRegistration")
-public class UserRegistrationMongo extends AbstractBaseMongo {
+@CompoundIndex(name = "lastName_uid", def = "{'lastName': 1, 'uid': 1}")
+public class UserRegistrationMongo extends AbstractBaseMongo implements Searchable {
     
     private static final long serialVersionUID = 1L;
     
@@ -53,6 +57,10 @@ public class UserRegistrationMongo extends AbstractBaseMongo {
     @Indexed(unique = true)
     private String registrationHash;
 
+    /**
+     * The expiration date. The entity is removed by the TTL index after it has expired.
+     */
+    @Indexed(expireAfterSeconds = 0)
     private Date registrationExpiration;
     
     @Indexed(unique = true)
@@ -80,5 +88,13 @@ public class UserRegistrationMongo extends AbstractBaseMongo {
     private String sambaLmPassword;
     
     private String sambaNtPassword;
-    
+
+    @Indexed
+    private List<String> searchKeys;
+
+    @Override
+    public List<String> searchableValues() {
+        return Arrays.asList(uid, lastName, firstName, email);
+    }
+
 }
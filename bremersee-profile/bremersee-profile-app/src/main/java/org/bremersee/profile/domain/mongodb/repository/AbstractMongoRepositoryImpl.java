@@ -16,9 +16,37 @@
 
 package org.bremersee.profile.domain.mongodb.repository;
 
+import com.mongodb.BulkWriteError;
+import com.mongodb.DBObject;
+import org.apache.commons.lang3.StringUtils;
+import org.bremersee.common.domain.mongodb.entity.AbstractBaseMongo;
 import org.bremersee.profile.domain.AbstractDomainComponentImpl;
+import org.bremersee.profile.domain.mongodb.entity.SearchKeys;
+import org.bremersee.profile.domain.mongodb.entity.Searchable;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author Christian Bremer
@@ -26,6 +54,24 @@ import org.springframework.data.mongodb.core.MongoOperations;
 @SuppressWarnings("SpringJavaAutowiredMembersInspection")
 public abstract class AbstractMongoRepositoryImpl extends AbstractDomainComponentImpl {
 
+    /**
+     * If the page request has no sort order, the first matches (by ID) up to this limit are ranked. The matches
+     * beyond this limit follow the ranked ones in the order of their ID.
+     */
+    static final int RANKING_LIMIT = 1000;
+
+    private static final int SEARCH_KEYS_BATCH_SIZE = 500;
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    private static final int REMOVE_BATCH_SIZE = 500;
+
+    private static final String ID_FIELD = "_id";
+
+    static final int DEFAULT_KEYSET_PAGE_SIZE = 100;
+
+    static final int MAX_KEYSET_PAGE_SIZE = 1000;
+
     MongoOperations mongoOperations;
 
     @Autowired
@@ -33,4 +79,248 @@ public abstract class AbstractMongoRepositoryImpl extends AbstractDomainComponen
         this.mongoOperations = mongoOperations;
     }
 
+    /**
+     * Finds the entities that match the search query (see {@link SearchKeys#createQueryKeys(String)}) with an
+     * index lookup of their search keys. If the page request has no sort order, the first {@link #RANKING_LIMIT}
+     * matches (by ID) are ranked and the remaining matches follow in the order of their ID, otherwise the matches
+     * are sorted by the sort order and the ID.
+     *
+     * @param type     the entity class
+     * @param query    the search query
+     * @param pageable the page request
+     * @param <T>      the entity type
+     * @return the page of matching entities
+     */
+    <T extends Searchable> Page<T> search(final Class<T> type, final String query, final Pageable pageable) {
+
+        final List<String> keys = SearchKeys.createQueryKeys(query);
+        if (keys.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0L);
+        }
+        final long total = mongoOperations.count(createSearchQuery(keys), type);
+        final long offset = pageable.getOffset();
+        if (pageable.getSort() != null) {
+            final Query sorted = createSearchQuery(keys).with(pageable).with(new Sort(Sort.Direction.ASC, ID_FIELD));
+            return new PageImpl<>(mongoOperations.find(sorted, type), pageable, total);
+        }
+        if (offset >= RANKING_LIMIT) {
+            return new PageImpl<>(findUnranked(type, keys, (int) offset, pageable.getPageSize()), pageable, total);
+        }
+
+        final Query candidates = createSearchQuery(keys).with(new Sort(Sort.Direction.ASC, ID_FIELD))
+                .limit(RANKING_LIMIT);
+        final List<T> matches = mongoOperations.find(candidates, type);
+        final Map<T, Long> ranks = new IdentityHashMap<>(matches.size());
+        for (final T match : matches) {
+            ranks.put(match, SearchKeys.rank(match, query));
+        }
+        // Ties are broken by the most important value (e. g. the user name) and then by the ID (the sort is stable).
+        matches.sort(Comparator.comparing((T match) -> ranks.get(match)).reversed()
+                .thenComparing(AbstractMongoRepositoryImpl::getTieBreaker));
+        final int fromIndex = (int) Math.min(offset, matches.size());
+        final int toIndex = Math.min(fromIndex + pageable.getPageSize(), matches.size());
+        final List<T> content = new ArrayList<>(matches.subList(fromIndex, toIndex));
+        final int remaining = pageable.getPageSize() - content.size();
+        if (remaining > 0 && matches.size() == RANKING_LIMIT) {
+            content.addAll(findUnranked(type, keys, RANKING_LIMIT, remaining));
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private <T extends Searchable> List<T> findUnranked(final Class<T> type, final List<String> keys,
+                                                        final int skip, final int limit) {
+        final Query unranked = createSearchQuery(keys).with(new Sort(Sort.Direction.ASC, ID_FIELD))
+                .skip(skip).limit(limit);
+        return mongoOperations.find(unranked, type);
+    }
+
+    private static String getTieBreaker(final Searchable searchable) {
+        final List<String> values = searchable.searchableValues();
+        return values.isEmpty() ? "" : SearchKeys.normalize(values.get(0));
+    }
+
+    private Query createSearchQuery(final List<String> keys) {
+        return new Query(Criteria.where(Searchable.SEARCH_KEYS).all(keys));
+    }
+
+    /**
+     * Finds the entities with keyset pagination: the entities are sorted by the keyset fields and a page starts
+     * after the sort values of the cursor, so that the costs of a page don't depend on its position. The last
+     * keyset field must be unique.
+     *
+     * @param type          the entity class
+     * @param cursor        the cursor of the previous page or {@code null} for the first page
+     * @param pageSize      the page size (optional)
+     * @param query         the search query of the first page (optional)
+     * @param estimateTotal whether the total number of entities should be estimated or not
+     * @param keysetValues  a function that returns the values of the keyset fields of an entity
+     * @param keysetFields  the keyset fields
+     * @param <T>           the entity type
+     * @return the page
+     */
+    <T extends Searchable> KeysetPage<T> findByKeyset(final Class<T> type, final String cursor,
+                                                      final Integer pageSize, final String query,
+                                                      final boolean estimateTotal,
+                                                      final Function<T, List<String>> keysetValues,
+                                                      final String... keysetFields) {
+
+        final KeysetCursor previous = StringUtils.isBlank(cursor)
+                ? null
+                : KeysetCursor.decode(cursor, keysetFields.length);
+        final String searchQuery = previous == null ? StringUtils.trimToNull(query) : previous.getQuery();
+
+        final Query filter = new Query();
+        if (searchQuery != null) {
+            final List<String> keys = SearchKeys.createQueryKeys(searchQuery);
+            if (keys.isEmpty()) {
+                return new KeysetPage<>(Collections.emptyList(), null, estimateTotal ? 0L : null);
+            }
+            filter.addCriteria(Criteria.where(Searchable.SEARCH_KEYS).all(keys));
+        }
+        Long estimatedTotal = null;
+        if (estimateTotal) {
+            estimatedTotal = searchQuery == null
+                    ? mongoOperations.getCollection(mongoOperations.getCollectionName(type)).count()
+                    : mongoOperations.count(filter, type);
+        }
+
+        final int size = pageSize == null
+                ? DEFAULT_KEYSET_PAGE_SIZE
+                : Math.max(1, Math.min(pageSize, MAX_KEYSET_PAGE_SIZE));
+        if (previous != null) {
+            filter.addCriteria(createKeysetCriteria(keysetFields, previous.getValues()));
+        }
+        filter.with(new Sort(Sort.Direction.ASC, keysetFields)).limit(size + 1);
+        final List<T> entities = mongoOperations.find(filter, type);
+
+        String nextCursor = null;
+        if (entities.size() > size) {
+            entities.subList(size, entities.size()).clear();
+            final T last = entities.get(size - 1);
+            nextCursor = new KeysetCursor(searchQuery, keysetValues.apply(last)).encode();
+        }
+        return new KeysetPage<>(entities, nextCursor, estimatedTotal);
+    }
+
+    /**
+     * Creates the criteria of the entities that are sorted after the specified values. A {@code null} value is
+     * sorted before every other value.
+     */
+    static Criteria createKeysetCriteria(final String[] fields, final List<String> values) {
+
+        final Criteria[] alternatives = new Criteria[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            final Criteria[] conditions = new Criteria[i + 1];
+            for (int j = 0; j < i; j++) {
+                conditions[j] = Criteria.where(fields[j]).is(values.get(j));
+            }
+            conditions[i] = values.get(i) == null
+                    ? Criteria.where(fields[i]).ne(null)
+                    : Criteria.where(fields[i]).gt(values.get(i));
+            alternatives[i] = conditions.length == 1 ? conditions[0] : new Criteria().andOperator(conditions);
+        }
+        return new Criteria().orOperator(alternatives);
+    }
+
+    /**
+     * Inserts the entities with one unordered bulk write. Bulk writes bypass the mapping events, so the IDs and
+     * the search keys are set here. Entities that violate a unique index (e. g. because they were inserted
+     * concurrently) are skipped.
+     *
+     * @param type     the entity class
+     * @param entities the new entities
+     * @param <T>      the entity type
+     * @return the inserted entities
+     */
+    <T extends AbstractBaseMongo> List<T> insertUnordered(final Class<T> type, final List<T> entities) {
+
+        if (entities == null || entities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        for (final T entity : entities) {
+            if (entity.getId() == null) {
+                entity.setId(new BigInteger(ObjectId.get().toHexString(), 16));
+            }
+            if (entity instanceof Searchable) {
+                ((Searchable) entity).setSearchKeys(SearchKeys.create((Searchable) entity));
+            }
+        }
+        try {
+            mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(entities).execute();
+            return entities;
+
+        } catch (BulkOperationException e) {
+            final Set<Integer> rejected = new HashSet<>();
+            for (final BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                    throw e;
+                }
+                rejected.add(error.getIndex());
+            }
+            log.info("{} of {} entities of type [{}] already exist.", rejected.size(), entities.size(),
+                    type.getSimpleName());
+            final List<T> inserted = new ArrayList<>(entities.size() - rejected.size());
+            for (int i = 0; i < entities.size(); i++) {
+                if (!rejected.contains(i)) {
+                    inserted.add(entities.get(i));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    /**
+     * Removes the entities whose expiration date has passed. Only the IDs of a bounded batch are read at a time,
+     * the entities are not loaded.
+     *
+     * @param type            the entity class
+     * @param expirationField the name of the expiration date field
+     * @return the number of removed entities
+     */
+    long removeExpired(final Class<?> type, final String expirationField) {
+
+        final String collectionName = mongoOperations.getCollectionName(type);
+        final Date now = new Date();
+        long count = 0L;
+        List<Object> ids;
+        do {
+            final Query query = new Query(Criteria.where(expirationField).lt(now)).limit(REMOVE_BATCH_SIZE);
+            query.fields().include(ID_FIELD);
+            ids = mongoOperations.find(query, DBObject.class, collectionName).stream()
+                    .map(dbObject -> dbObject.get(ID_FIELD))
+                    .collect(Collectors.toList());
+            if (!ids.isEmpty()) {
+                count += mongoOperations.remove(new Query(Criteria.where(ID_FIELD).in(ids)), collectionName).getN();
+            }
+        } while (ids.size() == REMOVE_BATCH_SIZE);
+        if (count > 0L) {
+            log.info("{} expired entities of type [{}] removed.", count, type.getSimpleName());
+        }
+        return count;
+    }
+
+    /**
+     * Creates the search keys of the entities that were saved before search keys existed.
+     *
+     * @param type the entity class
+     * @param <T>  the entity type
+     */
+    <T extends Searchable> void createMissingSearchKeys(final Class<T> type) {
+
+        long count = 0L;
+        List<T> entities;
+        do {
+            final Query query = new Query(Criteria.where(Searchable.SEARCH_KEYS).exists(false));
+            entities = mongoOperations.find(query.limit(SEARCH_KEYS_BATCH_SIZE), type);
+            for (final T entity : entities) {
+                entity.setSearchKeys(SearchKeys.create(entity));
+                mongoOperations.save(entity);
+            }
+            count += entities.size();
+        } while (!entities.isEmpty());
+        if (count > 0L) {
+            log.info("Search keys of {} entities of type [{}] created.", count, type.getSimpleName());
+        }
+    }
+
 }
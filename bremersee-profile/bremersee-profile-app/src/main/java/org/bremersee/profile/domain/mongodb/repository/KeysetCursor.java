@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import lombok.Getter;
+import org.bremersee.common.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The opaque cursor of a keyset pagination. It contains the search query of the first page and the sort values
+ * of the last entry of the previous page. Every value is encoded with URL safe base64, a {@code null} value is
+ * encoded as {@code ~} and the values are separated by dots.
+ *
+ * @author Christian Bremer
+ */
+@Getter
+class KeysetCursor {
+
+    private static final String NULL_VALUE = "~";
+
+    private static final String SEPARATOR = ".";
+
+    private final String query;
+
+    private final List<String> values;
+
+    KeysetCursor(final String query, final List<String> values) {
+        this.query = query;
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /**
+     * Decodes a cursor.
+     *
+     * @param cursor    the encoded cursor
+     * @param keyLength the number of sort values
+     * @return the decoded cursor
+     * @throws BadRequestException if the cursor is invalid
+     */
+    static KeysetCursor decode(final String cursor, final int keyLength) {
+
+        final String[] segments = cursor.split("\\.", -1);
+        BadRequestException.validateTrue(segments.length == keyLength + 1, "Cursor is invalid.");
+        final List<String> values = new ArrayList<>(keyLength);
+        for (int i = 1; i < segments.length; i++) {
+            values.add(decodeValue(segments[i]));
+        }
+        return new KeysetCursor(decodeValue(segments[0]), values);
+    }
+
+    private static String decodeValue(final String segment) {
+
+        if (NULL_VALUE.equals(segment)) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(segment), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor is invalid.");
+        }
+    }
+
+    /**
+     * Encodes this cursor.
+     *
+     * @return the encoded cursor
+     */
+    String encode() {
+
+        final StringBuilder sb = new StringBuilder(encodeValue(query));
+        for (final String value : values) {
+            sb.append(SEPARATOR).append(encodeValue(value));
+        }
+        return sb.toString();
+    }
+
+    private static String encodeValue(final String value) {
+
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
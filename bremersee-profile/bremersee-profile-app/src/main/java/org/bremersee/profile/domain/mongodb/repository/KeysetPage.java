@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A page of a keyset (cursor) pagination.
+ *
+ * @author Christian Bremer
+ */
+@Getter
+@ToString(exclude = "entries")
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    private final List<T> entries;
+
+    /**
+     * The opaque cursor of the next page or {@code null}, if this is the last page.
+     */
+    private final String nextCursor;
+
+    /**
+     * The estimated number of all entries or {@code null}, if it wasn't requested.
+     */
+    private final Long estimatedTotal;
+
+}
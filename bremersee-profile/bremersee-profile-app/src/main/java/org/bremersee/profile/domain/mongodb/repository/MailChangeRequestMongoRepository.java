@@ -17,10 +17,7 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.MailChangeRequestMongo;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
 import java.math.BigInteger;
 
@@ -30,9 +27,6 @@ import java.math.BigInteger;
 public interface MailChangeRequestMongoRepository extends MongoRepository<MailChangeRequestMongo, BigInteger>,
         MailChangeRequestMongoRepositoryCustom {
 
-    @Query("{ $or: [ { 'uid': { $regex: ?0 } }, { 'newEmail': { $regex: ?0 } } ] }")
-    Page<MailChangeRequestMongo> findBySearchRegex(String searchRegex, Pageable pageable);
-
     MailChangeRequestMongo findByChangeHash(String changeHash);
 
     MailChangeRequestMongo findByUid(String uid);
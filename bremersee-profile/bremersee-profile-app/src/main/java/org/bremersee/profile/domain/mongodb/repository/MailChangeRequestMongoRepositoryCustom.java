@@ -17,14 +17,30 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.MailChangeRequestMongo;
-
-import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 /**
  * @author Christian Bremer
  */
 public interface MailChangeRequestMongoRepositoryCustom {
 
-    List<MailChangeRequestMongo> findExpiredAndRemove();
+    /**
+     * Removes the expired entities in batches without loading them. Normally the TTL index of the expiration
+     * date has already removed them.
+     *
+     * @return the number of removed entities
+     */
+    long removeExpired();
+
+    /**
+     * Finds the entities that match the search query with an index lookup. A query that starts with {@code ^}
+     * matches the prefixes of whole values, otherwise every term of the query must be the prefix of a word.
+     *
+     * @param query    the search query
+     * @param pageable the page request (without a sort order the matches are ranked)
+     * @return the page of matching entities
+     */
+    Page<MailChangeRequestMongo> findBySearchQuery(String query, Pageable pageable);
 
 }
@@ -17,11 +17,8 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.MailChangeRequestMongo;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-
-import java.util.Date;
-import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 /**
  * @author Christian Bremer
@@ -30,15 +27,17 @@ public class MailChangeRequestMongoRepositoryImpl extends AbstractMongoRepositor
 
     @Override
     protected void doInit() {
-        // nothing to init
+        createMissingSearchKeys(MailChangeRequestMongo.class);
     }
 
     @Override
-    public List<MailChangeRequestMongo> findExpiredAndRemove() {
+    public long removeExpired() {
+        return removeExpired(MailChangeRequestMongo.class, "changeExpiration");
+    }
 
-        Query query = new Query();
-        query.addCriteria(Criteria.where("changeExpiration").lt(new Date()));
-        return mongoOperations.findAllAndRemove(query, MailChangeRequestMongo.class);
+    @Override
+    public Page<MailChangeRequestMongo> findBySearchQuery(final String query, final Pageable pageable) {
+        return search(MailChangeRequestMongo.class, query, pageable);
     }
 
 }
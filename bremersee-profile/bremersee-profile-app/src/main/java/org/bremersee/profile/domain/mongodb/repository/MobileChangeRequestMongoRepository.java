@@ -17,10 +17,7 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.MobileChangeRequestMongo;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
 import java.math.BigInteger;
 
@@ -30,9 +27,6 @@ import java.math.BigInteger;
 public interface MobileChangeRequestMongoRepository extends MongoRepository<MobileChangeRequestMongo, BigInteger>,
         MobileChangeRequestMongoRepositoryCustom {
 
-    @Query("{ $or: [ { 'uid': { $regex: ?0 } }, { 'newMobile': { $regex: ?0 } } ] }")
-    Page<MobileChangeRequestMongo> findBySearchRegex(String searchRegex, Pageable pageable);
-
     MobileChangeRequestMongo findByChangeHash(String changeHash);
 
     MobileChangeRequestMongo findByUid(String uid);
@@ -17,11 +17,8 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.MobileChangeRequestMongo;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-
-import java.util.Date;
-import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 /**
  * @author Christian Bremer
@@ -31,14 +28,17 @@ public class MobileChangeRequestMongoRepositoryImpl extends AbstractMongoReposit
 
     @Override
     protected void doInit() {
-        // nothing to init
+        createMissingSearchKeys(MobileChangeRequestMongo.class);
     }
 
     @Override
-    public List<MobileChangeRequestMongo> findExpiredAndRemove() {
+    public long removeExpired() {
+        return removeExpired(MobileChangeRequestMongo.class, "changeExpiration");
+    }
 
-        Query query = new Query();
-        query.addCriteria(Criteria.where("changeExpiration").lt(new Date()));
-        return mongoOperations.findAllAndRemove(query, MobileChangeRequestMongo.class);
+    @Override
+    public Page<MobileChangeRequestMongo> findBySearchQuery(final String query, final Pageable pageable) {
+        return search(MobileChangeRequestMongo.class, query, pageable);
     }
+
 }
@@ -17,20 +17,15 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.OAuth2ClientMongo;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
 import java.math.BigInteger;
 
 /**
  * @author Christian Bremer
  */
-public interface OAuth2ClientMongoRepository extends MongoRepository<OAuth2ClientMongo, BigInteger> {
-
-    @Query("{ 'clientId': { $regex: ?0 } }")
-    Page<OAuth2ClientMongo> findBySearchRegex(String searchRegex, Pageable pageable);
+public interface OAuth2ClientMongoRepository extends MongoRepository<OAuth2ClientMongo, BigInteger>,
+        OAuth2ClientMongoRepositoryCustom {
 
     OAuth2ClientMongo findByClientId(String clientId);
 
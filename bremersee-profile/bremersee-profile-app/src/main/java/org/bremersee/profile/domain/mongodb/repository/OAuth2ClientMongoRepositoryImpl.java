@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import org.bremersee.profile.domain.mongodb.entity.OAuth2ClientMongo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+
+/**
+ * @author Christian Bremer
+ */
+public class OAuth2ClientMongoRepositoryImpl extends AbstractMongoRepositoryImpl
+        implements OAuth2ClientMongoRepositoryCustom {
+
+    @Override
+    protected void doInit() {
+        createMissingSearchKeys(OAuth2ClientMongo.class);
+    }
+
+    @Override
+    public Page<OAuth2ClientMongo> findBySearchQuery(final String query, final Pageable pageable) {
+        return search(OAuth2ClientMongo.class, query, pageable);
+    }
+
+    @Override
+    public KeysetPage<OAuth2ClientMongo> findByCursor(final String cursor, final Integer pageSize, final String query,
+                                                      final boolean estimateTotal) {
+        return findByKeyset(OAuth2ClientMongo.class, cursor, pageSize, query, estimateTotal,
+                entity -> Collections.singletonList(entity.getClientId()), "clientId");
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import org.bremersee.profile.domain.mongodb.entity.SearchKeys;
+import org.bremersee.profile.domain.mongodb.entity.Searchable;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Updates the search keys of a {@link Searchable} before it is saved.
+ *
+ * @author Christian Bremer
+ */
+@Component
+public class SearchKeysMongoEventListener extends AbstractMongoEventListener<Object> {
+
+    @Override
+    public void onBeforeConvert(final BeforeConvertEvent<Object> event) {
+        if (event.getSource() instanceof Searchable) {
+            final Searchable searchable = (Searchable) event.getSource();
+            searchable.setSearchKeys(SearchKeys.create(searchable));
+        }
+    }
+
+}
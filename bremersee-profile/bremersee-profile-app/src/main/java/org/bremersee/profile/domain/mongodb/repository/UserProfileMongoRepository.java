@@ -17,23 +17,22 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.UserProfileMongo;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Christian Bremer
  */
-public interface UserProfileMongoRepository extends MongoRepository<UserProfileMongo, BigInteger> {
-
-    @Query("{ $or: [ { 'uid': { $regex: ?0 } }, { 'email': { $regex: ?0 } }, { 'firstName': { $regex: ?0 } }, { 'lastName': { $regex: ?0 } } ] }")
-    Page<UserProfileMongo> findBySearchRegex(String searchRegex, Pageable pageable);
+public interface UserProfileMongoRepository extends MongoRepository<UserProfileMongo, BigInteger>,
+        UserProfileMongoRepositoryCustom {
 
     UserProfileMongo findByUid(String uid);
 
+    List<UserProfileMongo> findByUidIn(Collection<String> uids);
+
     UserProfileMongo findByEmail(String email);
 
     UserProfileMongo findByMobile(String mobile);
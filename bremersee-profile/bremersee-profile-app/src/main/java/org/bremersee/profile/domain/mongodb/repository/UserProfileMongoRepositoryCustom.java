@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import org.bremersee.profile.domain.mongodb.entity.UserProfileMongo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Christian Bremer
+ */
+public interface UserProfileMongoRepositoryCustom {
+
+    /**
+     * Sets the reconciliation mark of the user profiles without loading them.
+     *
+     * @param uids the user names
+     * @param mark the reconciliation mark
+     */
+    void updateReconciliationMark(Collection<String> uids, String mark);
+
+    /**
+     * Inserts the new user profiles with one unordered bulk write. User profiles that already exist are skipped.
+     *
+     * @param entities the new user profiles
+     * @return the inserted user profiles
+     */
+    List<UserProfileMongo> insertUnordered(List<UserProfileMongo> entities);
+
+    /**
+     * Finds the entities that match the search query with an index lookup. A query that starts with {@code ^}
+     * matches the prefixes of whole values, otherwise every term of the query must be the prefix of a word.
+     *
+     * @param query    the search query
+     * @param pageable the page request (without a sort order the matches are ranked)
+     * @return the page of matching entities
+     */
+    Page<UserProfileMongo> findBySearchQuery(String query, Pageable pageable);
+
+    /**
+     * Finds the entities sorted by (lastName, uid) with keyset pagination.
+     *
+     * @param cursor        the cursor of the previous page or {@code null} for the first page
+     * @param pageSize      the page size (optional)
+     * @param query         the search query of the first page (optional)
+     * @param estimateTotal whether the total number of entities should be estimated or not
+     * @return the page
+     */
+    KeysetPage<UserProfileMongo> findByCursor(String cursor, Integer pageSize, String query, boolean estimateTotal);
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import org.bremersee.profile.domain.mongodb.entity.UserProfileMongo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Christian Bremer
+ */
+public class UserProfileMongoRepositoryImpl extends AbstractMongoRepositoryImpl implements UserProfileMongoRepositoryCustom {
+
+    @Override
+    protected void doInit() {
+        createMissingSearchKeys(UserProfileMongo.class);
+    }
+
+    @Override
+    public void updateReconciliationMark(final Collection<String> uids, final String mark) {
+
+        if (uids != null && !uids.isEmpty()) {
+            Query query = new Query();
+            query.addCriteria(Criteria.where("uid").in(uids));
+            mongoOperations.updateMulti(query, Update.update("reconciliationMark", mark), UserProfileMongo.class);
+        }
+    }
+
+    @Override
+    public List<UserProfileMongo> insertUnordered(final List<UserProfileMongo> entities) {
+        return insertUnordered(UserProfileMongo.class, entities);
+    }
+
+    @Override
+    public Page<UserProfileMongo> findBySearchQuery(final String query, final Pageable pageable) {
+        return search(UserProfileMongo.class, query, pageable);
+    }
+
+    @Override
+    public KeysetPage<UserProfileMongo> findByCursor(final String cursor, final Integer pageSize, final String query,
+                                                     final boolean estimateTotal) {
+        return findByKeyset(UserProfileMongo.class, cursor, pageSize, query, estimateTotal,
+                entity -> Arrays.asList(entity.getLastName(), entity.getUid()), "lastName", "uid");
+    }
+
+}
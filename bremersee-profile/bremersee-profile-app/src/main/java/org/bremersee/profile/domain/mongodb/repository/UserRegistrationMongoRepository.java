@@ -17,10 +17,7 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.UserRegistrationMongo;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
 import java.math.BigInteger;
 
@@ -30,10 +27,6 @@ import java.math.BigInteger;
 public interface UserRegistrationMongoRepository extends MongoRepository<UserRegistrationMongo, BigInteger>,
         UserRegistrationMongoRepositoryCustom {
 
-    @Query("{ $or: [ { 'uid': { $regex: ?0 } }, { 'email': { $regex: ?0 } }, { 'firstName': { $regex: ?0 } }, " +
-            "{ 'lastName': { $regex: ?0 } } ] }")
-    Page<UserRegistrationMongo> findBySearchRegex(String searchRegex, Pageable pageable);
-
     UserRegistrationMongo findByRegistrationHash(String registrationHash);
 
     UserRegistrationMongo findByUid(String uid);
@@ -17,14 +17,42 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.UserRegistrationMongo;
-
-import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 /**
  * @author Christian Bremer
  */
 public interface UserRegistrationMongoRepositoryCustom { // NOSONAR
 
-    List<UserRegistrationMongo> findExpiredAndRemove();
+    /**
+     * Removes the expired entities in batches without loading them. Normally the TTL index of the expiration
+     * date has already removed them.
+     *
+     * @return the number of removed entities
+     */
+    long removeExpired();
+
+    /**
+     * Finds the entities that match the search query with an index lookup. A query that starts with {@code ^}
+     * matches the prefixes of whole values, otherwise every term of the query must be the prefix of a word.
+     *
+     * @param query    the search query
+     * @param pageable the page request (without a sort order the matches are ranked)
+     * @return the page of matching entities
+     */
+    Page<UserRegistrationMongo> findBySearchQuery(String query, Pageable pageable);
+
+    /**
+     * Finds the entities sorted by (lastName, uid) with keyset pagination.
+     *
+     * @param cursor        the cursor of the previous page or {@code null} for the first page
+     * @param pageSize      the page size (optional)
+     * @param query         the search query of the first page (optional)
+     * @param estimateTotal whether the total number of entities should be estimated or not
+     * @return the page
+     */
+    KeysetPage<UserRegistrationMongo> findByCursor(String cursor, Integer pageSize, String query,
+                                                   boolean estimateTotal);
 
 }
@@ -17,11 +17,10 @@
 package org.bremersee.profile.domain.mongodb.repository;
 
 import org.bremersee.profile.domain.mongodb.entity.UserRegistrationMongo;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
-import java.util.Date;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * @author Christian Bremer
@@ -30,15 +29,24 @@ public class UserRegistrationMongoRepositoryImpl extends AbstractMongoRepository
 
     @Override
     protected void doInit() {
-        // nothing to init
+        createMissingSearchKeys(UserRegistrationMongo.class);
     }
 
     @Override
-    public List<UserRegistrationMongo> findExpiredAndRemove() {
+    public long removeExpired() {
+        return removeExpired(UserRegistrationMongo.class, "registrationExpiration");
+    }
 
-        Query query = new Query();
-        query.addCriteria(Criteria.where("registrationExpiration").lt(new Date()));
-        return mongoOperations.findAllAndRemove(query, UserRegistrationMongo.class);
+    @Override
+    public Page<UserRegistrationMongo> findBySearchQuery(final String query, final Pageable pageable) {
+        return search(UserRegistrationMongo.class, query, pageable);
+    }
+
+    @Override
+    public KeysetPage<UserRegistrationMongo> findByCursor(final String cursor, final Integer pageSize,
+                                                          final String query, final boolean estimateTotal) {
+        return findByKeyset(UserRegistrationMongo.class, cursor, pageSize, query, estimateTotal,
+                entity -> Arrays.asList(entity.getLastName(), entity.getUid()), "lastName", "uid");
     }
 
 }
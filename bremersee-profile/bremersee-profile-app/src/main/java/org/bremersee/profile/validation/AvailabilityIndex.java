@@ -0,0 +1,249 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.validation;
+
+import org.bremersee.profile.domain.ldap.dao.LdapConnectionScope;
+import org.bremersee.profile.domain.ldap.dao.UserProfileLdapDao;
+import org.bremersee.profile.domain.ldap.entity.UserProfileLdap;
+import org.bremersee.profile.domain.mongodb.entity.MailChangeRequestMongo;
+import org.bremersee.profile.domain.mongodb.entity.OAuth2ClientMongo;
+import org.bremersee.profile.domain.mongodb.entity.UserRegistrationMongo;
+import org.bremersee.profile.domain.mongodb.repository.MailChangeRequestMongoRepository;
+import org.bremersee.profile.domain.mongodb.repository.OAuth2ClientMongoRepository;
+import org.bremersee.profile.domain.mongodb.repository.UserRegistrationMongoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory index of the user names and email addresses that are already used in the stores that are selected
+ * by the masks of {@link ValidatorConstants}. It is a bloom filter: if it says that a value is not used, the value
+ * is available and the stores don't need to be asked. If it says that the value may be used, the store must
+ * confirm it.
+ * <p>
+ * The index only knows the values that this instance has seen since its last rebuild, values that were written by
+ * another instance or directly into the directory are missing. So it only answers the public availability checks,
+ * the write paths always ask the stores.
+ * <p>
+ * The index is rebuilt periodically, so that removed values don't stay in it forever. Between the rebuilds the
+ * write paths must add every new value before they save it.
+ *
+ * @author Christian Bremer
+ */
+@Component("availabilityIndex")
+@EnableConfigurationProperties(AvailabilityIndexConfig.class)
+@ManagedResource
+public class AvailabilityIndex {
+
+    private static final String USER_NAME = "u";
+
+    private static final String EMAIL = "e";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final UserRegistrationMongoRepository userRegistrationMongoRepository;
+
+    private final UserProfileLdapDao userProfileLdapDao;
+
+    private final OAuth2ClientMongoRepository oAuth2ClientMongoRepository;
+
+    private final MailChangeRequestMongoRepository mailChangeRequestMongoRepository;
+
+    private final AtomicLong negatives = new AtomicLong();
+
+    private final AtomicLong positives = new AtomicLong();
+
+    private AvailabilityIndexConfig config = new AvailabilityIndexConfig();
+
+    /**
+     * The index or {@code null}, if it isn't built yet.
+     */
+    private volatile BloomFilter filter;
+
+    /**
+     * The keys that were added since the last rebuild started. They are added to the next index again, because the
+     * stores may not have contained them when the index was loaded.
+     */
+    private volatile Queue<String> journal = new ConcurrentLinkedQueue<>();
+
+    @SuppressWarnings("SpringJavaAutowiringInspection")
+    @Autowired
+    public AvailabilityIndex(
+            final UserRegistrationMongoRepository userRegistrationMongoRepository,
+            final UserProfileLdapDao userProfileLdapDao,
+            final OAuth2ClientMongoRepository oAuth2ClientMongoRepository,
+            final MailChangeRequestMongoRepository mailChangeRequestMongoRepository) {
+
+        this.userRegistrationMongoRepository = userRegistrationMongoRepository;
+        this.userProfileLdapDao = userProfileLdapDao;
+        this.oAuth2ClientMongoRepository = oAuth2ClientMongoRepository;
+        this.mailChangeRequestMongoRepository = mailChangeRequestMongoRepository;
+    }
+
+    @Autowired(required = false)
+    public void setConfig(final AvailabilityIndexConfig config) {
+        if (config != null) {
+            log.info("{} uses config {}", getClass().getSimpleName(), config);
+            this.config = config;
+        }
+    }
+
+    /**
+     * Checks whether the user name may be used in the given store.
+     *
+     * @param tableMask the store (one of the masks of {@link ValidatorConstants})
+     * @param userName  the user name
+     * @return {@code false} if the user name is definitely not used, otherwise {@code true}
+     */
+    public boolean mightContainUserName(final int tableMask, final String userName) {
+        return mightContain(key(tableMask, USER_NAME, userName));
+    }
+
+    /**
+     * Checks whether the email address may be used in the given store.
+     *
+     * @param tableMask the store (one of the masks of {@link ValidatorConstants})
+     * @param email     the email address
+     * @return {@code false} if the email address is definitely not used, otherwise {@code true}
+     */
+    public boolean mightContainEmail(final int tableMask, final String email) {
+        return mightContain(key(tableMask, EMAIL, email));
+    }
+
+    /**
+     * Adds a user name that is going to be saved in the given store.
+     *
+     * @param tableMask the store (one of the masks of {@link ValidatorConstants})
+     * @param userName  the user name
+     */
+    public void addUserName(final int tableMask, final String userName) {
+        if (userName != null) {
+            add(key(tableMask, USER_NAME, userName));
+        }
+    }
+
+    /**
+     * Adds an email address that is going to be saved in the given store.
+     *
+     * @param tableMask the store (one of the masks of {@link ValidatorConstants})
+     * @param email     the email address
+     */
+    public void addEmail(final int tableMask, final String email) {
+        if (email != null) {
+            add(key(tableMask, EMAIL, email));
+        }
+    }
+
+    private static String key(final int tableMask, final String type, final String value) {
+        // LDAP compares user names and email addresses ignoring case, so the index does it, too.
+        return tableMask + ":" + type + ":" + value.toLowerCase(Locale.ENGLISH);
+    }
+
+    private boolean mightContain(final String key) {
+        final BloomFilter current = filter;
+        if (!config.isEnabled() || current == null || current.mightContain(key)) {
+            positives.incrementAndGet();
+            return true;
+        }
+        negatives.incrementAndGet();
+        return false;
+    }
+
+    private void add(final String key) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        journal.add(key);
+        final BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the stores.
+     */
+    @Scheduled(initialDelayString = "${profile.validation.availability-index.initial-delay-millis:30000}",
+            fixedDelayString = "${profile.validation.availability-index.rebuild-interval-millis:3600000}")
+    @ManagedOperation(description = "Rebuilds the index from the stores.")
+    public synchronized void rebuild() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        log.info("Rebuilding availability index ...");
+        final Queue<String> previousJournal = journal;
+        journal = new ConcurrentLinkedQueue<>();
+
+        final BloomFilter newFilter = new BloomFilter(config.getExpectedInsertions(),
+                config.getFalsePositiveProbability());
+        for (final UserRegistrationMongo entity : userRegistrationMongoRepository.findAll()) {
+            putIfPresent(newFilter, ValidatorConstants.USER_REGISTRATION_TABLE_MASK, USER_NAME, entity.getUid());
+            putIfPresent(newFilter, ValidatorConstants.USER_REGISTRATION_TABLE_MASK, EMAIL, entity.getEmail());
+        }
+        LdapConnectionScope.run(() -> {
+            try (Stream<UserProfileLdap> entities = userProfileLdapDao.streamAllUserNamesAndEmails()) {
+                entities.forEach(entity -> {
+                    putIfPresent(newFilter, ValidatorConstants.USER_TABLE_MASK, USER_NAME, entity.getUid());
+                    putIfPresent(newFilter, ValidatorConstants.USER_TABLE_MASK, EMAIL, entity.getEmail());
+                });
+            }
+        });
+        for (final OAuth2ClientMongo entity : oAuth2ClientMongoRepository.findAll()) {
+            putIfPresent(newFilter, ValidatorConstants.OAUTH2_CLIENT_TABLE_MASK, USER_NAME, entity.getClientId());
+        }
+        for (final MailChangeRequestMongo entity : mailChangeRequestMongoRepository.findAll()) {
+            putIfPresent(newFilter, ValidatorConstants.CHANGE_EMAIL_TABLE_MASK, EMAIL, entity.getNewEmail());
+        }
+
+        previousJournal.forEach(newFilter::put);
+        journal.forEach(newFilter::put);
+        filter = newFilter;
+        // Keys that were added to the old index while it was replaced are in the journal.
+        journal.forEach(newFilter::put);
+        log.info("Rebuilding availability index: DONE!");
+    }
+
+    private static void putIfPresent(final BloomFilter filter, final int tableMask, final String type,
+                                     final String value) {
+        if (value != null) {
+            filter.put(key(tableMask, type, value));
+        }
+    }
+
+    @ManagedAttribute(description = "The number of checks that were answered without asking the store.")
+    public long getNegativeCount() {
+        return negatives.get();
+    }
+
+    @ManagedAttribute(description = "The number of checks that had to be confirmed by the store.")
+    public long getPositiveCount() {
+        return positives.get();
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.validation;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.io.Serializable;
+
+/**
+ * @author Christian Bremer
+ */
+@SuppressWarnings("WeakerAccess")
+@ConfigurationProperties(prefix = "profile.validation.availability-index")
+@Data
+@NoArgsConstructor
+public class AvailabilityIndexConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The index must only be enabled, if no one else creates users, registrations or clients in the stores,
+     * because such entries are not known until the next rebuild.
+     */
+    private boolean enabled = false;
+
+    private long expectedInsertions = 100000L;
+
+    private double falsePositiveProbability = 0.01D;
+
+}
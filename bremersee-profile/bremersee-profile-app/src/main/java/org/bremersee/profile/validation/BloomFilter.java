@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.validation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe bloom filter of strings. It answers whether a string was possibly added (with the configured
+ * false positive probability) or definitely not added.
+ *
+ * @author Christian Bremer
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long numBits;
+
+    private final int numHashFunctions;
+
+    /**
+     * Creates a bloom filter with the optimal number of bits and hash functions.
+     *
+     * @param expectedInsertions        the expected number of strings
+     * @param falsePositiveProbability the false positive probability (between 0 and 1)
+     */
+    BloomFilter(final long expectedInsertions, final double falsePositiveProbability) {
+        final long n = Math.max(expectedInsertions, 1L);
+        final double p = falsePositiveProbability <= 0D || falsePositiveProbability >= 1D
+                ? 0.01D : falsePositiveProbability;
+        final long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.min((m + 63L) / 64L, Integer.MAX_VALUE));
+        this.numBits = bits.length() * 64L;
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    /**
+     * Adds the given string.
+     *
+     * @param value the string
+     */
+    void put(final String value) {
+        final long hash = hash(value);
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            final long index = index(h1, h2, i);
+            final int word = (int) (index >>> 6);
+            final long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0L && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given string was possibly added.
+     *
+     * @param value the string
+     * @return {@code false} if the string was definitely not added, otherwise {@code true}
+     */
+    boolean mightContain(final String value) {
+        final long hash = hash(value);
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            final long index = index(h1, h2, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(final int h1, final int h2, final int i) {
+        int combined = h1 + i * h2;
+        if (combined < 0) {
+            combined = ~combined;
+        }
+        return combined % numBits;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes with a final avalanche step, so that both halves of the hash are well mixed.
+     */
+    private static long hash(final String value) {
+        long h = 0xcbf29ce484222325L;
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -48,6 +48,8 @@ public class DefaultEmailValidator implements EmailValidator {
 
     private Pattern emailRegex = Pattern.compile(MailUtils.EMAIL_REGEX);
 
+    private AvailabilityIndex availabilityIndex;
+
     @SuppressWarnings("SpringJavaAutowiringInspection")
     @Autowired
     public DefaultEmailValidator(
@@ -72,6 +74,11 @@ public class DefaultEmailValidator implements EmailValidator {
         }
     }
 
+    @Autowired(required = false)
+    public void setAvailabilityIndex(final AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
     @Override
     public void validate(final String email, boolean valueRequired) {
         if (valueRequired && StringUtils.isBlank(email)) {
@@ -86,21 +93,43 @@ public class DefaultEmailValidator implements EmailValidator {
     @Override
     public void validateNew(final String email, boolean valueRequired, final int tableMask) {
         validate(email, valueRequired);
-        if (StringUtils.isBlank(email)) {
-            return;
+        if (StringUtils.isNotBlank(email) && exists(email, tableMask, false)) {
+            throw new AlreadyExistsException("User with email address [" + email + "] already exists."); // NOSONAR
         }
+    }
+
+    @Override
+    public boolean isAvailable(final String email, final int tableMask) {
+        validate(email, true);
+        return !exists(email, tableMask, true);
+    }
+
+    /**
+     * Checks whether the email exists in one of the stores. The availability index only knows the values that this
+     * instance has seen since its last rebuild, so it may only be asked, if a false negative is harmless.
+     */
+    private boolean exists(final String email, final int tableMask, final boolean useIndex) {
         if (((tableMask & ValidatorConstants.USER_REGISTRATION_TABLE_MASK) == ValidatorConstants.USER_REGISTRATION_TABLE_MASK)
+                && mightExist(ValidatorConstants.USER_REGISTRATION_TABLE_MASK, email, useIndex)
                 && userRegistrationMongoRepository.findByEmail(email) != null) {
-            throw new AlreadyExistsException("User with email address [" + email + "] already exists."); // NOSONAR
+            return true;
         }
         if (((tableMask & ValidatorConstants.CHANGE_EMAIL_TABLE_MASK) == ValidatorConstants.CHANGE_EMAIL_TABLE_MASK)
+                && mightExist(ValidatorConstants.CHANGE_EMAIL_TABLE_MASK, email, useIndex)
                 && mailChangeRequestMongoRepository.findByNewEmail(email) != null) {
-            throw new AlreadyExistsException("User with email address [" + email + "] already exists."); // NOSONAR
-        }
-        if (((tableMask & ValidatorConstants.USER_TABLE_MASK) == ValidatorConstants.USER_TABLE_MASK)
-                && userProfileLdapDao.existsByEmail(email)) {
-            throw new AlreadyExistsException("User with email address [" + email + "] already exists."); // NOSONAR
+            return true;
         }
+        return ((tableMask & ValidatorConstants.USER_TABLE_MASK) == ValidatorConstants.USER_TABLE_MASK)
+                && mightExist(ValidatorConstants.USER_TABLE_MASK, email, useIndex)
+                && userProfileLdapDao.existsByEmail(email);
+    }
+
+    /**
+     * Returns {@code false}, if the availability index should be used and knows that the email doesn't exist in
+     * the given store.
+     */
+    private boolean mightExist(final int tableMask, final String email, final boolean useIndex) {
+        return !useIndex || availabilityIndex == null || availabilityIndex.mightContainEmail(tableMask, email);
     }
 
 }
@@ -47,6 +47,8 @@ public class DefaultUserNameValidator implements UserNameValidator {
 
     private Pattern userNameRegex = Pattern.compile("^[@a-zA-Z0-9._-]{3,75}$");
 
+    private AvailabilityIndex availabilityIndex;
+
     @SuppressWarnings("SpringJavaAutowiringInspection")
     @Autowired
     public DefaultUserNameValidator(
@@ -71,6 +73,11 @@ public class DefaultUserNameValidator implements UserNameValidator {
         }
     }
 
+    @Autowired(required = false)
+    public void setAvailabilityIndex(final AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
     @Override
     public void validate(final String userName) {
         if (StringUtils.isBlank(userName)) {
@@ -85,19 +92,44 @@ public class DefaultUserNameValidator implements UserNameValidator {
     @Override
     public void validateNew(final String userName, int tableMask) {
         validate(userName);
+        if (exists(userName, tableMask, false)) {
+            throw getAlreadyExistsException(userName);
+        }
+    }
+
+    @Override
+    public boolean isAvailable(final String userName, final int tableMask) {
+        validate(userName);
+        return !exists(userName, tableMask, true);
+    }
+
+    /**
+     * Checks whether the user name exists in one of the stores. The availability index only knows the values that
+     * this instance has seen since its last rebuild, so it may only be asked, if a false negative is harmless.
+     */
+    private boolean exists(final String userName, final int tableMask, final boolean useIndex) {
         if (((tableMask
                 & ValidatorConstants.USER_REGISTRATION_TABLE_MASK) == ValidatorConstants.USER_REGISTRATION_TABLE_MASK)
+                && mightExist(ValidatorConstants.USER_REGISTRATION_TABLE_MASK, userName, useIndex)
                 && userRegistrationMongoRepository.findByUid(userName) != null) {
-            throw getAlreadyExistsException(userName);
+            return true;
         }
         if (((tableMask & ValidatorConstants.USER_TABLE_MASK) == ValidatorConstants.USER_TABLE_MASK)
+                && mightExist(ValidatorConstants.USER_TABLE_MASK, userName, useIndex)
                 && userProfileLdapDao.existsByUserName(userName)) {
-            throw getAlreadyExistsException(userName);
-        }
-        if (((tableMask & ValidatorConstants.OAUTH2_CLIENT_TABLE_MASK) == ValidatorConstants.OAUTH2_CLIENT_TABLE_MASK)
-                && oAuth2ClientMongoRepository.findByClientId(userName) != null) {
-            throw getAlreadyExistsException(userName);
+            return true;
         }
+        return ((tableMask & ValidatorConstants.OAUTH2_CLIENT_TABLE_MASK) == ValidatorConstants.OAUTH2_CLIENT_TABLE_MASK)
+                && mightExist(ValidatorConstants.OAUTH2_CLIENT_TABLE_MASK, userName, useIndex)
+                && oAuth2ClientMongoRepository.findByClientId(userName) != null;
+    }
+
+    /**
+     * Returns {@code false}, if the availability index should be used and knows that the user name doesn't exist in
+     * the given store.
+     */
+    private boolean mightExist(final int tableMask, final String userName, final boolean useIndex) {
+        return !useIndex || availabilityIndex == null || availabilityIndex.mightContainUserName(tableMask, userName);
     }
 
     private AlreadyExistsException getAlreadyExistsException(final String userName) {
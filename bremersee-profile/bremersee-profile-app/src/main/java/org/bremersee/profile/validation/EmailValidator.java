@@ -25,4 +25,14 @@ public interface EmailValidator {
 
     void validateNew(String email, boolean valueRequired, int tableMask);
 
+    /**
+     * Checks whether the email is available. Unlike {@link #validateNew(String, boolean, int)} the answer may be
+     * served by the availability index, so it is only a hint for the user and not a guarantee for a write.
+     *
+     * @param email     the email
+     * @param tableMask the stores (see {@link ValidatorConstants})
+     * @return {@code true} if the email is available, otherwise {@code false}
+     */
+    boolean isAvailable(String email, int tableMask);
+
 }
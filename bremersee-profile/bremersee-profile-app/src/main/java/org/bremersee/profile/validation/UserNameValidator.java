@@ -28,4 +28,15 @@ public interface UserNameValidator {
 
     void validateNew(String userName, int tableMask) throws BadUserNameException, AlreadyExistsException; // NOSONAR
 
+    /**
+     * Checks whether the user name is available. Unlike {@link #validateNew(String, int)} the answer may be
+     * served by the availability index, so it is only a hint for the user and not a guarantee for a write.
+     *
+     * @param userName  the user name
+     * @param tableMask the stores (see {@link ValidatorConstants})
+     * @return {@code true} if the user name is available, otherwise {@code false}
+     * @throws BadUserNameException if the user name is invalid
+     */
+    boolean isAvailable(String userName, int tableMask) throws BadUserNameException; // NOSONAR
+
 }
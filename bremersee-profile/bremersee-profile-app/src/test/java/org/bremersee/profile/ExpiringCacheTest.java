@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Christian Bremer
+ */
+public class ExpiringCacheTest {
+
+    private static ExpiringCache<String, String> newCache(final long timeToLiveSeconds, final int maxSize) {
+        // the values are indexed by the part before the colon
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(value -> value.split(":")[0]);
+        cache.setTimeToLiveSeconds(timeToLiveSeconds);
+        cache.setMaxSize(maxSize);
+        return cache;
+    }
+
+    @Test
+    public void get() throws Exception {
+        System.out.println("Testing 'get' on ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(60L, 10);
+        final AtomicInteger loads = new AtomicInteger();
+        TestCase.assertEquals("a:1", cache.get("1", key -> "a:" + loads.incrementAndGet()));
+        TestCase.assertEquals("a:1", cache.get("1", key -> "a:" + loads.incrementAndGet()));
+        TestCase.assertEquals(1, loads.get());
+        TestCase.assertEquals(1L, cache.getHitCount());
+        TestCase.assertEquals(1L, cache.getMissCount());
+        System.out.println("Testing 'get' on ExpiringCache ... DONE!");
+    }
+
+    @Test
+    public void timeToLive() throws Exception {
+        System.out.println("Testing time to live of ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(1L, 10);
+        final AtomicInteger loads = new AtomicInteger();
+        cache.get("1", key -> "a:" + loads.incrementAndGet());
+        TestCase.assertEquals("a:1", cache.get("1", key -> "a:" + loads.incrementAndGet()));
+        Thread.sleep(1100L);
+        TestCase.assertEquals("a:2", cache.get("1", key -> "a:" + loads.incrementAndGet()));
+        System.out.println("Testing time to live of ExpiringCache ... DONE!");
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        System.out.println("Testing eviction of ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(60L, 10);
+        for (int i = 0; i < 10; i++) {
+            cache.get("key" + i, key -> "a:" + key);
+            Thread.sleep(2L);
+        }
+        TestCase.assertEquals(10, cache.getSize());
+        // key0 is now the most recently used entry, key1 the least recently used
+        cache.get("key0", key -> "b:" + key);
+        Thread.sleep(2L);
+        cache.get("key10", key -> "a:" + key);
+        TestCase.assertTrue(cache.getSize() <= 10);
+        TestCase.assertTrue(cache.getEvictionCount() > 0L);
+        TestCase.assertEquals("a:key0", cache.get("key0", key -> "b:" + key));
+        TestCase.assertEquals("a:key10", cache.get("key10", key -> "b:" + key));
+        TestCase.assertEquals("b:key1", cache.get("key1", key -> "b:" + key));
+        System.out.println("Testing eviction of ExpiringCache ... DONE!");
+    }
+
+    @Test
+    public void removeByIndex() throws Exception {
+        System.out.println("Testing 'removeByIndex' on ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(60L, 10);
+        cache.get("anna", key -> "a:anna");
+        cache.get("anna@example.org", key -> "a:anna@example.org");
+        cache.get("bert", key -> "b:bert");
+        cache.removeByIndex(Arrays.asList("a", "c"));
+        TestCase.assertEquals(1, cache.getSize());
+        TestCase.assertEquals("b:bert", cache.get("bert", key -> "x:" + key));
+        TestCase.assertEquals("x:anna", cache.get("anna", key -> "x:" + key));
+        System.out.println("Testing 'removeByIndex' on ExpiringCache ... DONE!");
+    }
+
+    @Test
+    public void removeWhileLoading() throws Exception {
+        System.out.println("Testing 'remove' while loading on ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(60L, 10);
+        // the value is removed while it is loaded, so the loaded value is stale and must not be cached
+        TestCase.assertEquals("a:1", cache.get("1", key -> {
+            cache.remove(key);
+            return "a:1";
+        }));
+        TestCase.assertEquals(0, cache.getSize());
+        TestCase.assertEquals("a:2", cache.get("1", key -> "a:2"));
+        TestCase.assertEquals("a:2", cache.get("1", key -> "a:3"));
+        System.out.println("Testing 'remove' while loading on ExpiringCache ... DONE!");
+    }
+
+    @Test
+    public void removeByIndexWhileLoading() throws Exception {
+        System.out.println("Testing 'removeByIndex' while loading on ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(60L, 10);
+        TestCase.assertEquals("a:1", cache.get("1", key -> {
+            cache.removeByIndex(Collections.singleton("a"));
+            return "a:1";
+        }));
+        TestCase.assertEquals(0, cache.getSize());
+        System.out.println("Testing 'removeByIndex' while loading on ExpiringCache ... DONE!");
+    }
+
+    @Test
+    public void removeOtherKeyWhileLoading() throws Exception {
+        System.out.println("Testing 'remove' of another key while loading on ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(60L, 10);
+        // removing other keys doesn't discard the load
+        TestCase.assertEquals("a:1", cache.get("1", key -> {
+            cache.remove("2");
+            cache.removeByIndex(Collections.singleton("b"));
+            return "a:1";
+        }));
+        TestCase.assertEquals("a:1", cache.get("1", key -> "a:2"));
+        System.out.println("Testing 'remove' of another key while loading on ExpiringCache ... DONE!");
+    }
+
+    @Test
+    public void clear() throws Exception {
+        System.out.println("Testing 'clear' on ExpiringCache ...");
+        final ExpiringCache<String, String> cache = newCache(60L, 10);
+        cache.get("1", key -> "a:1");
+        cache.clear();
+        TestCase.assertEquals(0, cache.getSize());
+        TestCase.assertEquals("a:2", cache.get("1", key -> "a:2"));
+        TestCase.assertEquals("a:2", cache.get("1", key -> "a:3"));
+        System.out.println("Testing 'clear' on ExpiringCache ... DONE!");
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of signing (token endpoint) and verifying (resource server) JWTs with the supported
+ * key types. Run the main method to execute the benchmark.
+ *
+ * @author Christian Bremer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+    @Param({"RS256", "ES256"})
+    private String algorithm;
+
+    private JwtAccessTokenConverter converter;
+
+    private JwtTokenStore tokenStore;
+
+    private OAuth2Authentication authentication;
+
+    private String tokenValue;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator;
+        if ("ES256".equals(algorithm)) {
+            generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        } else {
+            generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+        }
+        converter = new JwtAccessTokenConverter();
+        Application.AuthorizationServerConfiguration.setKeyPair(converter, generator.generateKeyPair());
+        converter.afterPropertiesSet();
+        tokenStore = new JwtTokenStore(converter);
+
+        OAuth2Request request = new OAuth2Request(
+                Collections.emptyMap(), "benchmark", AuthorityUtils.createAuthorityList("ROLE_CLIENT"), true,
+                new HashSet<>(Arrays.asList("read", "write")), null, null, null, null);
+        authentication = new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken(
+                "anna", "N/A", AuthorityUtils.createAuthorityList("ROLE_USER")));
+        tokenValue = createToken().getValue();
+    }
+
+    @Benchmark
+    public OAuth2AccessToken sign() {
+        return createToken();
+    }
+
+    @Benchmark
+    public OAuth2AccessToken verify() {
+        return tokenStore.readAccessToken(tokenValue);
+    }
+
+    private OAuth2AccessToken createToken() {
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+        token.setExpiration(new Date(System.currentTimeMillis() + 3600000L));
+        token.setScope(authentication.getOAuth2Request().getScope());
+        return converter.enhance(token, authentication);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtSigningBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
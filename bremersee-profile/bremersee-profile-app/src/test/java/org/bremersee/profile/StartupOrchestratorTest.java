@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Christian Bremer
+ */
+public class StartupOrchestratorTest {
+
+    private final List<String> initialized = Collections.synchronizedList(new ArrayList<>());
+
+    private static StartupOrchestrator newOrchestrator(final ApplicationContext applicationContext,
+                                                       final StartupInitializer... initializers) {
+        final StartupOrchestrator orchestrator = new StartupOrchestrator();
+        orchestrator.setApplicationContext(applicationContext);
+        orchestrator.setInitializers(Arrays.asList(initializers));
+        return orchestrator;
+    }
+
+    private static Map<String, String> startAndAwait(final StartupOrchestrator orchestrator,
+                                                     final ApplicationContext applicationContext)
+            throws InterruptedException {
+        orchestrator.onContextRefreshed(new ContextRefreshedEvent(applicationContext));
+        final long timeout = System.currentTimeMillis() + 10000L;
+        Map<String, String> report = orchestrator.getInitializerReport();
+        while (isRunning(report) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+            report = orchestrator.getInitializerReport();
+        }
+        TestCase.assertFalse("Initializers are still running: " + report, isRunning(report));
+        return report;
+    }
+
+    private static boolean isRunning(final Map<String, String> report) {
+        return report.values().stream().anyMatch(state -> state.startsWith(StartupOrchestrator.State.PENDING.name())
+                || state.startsWith(StartupOrchestrator.State.RUNNING.name()));
+    }
+
+    private static boolean hasState(final Map<String, String> report, final String name,
+                                    final StartupOrchestrator.State state) {
+        return report.get(name).startsWith(state.name());
+    }
+
+    @Test
+    public void sortByDependencies() throws Exception {
+        System.out.println("Testing dependency order of StartupOrchestrator ...");
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        // the dependents are registered before their dependencies
+        final StartupOrchestrator orchestrator = newOrchestrator(applicationContext,
+                new TestInitializer("profiles", "roles", "domains"),
+                new TestInitializer("groups", "profiles"),
+                new TestInitializer("roles"),
+                new TestInitializer("domains", "roles"));
+        final Map<String, String> report = startAndAwait(orchestrator, applicationContext);
+        TestCase.assertEquals(4, initialized.size());
+        TestCase.assertTrue(initialized.indexOf("roles") < initialized.indexOf("domains"));
+        TestCase.assertTrue(initialized.indexOf("domains") < initialized.indexOf("profiles"));
+        TestCase.assertTrue(initialized.indexOf("roles") < initialized.indexOf("profiles"));
+        TestCase.assertTrue(initialized.indexOf("profiles") < initialized.indexOf("groups"));
+        for (final String name : Arrays.asList("roles", "domains", "profiles", "groups")) {
+            TestCase.assertTrue(hasState(report, name, StartupOrchestrator.State.DONE));
+        }
+        TestCase.assertTrue(orchestrator.isReady());
+        System.out.println("Testing dependency order of StartupOrchestrator ... DONE!");
+    }
+
+    @Test
+    public void rejectCycle() throws Exception {
+        System.out.println("Testing cyclic dependencies of StartupOrchestrator ...");
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        final StartupOrchestrator orchestrator = newOrchestrator(applicationContext,
+                new TestInitializer("a", "c"),
+                new TestInitializer("b", "a"),
+                new TestInitializer("c", "b"));
+        try {
+            orchestrator.onContextRefreshed(new ContextRefreshedEvent(applicationContext));
+            TestCase.fail("Cyclic dependencies must be rejected.");
+        } catch (IllegalStateException e) {
+            TestCase.assertTrue(initialized.isEmpty());
+        }
+        System.out.println("Testing cyclic dependencies of StartupOrchestrator ... DONE!");
+    }
+
+    @Test
+    public void rejectUnknownDependency() throws Exception {
+        System.out.println("Testing unknown dependency of StartupOrchestrator ...");
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        final StartupOrchestrator orchestrator = newOrchestrator(applicationContext,
+                new TestInitializer("a"),
+                new TestInitializer("b", "unknown"));
+        try {
+            orchestrator.onContextRefreshed(new ContextRefreshedEvent(applicationContext));
+            TestCase.fail("An unknown dependency must be rejected.");
+        } catch (IllegalStateException e) {
+            TestCase.assertTrue(initialized.isEmpty());
+        }
+        System.out.println("Testing unknown dependency of StartupOrchestrator ... DONE!");
+    }
+
+    @Test
+    public void failedDependency() throws Exception {
+        System.out.println("Testing failed dependency of StartupOrchestrator ...");
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        final StartupOrchestrator orchestrator = newOrchestrator(applicationContext,
+                new TestInitializer("roles").failing(),
+                new TestInitializer("profiles", "roles"),
+                new TestInitializer("groups", "profiles"),
+                new TestInitializer("clients"));
+        final Map<String, String> report = startAndAwait(orchestrator, applicationContext);
+        TestCase.assertTrue(hasState(report, "roles", StartupOrchestrator.State.FAILED));
+        // the dependents are never run
+        TestCase.assertTrue(hasState(report, "profiles", StartupOrchestrator.State.FAILED));
+        TestCase.assertTrue(hasState(report, "groups", StartupOrchestrator.State.FAILED));
+        TestCase.assertFalse(initialized.contains("profiles"));
+        TestCase.assertFalse(initialized.contains("groups"));
+        // independent initializers are run anyway
+        TestCase.assertTrue(hasState(report, "clients", StartupOrchestrator.State.DONE));
+        TestCase.assertFalse(orchestrator.isReady());
+        System.out.println("Testing failed dependency of StartupOrchestrator ... DONE!");
+    }
+
+    @Test
+    public void isReadyIgnoresNonCriticalInitializers() throws Exception {
+        System.out.println("Testing 'isReady' with non critical initializers of StartupOrchestrator ...");
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        final StartupOrchestrator orchestrator = newOrchestrator(applicationContext,
+                new TestInitializer("roles"),
+                new TestInitializer("index").failing().notCritical());
+        TestCase.assertFalse(orchestrator.isReady());
+        final Map<String, String> report = startAndAwait(orchestrator, applicationContext);
+        TestCase.assertTrue(hasState(report, "index", StartupOrchestrator.State.FAILED));
+        TestCase.assertTrue(orchestrator.isReady());
+        System.out.println("Testing 'isReady' with non critical initializers of StartupOrchestrator ... DONE!");
+    }
+
+    @Test
+    public void ignoreOtherContext() throws Exception {
+        System.out.println("Testing refresh of another context on StartupOrchestrator ...");
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        final StartupOrchestrator orchestrator = newOrchestrator(applicationContext, new TestInitializer("roles"));
+        orchestrator.onContextRefreshed(new ContextRefreshedEvent(Mockito.mock(ApplicationContext.class)));
+        Thread.sleep(100L);
+        TestCase.assertTrue(initialized.isEmpty());
+        TestCase.assertTrue(hasState(orchestrator.getInitializerReport(), "roles",
+                StartupOrchestrator.State.PENDING));
+        System.out.println("Testing refresh of another context on StartupOrchestrator ... DONE!");
+    }
+
+    private class TestInitializer implements StartupInitializer {
+
+        private final String name;
+
+        private final Collection<String> dependencies;
+
+        private boolean failing;
+
+        private boolean critical = true;
+
+        TestInitializer(final String name, final String... dependencies) {
+            this.name = name;
+            this.dependencies = Arrays.asList(dependencies);
+        }
+
+        TestInitializer failing() {
+            this.failing = true;
+            return this;
+        }
+
+        TestInitializer notCritical() {
+            this.critical = false;
+            return this;
+        }
+
+        @Override
+        public String getInitializerName() {
+            return name;
+        }
+
+        @Override
+        public Collection<String> getInitializerDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public boolean isCriticalInitializer() {
+            return critical;
+        }
+
+        @Override
+        public void initialize() {
+            if (failing) {
+                throw new IllegalStateException("Initializer [" + name + "] failed.");
+            }
+            initialized.add(name);
+        }
+    }
+
+}
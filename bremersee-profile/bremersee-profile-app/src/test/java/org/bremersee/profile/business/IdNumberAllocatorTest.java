@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.business;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Christian Bremer
+ */
+public class IdNumberAllocatorTest {
+
+    @Test
+    public void nextWithinBlock() throws Exception {
+        System.out.println("Testing 'next' within one block ...");
+        final AtomicInteger reservations = new AtomicInteger();
+        final IdNumberAllocator allocator = new IdNumberAllocator(blockSize -> {
+            reservations.incrementAndGet();
+            return 10000L;
+        }, 5L);
+        for (long i = 10000L; i < 10005L; i++) {
+            TestCase.assertEquals(i, allocator.next());
+        }
+        TestCase.assertEquals(1, reservations.get());
+        System.out.println("Testing 'next' within one block ... DONE!");
+    }
+
+    @Test
+    public void nextReservesNextBlock() throws Exception {
+        System.out.println("Testing 'next' reserves the next block ...");
+        final AtomicLong directory = new AtomicLong(10000L);
+        final IdNumberAllocator allocator = new IdNumberAllocator(blockSize -> {
+            // another node has reserved a block in the meantime
+            directory.addAndGet(blockSize);
+            return directory.getAndAdd(blockSize);
+        }, 3L);
+        TestCase.assertEquals(10003L, allocator.next());
+        TestCase.assertEquals(10004L, allocator.next());
+        TestCase.assertEquals(10005L, allocator.next());
+        TestCase.assertEquals(10009L, allocator.next());
+        System.out.println("Testing 'next' reserves the next block ... DONE!");
+    }
+
+    @Test
+    public void nextConcurrently() throws Exception {
+        System.out.println("Testing 'next' concurrently ...");
+        final long blockSize = 7L;
+        final int threads = 8;
+        final int numbersPerThread = 7 * 250;
+        final AtomicLong directory = new AtomicLong(10000L);
+        final AtomicInteger concurrentReservations = new AtomicInteger();
+        final AtomicInteger maxConcurrentReservations = new AtomicInteger();
+        final IdNumberAllocator allocator = new IdNumberAllocator(size -> {
+            final int concurrent = concurrentReservations.incrementAndGet();
+            maxConcurrentReservations.accumulateAndGet(concurrent, Math::max);
+            try {
+                return directory.getAndAdd(size);
+            } finally {
+                concurrentReservations.decrementAndGet();
+            }
+        }, blockSize);
+
+        final Set<Long> numbers = ConcurrentHashMap.newKeySet();
+        final AtomicInteger duplicates = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < numbersPerThread; i++) {
+                        if (!numbers.add(allocator.next())) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(30L, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final long total = (long) threads * numbersPerThread;
+        TestCase.assertEquals(0, duplicates.get());
+        TestCase.assertEquals(1, maxConcurrentReservations.get());
+        TestCase.assertEquals(total, numbers.size());
+        // the numbers of a multiple of the block size fill the reserved blocks without gaps
+        TestCase.assertEquals(10000L + total, directory.get());
+        for (long i = 10000L; i < 10000L + total; i++) {
+            TestCase.assertTrue("Missing number " + i, numbers.contains(i));
+        }
+        System.out.println("Testing 'next' concurrently ... DONE!");
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.ldap.dao;
+
+import junit.framework.TestCase;
+import org.bremersee.profile.Application;
+import org.bremersee.profile.domain.ldap.entity.RoleLdap;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.ldaptive.ResultCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Collections;
+
+/**
+ * Tests the membership checks of roles against the embedded LDAP server.
+ *
+ * @author Christian Bremer
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(
+        classes = Application.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class RoleLdapDaoImplTest {
+
+    private static final String ROLE_NAME = "ROLE_COMPARE_TEST";
+
+    @Autowired
+    private RoleLdapDao roleLdapDao;
+
+    @After
+    public void cleanUp() {
+        if (roleLdapDao.existsByName(ROLE_NAME)) {
+            roleLdapDao.deleteByName(ROLE_NAME);
+        }
+    }
+
+    @Test
+    public void hasRoleWithoutOccupant() throws Exception {
+        System.out.println("Testing 'hasRole' of a role without occupant ...");
+        final RoleLdap role = new RoleLdap();
+        role.setName(ROLE_NAME);
+        roleLdapDao.save(role);
+        TestCase.assertTrue(roleLdapDao.getMembers(ROLE_NAME).isEmpty());
+        TestCase.assertFalse(roleLdapDao.hasRole("anna", ROLE_NAME));
+
+        roleLdapDao.addMembers(ROLE_NAME, Collections.singleton("anna"));
+        TestCase.assertTrue(roleLdapDao.hasRole("anna", ROLE_NAME));
+        TestCase.assertFalse(roleLdapDao.hasRole("bert", ROLE_NAME));
+        System.out.println("Testing 'hasRole' of a role without occupant ... DONE!");
+    }
+
+    @Test
+    public void hasRoleOfMissingRole() throws Exception {
+        System.out.println("Testing 'hasRole' of a missing role ...");
+        TestCase.assertFalse(roleLdapDao.hasRole("anna", ROLE_NAME));
+        System.out.println("Testing 'hasRole' of a missing role ... DONE!");
+    }
+
+    @Test
+    public void isNoCompareMatch() throws Exception {
+        System.out.println("Testing 'isNoCompareMatch' ...");
+        // the embedded server answers with compareFalse, OpenLDAP with noSuchAttribute
+        TestCase.assertTrue(AbstractLdapDaoImpl.isNoCompareMatch(ResultCode.NO_SUCH_OBJECT));
+        TestCase.assertTrue(AbstractLdapDaoImpl.isNoCompareMatch(ResultCode.NO_SUCH_ATTRIBUTE));
+        TestCase.assertTrue(AbstractLdapDaoImpl.isNoCompareMatch(ResultCode.UNDEFINED_ATTRIBUTE_TYPE));
+        TestCase.assertFalse(AbstractLdapDaoImpl.isNoCompareMatch(ResultCode.BUSY));
+        TestCase.assertFalse(AbstractLdapDaoImpl.isNoCompareMatch(ResultCode.INVALID_CREDENTIALS));
+        System.out.println("Testing 'isNoCompareMatch' ... DONE!");
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.ldap.dao;
+
+import junit.framework.TestCase;
+import org.bremersee.common.exception.InternalServerError;
+import org.bremersee.profile.Application;
+import org.bremersee.profile.domain.ldap.entity.SambaDomainLdap;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the reservation of uid and gid numbers against the embedded LDAP server.
+ *
+ * @author Christian Bremer
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(
+        classes = Application.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SambaDomainLdapDaoImplTest {
+
+    private static final String SAMBA_DOMAIN_NAME = "IDPOOLTEST";
+
+    @Autowired
+    private SambaDomainLdapDao sambaDomainLdapDao;
+
+    @After
+    public void cleanUp() {
+        if (sambaDomainLdapDao.existsBySambaDomainName(SAMBA_DOMAIN_NAME)) {
+            sambaDomainLdapDao.deleteBySambaDomainName(SAMBA_DOMAIN_NAME);
+        }
+    }
+
+    private void createSambaDomain(final Long uidNumber, final Long gidNumber) {
+        final SambaDomainLdap entity = new SambaDomainLdap();
+        entity.setSambaDomainName(SAMBA_DOMAIN_NAME);
+        entity.setSambaSID("S-1-5-21-1111111111-2222222222-333333333");
+        entity.setUidNumber(uidNumber);
+        entity.setGidNumber(gidNumber);
+        sambaDomainLdapDao.save(entity);
+    }
+
+    @Test
+    public void reserveIdNumbers() throws Exception {
+        System.out.println("Testing 'reserveIdNumbers' ...");
+        createSambaDomain(20000L, 30000L);
+        TestCase.assertEquals(Long.valueOf(20000L),
+                sambaDomainLdapDao.reserveIdNumbers(SAMBA_DOMAIN_NAME, "uidNumber", 10L));
+        TestCase.assertEquals(Long.valueOf(20010L),
+                sambaDomainLdapDao.reserveIdNumbers(SAMBA_DOMAIN_NAME, "uidNumber", 5L));
+        TestCase.assertEquals(Long.valueOf(30000L),
+                sambaDomainLdapDao.reserveIdNumbers(SAMBA_DOMAIN_NAME, "gidNumber", 10L));
+        final SambaDomainLdap entity = sambaDomainLdapDao.findBySambaDomainName(SAMBA_DOMAIN_NAME);
+        TestCase.assertEquals(Long.valueOf(20015L), entity.getUidNumber());
+        TestCase.assertEquals(Long.valueOf(30010L), entity.getGidNumber());
+        System.out.println("Testing 'reserveIdNumbers' ... DONE!");
+    }
+
+    @Test
+    public void reserveIdNumbersWithoutIdPool() throws Exception {
+        System.out.println("Testing 'reserveIdNumbers' without id pool ...");
+        createSambaDomain(null, null);
+        TestCase.assertEquals(Long.valueOf(10000L),
+                sambaDomainLdapDao.reserveIdNumbers(SAMBA_DOMAIN_NAME, "gidNumber", 10L));
+        final SambaDomainLdap entity = sambaDomainLdapDao.findBySambaDomainName(SAMBA_DOMAIN_NAME);
+        TestCase.assertEquals(Long.valueOf(10000L), entity.getUidNumber());
+        TestCase.assertEquals(Long.valueOf(10010L), entity.getGidNumber());
+        System.out.println("Testing 'reserveIdNumbers' without id pool ... DONE!");
+    }
+
+    @Test
+    public void reserveIdNumbersOfMissingSambaDomain() throws Exception {
+        System.out.println("Testing 'reserveIdNumbers' of a missing samba domain ...");
+        TestCase.assertNull(sambaDomainLdapDao.reserveIdNumbers(SAMBA_DOMAIN_NAME, "uidNumber", 10L));
+        System.out.println("Testing 'reserveIdNumbers' of a missing samba domain ... DONE!");
+    }
+
+    @Test
+    public void reserveIdNumbersConcurrently() throws Exception {
+        System.out.println("Testing 'reserveIdNumbers' concurrently ...");
+        createSambaDomain(10000L, 10000L);
+        final long blockSize = 10L;
+        final int threads = 4;
+        final int reservationsPerThread = 25;
+        final List<Long> firstNumbers = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < reservationsPerThread; i++) {
+                        // concurrent reservations make the compare and swap fail and retry
+                        try {
+                            firstNumbers.add(sambaDomainLdapDao.reserveIdNumbers(SAMBA_DOMAIN_NAME, "uidNumber",
+                                    blockSize));
+                        } catch (final InternalServerError e) {
+                            // all retries failed, nothing was reserved
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(60L, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final int reservations = firstNumbers.size();
+        TestCase.assertEquals(threads * reservationsPerThread, reservations + failures.get());
+        TestCase.assertTrue(reservations > 0);
+        Collections.sort(firstNumbers);
+        for (int i = 0; i < reservations; i++) {
+            // the reserved blocks neither overlap nor leave gaps
+            TestCase.assertEquals(Long.valueOf(10000L + i * blockSize), firstNumbers.get(i));
+        }
+        final SambaDomainLdap entity = sambaDomainLdapDao.findBySambaDomainName(SAMBA_DOMAIN_NAME);
+        TestCase.assertEquals(Long.valueOf(10000L + reservations * blockSize), entity.getUidNumber());
+        System.out.println("Testing 'reserveIdNumbers' concurrently ... DONE!");
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.entity;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Christian Bremer
+ */
+public class SearchKeysTest {
+
+    private static Searchable searchable(final String... values) {
+        return new Searchable() {
+
+            private List<String> searchKeys;
+
+            @Override
+            public List<String> searchableValues() {
+                return Arrays.asList(values);
+            }
+
+            @Override
+            public List<String> getSearchKeys() {
+                return searchKeys;
+            }
+
+            @Override
+            public void setSearchKeys(final List<String> searchKeys) {
+                this.searchKeys = searchKeys;
+            }
+        };
+    }
+
+    private static boolean matches(final Searchable searchable, final String query) {
+        final List<String> queryKeys = SearchKeys.createQueryKeys(query);
+        return !queryKeys.isEmpty() && SearchKeys.create(searchable).containsAll(queryKeys);
+    }
+
+    @Test
+    public void normalize() throws Exception {
+        System.out.println("Testing 'normalize' of SearchKeys ...");
+        TestCase.assertEquals("asa nunez", SearchKeys.normalize("  \u00c5sa \u00d1\u00fa\u00f1ez "));
+        TestCase.assertEquals("zoe", SearchKeys.normalize("ZO\u00cb"));
+        TestCase.assertEquals("", SearchKeys.normalize(null));
+        System.out.println("Testing 'normalize' of SearchKeys ... DONE!");
+    }
+
+    @Test
+    public void createWithDiacritics() throws Exception {
+        System.out.println("Testing 'create' with diacritics of SearchKeys ...");
+        final List<String> keys = SearchKeys.create(searchable("Zo\u00eb", null, "M\u00fcller"));
+        TestCase.assertTrue(keys.containsAll(Arrays.asList("a:z", "a:zo", "a:zoe", "t:zoe", "t:m", "t:muller")));
+        TestCase.assertFalse(keys.contains("a:zo\u00eb"));
+        TestCase.assertTrue(matches(searchable("Zo\u00eb"), "zoe"));
+        TestCase.assertTrue(matches(searchable("Zoe"), "Zo\u00eb"));
+        System.out.println("Testing 'create' with diacritics of SearchKeys ... DONE!");
+    }
+
+    @Test
+    public void createWithSeparators() throws Exception {
+        System.out.println("Testing 'create' with separators of SearchKeys ...");
+        final List<String> keys = SearchKeys.create(searchable("Jean-Luc O'Neil", "jl@example.org"));
+        TestCase.assertTrue(keys.containsAll(Arrays.asList("t:jean", "t:luc", "t:o", "t:neil", "t:jl",
+                "t:example", "t:org", "a:jean-luc o'neil")));
+        TestCase.assertFalse(keys.contains("t:-"));
+        TestCase.assertFalse(keys.contains("t:jean-luc"));
+        TestCase.assertEquals(Arrays.asList("t:jean", "t:luc", "t:o", "t:neil"),
+                SearchKeys.createQueryKeys("  jean--luc   o'neil "));
+        TestCase.assertEquals(Collections.singletonList("t:luc"), SearchKeys.createQueryKeys("luc LUC"));
+        TestCase.assertTrue(SearchKeys.createQueryKeys(" -- ").isEmpty());
+        TestCase.assertTrue(matches(searchable("Jean-Luc"), "luc jean"));
+        TestCase.assertFalse(matches(searchable("Jean-Luc"), "luc paul"));
+        System.out.println("Testing 'create' with separators of SearchKeys ... DONE!");
+    }
+
+    @Test
+    public void truncateLongPrefixes() throws Exception {
+        System.out.println("Testing truncation of long prefixes of SearchKeys ...");
+        final String value = "abcdefghijklmnopqrstuvwxyz";
+        final String truncated = value.substring(0, SearchKeys.MAX_PREFIX_LENGTH);
+        final List<String> keys = SearchKeys.create(searchable(value));
+        TestCase.assertTrue(keys.contains("t:" + truncated));
+        TestCase.assertTrue(keys.contains("a:" + truncated));
+        TestCase.assertFalse(keys.contains("t:" + value.substring(0, SearchKeys.MAX_PREFIX_LENGTH + 1)));
+        TestCase.assertEquals(2 * SearchKeys.MAX_PREFIX_LENGTH, keys.size());
+        TestCase.assertEquals(Collections.singletonList("t:" + truncated), SearchKeys.createQueryKeys(value));
+        // a longer query term matches all values with the same prefix
+        TestCase.assertTrue(matches(searchable(value), value));
+        TestCase.assertTrue(matches(searchable(truncated + "123"), value));
+        System.out.println("Testing truncation of long prefixes of SearchKeys ... DONE!");
+    }
+
+    @Test
+    public void anchoredQuery() throws Exception {
+        System.out.println("Testing anchored query of SearchKeys ...");
+        TestCase.assertEquals(Collections.singletonList("a:jean l"), SearchKeys.createQueryKeys("^Jean L"));
+        TestCase.assertTrue(SearchKeys.createQueryKeys("^").isEmpty());
+        TestCase.assertTrue(matches(searchable("Jean-Luc", "Picard"), "^jean-l"));
+        TestCase.assertTrue(matches(searchable("Jean-Luc", "Picard"), "^pic"));
+        // the anchored query must be the prefix of a whole value
+        TestCase.assertFalse(matches(searchable("Jean-Luc", "Picard"), "^luc"));
+        TestCase.assertTrue(matches(searchable("Jean-Luc", "Picard"), "luc"));
+        System.out.println("Testing anchored query of SearchKeys ... DONE!");
+    }
+
+    @Test
+    public void rank() throws Exception {
+        System.out.println("Testing 'rank' of SearchKeys ...");
+        final Searchable exactFirst = searchable("anna", "Smith", "Bea", null);
+        final Searchable exactThird = searchable("bert", null, "Anna", null);
+        final Searchable prefixFirst = searchable("annabel", null, null, null);
+        final Searchable tokenSecond = searchable("carl", "Meyer-Anna", null, null);
+        final Searchable tokenFourth = searchable("dora", null, null, "dora.anna@example.org");
+        final long exactFirstRank = SearchKeys.rank(exactFirst, "Anna");
+        final long exactThirdRank = SearchKeys.rank(exactThird, "Anna");
+        final long prefixFirstRank = SearchKeys.rank(prefixFirst, "Anna");
+        final long tokenSecondRank = SearchKeys.rank(tokenSecond, "Anna");
+        final long tokenFourthRank = SearchKeys.rank(tokenFourth, "Anna");
+        TestCase.assertTrue(exactFirstRank > exactThirdRank);
+        TestCase.assertTrue(exactThirdRank > prefixFirstRank);
+        TestCase.assertTrue(prefixFirstRank > tokenSecondRank);
+        TestCase.assertTrue(tokenSecondRank > tokenFourthRank);
+        TestCase.assertTrue(tokenFourthRank > 0L);
+        // an anchored query is ranked like the plain one
+        TestCase.assertEquals(exactFirstRank, SearchKeys.rank(exactFirst, "^anna"));
+        TestCase.assertEquals(0L, SearchKeys.rank(searchable("bert", null, null, null), "anna"));
+        System.out.println("Testing 'rank' of SearchKeys ... DONE!");
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import junit.framework.TestCase;
+import org.bremersee.common.exception.BadRequestException;
+import org.bremersee.profile.domain.mongodb.entity.UserProfileMongo;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Christian Bremer
+ */
+public class AbstractMongoRepositoryImplTest {
+
+    private MongoOperations mongoOperations;
+
+    private UserProfileMongoRepositoryImpl repository;
+
+    @Before
+    public void init() {
+        mongoOperations = Mockito.mock(MongoOperations.class);
+        repository = new UserProfileMongoRepositoryImpl();
+        repository.setMongoOperations(mongoOperations);
+    }
+
+    private static UserProfileMongo userProfile(final long id, final String uid, final String lastName,
+                                                final String firstName, final String email) {
+        final UserProfileMongo entity = new UserProfileMongo();
+        entity.setId(BigInteger.valueOf(id));
+        entity.setUid(uid);
+        entity.setLastName(lastName);
+        entity.setFirstName(firstName);
+        entity.setEmail(email);
+        return entity;
+    }
+
+    private void mockSearch(final List<UserProfileMongo> matches) {
+        Mockito.when(mongoOperations.count(Mockito.any(Query.class), Mockito.eq(UserProfileMongo.class)))
+                .thenReturn((long) matches.size());
+        // the ranking sorts the returned list
+        Mockito.when(mongoOperations.find(Mockito.any(Query.class), Mockito.eq(UserProfileMongo.class)))
+                .thenAnswer(invocation -> new ArrayList<>(matches));
+    }
+
+    private static List<String> uids(final Page<UserProfileMongo> page) {
+        return page.getContent().stream().map(UserProfileMongo::getUid).collect(Collectors.toList());
+    }
+
+    @Test
+    public void searchRanked() throws Exception {
+        System.out.println("Testing ranked 'search' of AbstractMongoRepositoryImpl ...");
+        mockSearch(Arrays.asList(
+                userProfile(1L, "carl", "Meyer-Anna", null, null),
+                userProfile(2L, "dora", null, "Anna", null),
+                userProfile(3L, "annabel", null, null, null),
+                userProfile(4L, "bert", null, "Anna", null),
+                userProfile(5L, "anna", "Smith", null, null)));
+
+        final Page<UserProfileMongo> page = repository.search(UserProfileMongo.class, "anna", new PageRequest(0, 10));
+        // equal ranks are ordered by the user name
+        TestCase.assertEquals(Arrays.asList("anna", "bert", "dora", "annabel", "carl"), uids(page));
+        TestCase.assertEquals(5L, page.getTotalElements());
+
+        final Page<UserProfileMongo> secondPage = repository.search(UserProfileMongo.class, "anna",
+                new PageRequest(1, 2));
+        TestCase.assertEquals(Arrays.asList("dora", "annabel"), uids(secondPage));
+
+        // the ranked candidates are the first matches by ID
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoOperations, Mockito.times(2)).find(query.capture(), Mockito.eq(UserProfileMongo.class));
+        TestCase.assertEquals(AbstractMongoRepositoryImpl.RANKING_LIMIT, query.getValue().getLimit());
+        TestCase.assertEquals(1, query.getValue().getSortObject().get("_id"));
+        System.out.println("Testing ranked 'search' of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test
+    public void searchRankedBeyondLimit() throws Exception {
+        System.out.println("Testing ranked 'search' beyond the ranking limit of AbstractMongoRepositoryImpl ...");
+        mockSearch(Collections.singletonList(userProfile(1L, "anna", null, null, null)));
+        final Page<UserProfileMongo> page = repository.search(UserProfileMongo.class, "anna",
+                new PageRequest(AbstractMongoRepositoryImpl.RANKING_LIMIT / 10, 10));
+        TestCase.assertEquals(Collections.singletonList("anna"), uids(page));
+
+        // the matches beyond the ranked ones are ordered by ID
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoOperations).find(query.capture(), Mockito.eq(UserProfileMongo.class));
+        TestCase.assertEquals(AbstractMongoRepositoryImpl.RANKING_LIMIT, query.getValue().getSkip());
+        TestCase.assertEquals(10, query.getValue().getLimit());
+        TestCase.assertEquals(1, query.getValue().getSortObject().get("_id"));
+        System.out.println("Testing ranked 'search' beyond the ranking limit of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test
+    public void searchRankedAcrossLimit() throws Exception {
+        System.out.println("Testing ranked 'search' across the ranking limit of AbstractMongoRepositoryImpl ...");
+        final List<UserProfileMongo> ranked = new ArrayList<>();
+        for (int i = 0; i < AbstractMongoRepositoryImpl.RANKING_LIMIT; i++) {
+            ranked.add(userProfile(i, "anna" + i, null, null, null));
+        }
+        final List<UserProfileMongo> unranked = Arrays.asList(
+                userProfile(AbstractMongoRepositoryImpl.RANKING_LIMIT, "zoe", null, "Anna", null),
+                userProfile(AbstractMongoRepositoryImpl.RANKING_LIMIT + 1, "yan", null, "Anna", null));
+        Mockito.when(mongoOperations.count(Mockito.any(Query.class), Mockito.eq(UserProfileMongo.class)))
+                .thenReturn((long) (ranked.size() + unranked.size()));
+        Mockito.when(mongoOperations.find(Mockito.any(Query.class), Mockito.eq(UserProfileMongo.class)))
+                .thenAnswer(invocation -> ((Query) invocation.getArguments()[0]).getSkip() == 0
+                        ? new ArrayList<>(ranked) : new ArrayList<>(unranked));
+
+        // the page contains the last ranked matches and the following matches by ID
+        final int pageSize = 12;
+        final int rankedOnPage = AbstractMongoRepositoryImpl.RANKING_LIMIT % pageSize;
+        final Page<UserProfileMongo> page = repository.search(UserProfileMongo.class, "anna",
+                new PageRequest(AbstractMongoRepositoryImpl.RANKING_LIMIT / pageSize, pageSize));
+        TestCase.assertEquals(rankedOnPage + unranked.size(), page.getNumberOfElements());
+        TestCase.assertEquals(Arrays.asList("zoe", "yan"),
+                uids(page).subList(rankedOnPage, page.getNumberOfElements()));
+
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoOperations, Mockito.times(2)).find(query.capture(), Mockito.eq(UserProfileMongo.class));
+        TestCase.assertEquals(AbstractMongoRepositoryImpl.RANKING_LIMIT, query.getValue().getSkip());
+        TestCase.assertEquals(pageSize - rankedOnPage, query.getValue().getLimit());
+        System.out.println("Testing ranked 'search' across the ranking limit of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test
+    public void searchSorted() throws Exception {
+        System.out.println("Testing sorted 'search' of AbstractMongoRepositoryImpl ...");
+        mockSearch(Collections.singletonList(userProfile(1L, "anna", null, null, null)));
+        repository.search(UserProfileMongo.class, "anna",
+                new PageRequest(AbstractMongoRepositoryImpl.RANKING_LIMIT, 10, Sort.Direction.ASC, "lastName"));
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoOperations).find(query.capture(), Mockito.eq(UserProfileMongo.class));
+        // ties of the sort order are broken by the ID
+        TestCase.assertEquals(Arrays.asList("lastName", "_id"),
+                new ArrayList<>(query.getValue().getSortObject().keySet()));
+        TestCase.assertEquals(AbstractMongoRepositoryImpl.RANKING_LIMIT * 10, query.getValue().getSkip());
+        System.out.println("Testing sorted 'search' of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test
+    public void searchWithoutKeys() throws Exception {
+        System.out.println("Testing 'search' without keys of AbstractMongoRepositoryImpl ...");
+        final Page<UserProfileMongo> page = repository.search(UserProfileMongo.class, " - ", new PageRequest(0, 10));
+        TestCase.assertEquals(0L, page.getTotalElements());
+        Mockito.verifyZeroInteractions(mongoOperations);
+        System.out.println("Testing 'search' without keys of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test
+    public void createMissingSearchKeys() throws Exception {
+        System.out.println("Testing 'createMissingSearchKeys' of AbstractMongoRepositoryImpl ...");
+        final UserProfileMongo anna = userProfile(1L, "anna", "Smith", "Anna", "anna@example.org");
+        final UserProfileMongo bert = userProfile(2L, "bert", "Meyer", "Bert", "bert@example.org");
+        Mockito.when(mongoOperations.find(Mockito.any(Query.class), Mockito.eq(UserProfileMongo.class)))
+                .thenReturn(Arrays.asList(anna, bert))
+                .thenReturn(Collections.emptyList());
+
+        repository.createMissingSearchKeys(UserProfileMongo.class);
+
+        Mockito.verify(mongoOperations).save(anna);
+        Mockito.verify(mongoOperations).save(bert);
+        TestCase.assertTrue(anna.getSearchKeys().containsAll(Arrays.asList("a:anna", "t:smith", "t:example")));
+        TestCase.assertTrue(bert.getSearchKeys().containsAll(Arrays.asList("a:bert", "t:meyer")));
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoOperations, Mockito.times(2)).find(query.capture(), Mockito.eq(UserProfileMongo.class));
+        TestCase.assertTrue(query.getValue().getQueryObject().containsField("searchKeys"));
+        System.out.println("Testing 'createMissingSearchKeys' of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    private static final String[] KEYSET_FIELDS = {"lastName", "uid"};
+
+    private static DBObject keysetCriteria(final String... values) {
+        return AbstractMongoRepositoryImpl.createKeysetCriteria(KEYSET_FIELDS, Arrays.asList(values))
+                .getCriteriaObject();
+    }
+
+    private static DBObject and(final DBObject... conditions) {
+        final BasicDBList list = new BasicDBList();
+        list.addAll(Arrays.asList(conditions));
+        return new BasicDBObject("$and", list);
+    }
+
+    private static List<Object> alternatives(final DBObject criteria) {
+        return new ArrayList<>((BasicDBList) criteria.get("$or"));
+    }
+
+    @Test
+    public void createKeysetCriteria() throws Exception {
+        System.out.println("Testing 'createKeysetCriteria' of AbstractMongoRepositoryImpl ...");
+        final List<Object> alternatives = alternatives(keysetCriteria("Smith", "anna"));
+        TestCase.assertEquals(Arrays.asList(
+                new BasicDBObject("lastName", new BasicDBObject("$gt", "Smith")),
+                and(new BasicDBObject("lastName", "Smith"), new BasicDBObject("uid", new BasicDBObject("$gt", "anna")))),
+                alternatives);
+        System.out.println("Testing 'createKeysetCriteria' of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test
+    public void createKeysetCriteriaWithNullValues() throws Exception {
+        System.out.println("Testing 'createKeysetCriteria' with null values of AbstractMongoRepositoryImpl ...");
+        // null is sorted before every other value, so every other last name is after it
+        final List<Object> alternatives = alternatives(keysetCriteria(null, "anna"));
+        TestCase.assertEquals(Arrays.asList(
+                new BasicDBObject("lastName", new BasicDBObject("$ne", null)),
+                and(new BasicDBObject("lastName", null), new BasicDBObject("uid", new BasicDBObject("$gt", "anna")))),
+                alternatives);
+        System.out.println("Testing 'createKeysetCriteria' with null values of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test
+    public void findByCursor() throws Exception {
+        System.out.println("Testing 'findByCursor' of AbstractMongoRepositoryImpl ...");
+        Mockito.when(mongoOperations.find(Mockito.any(Query.class), Mockito.eq(UserProfileMongo.class)))
+                .thenAnswer(invocation -> new ArrayList<>(Arrays.asList(
+                        userProfile(1L, "anna", null, null, null),
+                        userProfile(2L, "bert", null, null, null),
+                        userProfile(3L, "carl", "Meyer", null, null))))
+                .thenAnswer(invocation -> new ArrayList<>(Collections.singletonList(
+                        userProfile(3L, "carl", "Meyer", null, null))));
+
+        final KeysetPage<UserProfileMongo> first = repository.findByCursor(null, 2, null, false);
+        TestCase.assertEquals(2, first.getEntries().size());
+        TestCase.assertNotNull(first.getNextCursor());
+        final KeysetCursor cursor = KeysetCursor.decode(first.getNextCursor(), KEYSET_FIELDS.length);
+        TestCase.assertNull(cursor.getQuery());
+        TestCase.assertEquals(Arrays.asList(null, "bert"), cursor.getValues());
+
+        final KeysetPage<UserProfileMongo> second = repository.findByCursor(first.getNextCursor(), 2, null, false);
+        TestCase.assertEquals(1, second.getEntries().size());
+        TestCase.assertNull(second.getNextCursor());
+
+        final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoOperations, Mockito.times(2)).find(query.capture(), Mockito.eq(UserProfileMongo.class));
+        TestCase.assertEquals(3, query.getAllValues().get(0).getLimit());
+        TestCase.assertEquals(Arrays.asList("lastName", "uid"),
+                new ArrayList<>(query.getValue().getSortObject().keySet()));
+        TestCase.assertEquals(keysetCriteria(null, "bert"), query.getValue().getQueryObject());
+        System.out.println("Testing 'findByCursor' of AbstractMongoRepositoryImpl ... DONE!");
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void findByInvalidCursor() throws Exception {
+        System.out.println("Testing 'findByCursor' with an invalid cursor of AbstractMongoRepositoryImpl ...");
+        repository.findByCursor("invalid", 2, null, false);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.domain.mongodb.repository;
+
+import junit.framework.TestCase;
+import org.bremersee.common.exception.BadRequestException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Christian Bremer
+ */
+public class KeysetCursorTest {
+
+    private static KeysetCursor roundTrip(final String query, final String... values) {
+        final KeysetCursor cursor = new KeysetCursor(query, Arrays.asList(values));
+        final String encoded = cursor.encode();
+        TestCase.assertTrue(encoded.matches("[A-Za-z0-9_~.-]*"));
+        final KeysetCursor decoded = KeysetCursor.decode(encoded, values.length);
+        TestCase.assertEquals(query, decoded.getQuery());
+        TestCase.assertEquals(Arrays.asList(values), decoded.getValues());
+        return decoded;
+    }
+
+    private static void assertInvalid(final String cursor, final int keyLength) {
+        try {
+            KeysetCursor.decode(cursor, keyLength);
+            TestCase.fail("Cursor [" + cursor + "] must be rejected.");
+        } catch (BadRequestException e) {
+            TestCase.assertEquals("Cursor is invalid.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        System.out.println("Testing encoding and decoding of KeysetCursor ...");
+        roundTrip("anna", "Smith", "anna");
+        roundTrip("M\u00fcller ^j", "M\u00fcller", "j\u00fcrgen");
+        roundTrip("", "", "");
+        System.out.println("Testing encoding and decoding of KeysetCursor ... DONE!");
+    }
+
+    @Test
+    public void roundTripWithNullValues() throws Exception {
+        System.out.println("Testing encoding and decoding of KeysetCursor with null values ...");
+        roundTrip(null, null, "anna");
+        roundTrip(null, (String) null, null);
+        final List<String> values = Collections.singletonList(null);
+        TestCase.assertEquals("~.~", new KeysetCursor(null, values).encode());
+        // an empty value is not a null value
+        TestCase.assertEquals("", KeysetCursor.decode(".", 1).getQuery());
+        System.out.println("Testing encoding and decoding of KeysetCursor with null values ... DONE!");
+    }
+
+    @Test
+    public void roundTripWithSeparators() throws Exception {
+        System.out.println("Testing encoding and decoding of KeysetCursor with separators in values ...");
+        roundTrip("a.b ~c", "~", "anna.smith@example.org");
+        roundTrip("~", ".", "~.~");
+        roundTrip("..", "~~", "..~");
+        System.out.println("Testing encoding and decoding of KeysetCursor with separators in values ... DONE!");
+    }
+
+    @Test
+    public void decodeInvalidCursor() throws Exception {
+        System.out.println("Testing decoding of an invalid KeysetCursor ...");
+        final String valid = new KeysetCursor("anna", Arrays.asList("Smith", "anna")).encode();
+        // too few and too many values
+        assertInvalid(valid, 3);
+        assertInvalid(valid, 1);
+        assertInvalid("", 2);
+        // not base64
+        assertInvalid("~.Sm!th.~", 2);
+        assertInvalid("~.a b.~", 2);
+        System.out.println("Testing decoding of an invalid KeysetCursor ... DONE!");
+    }
+
+}
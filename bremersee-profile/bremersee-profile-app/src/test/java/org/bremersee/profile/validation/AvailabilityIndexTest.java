@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.validation;
+
+import junit.framework.TestCase;
+import org.bremersee.profile.domain.ldap.dao.UserProfileLdapDao;
+import org.bremersee.profile.domain.ldap.entity.UserProfileLdap;
+import org.bremersee.profile.domain.mongodb.entity.UserRegistrationMongo;
+import org.bremersee.profile.domain.mongodb.repository.MailChangeRequestMongoRepository;
+import org.bremersee.profile.domain.mongodb.repository.OAuth2ClientMongoRepository;
+import org.bremersee.profile.domain.mongodb.repository.UserRegistrationMongoRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * @author Christian Bremer
+ */
+public class AvailabilityIndexTest {
+
+    private UserRegistrationMongoRepository userRegistrationMongoRepository;
+
+    private UserProfileLdapDao userProfileLdapDao;
+
+    private AvailabilityIndex index;
+
+    @Before
+    public void init() {
+        userRegistrationMongoRepository = Mockito.mock(UserRegistrationMongoRepository.class);
+        userProfileLdapDao = Mockito.mock(UserProfileLdapDao.class);
+        final OAuth2ClientMongoRepository oAuth2ClientMongoRepository = Mockito.mock(
+                OAuth2ClientMongoRepository.class);
+        final MailChangeRequestMongoRepository mailChangeRequestMongoRepository = Mockito.mock(
+                MailChangeRequestMongoRepository.class);
+        Mockito.when(userRegistrationMongoRepository.findAll()).thenReturn(Collections.emptyList());
+        Mockito.when(userProfileLdapDao.streamAllUserNamesAndEmails()).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(oAuth2ClientMongoRepository.findAll()).thenReturn(Collections.emptyList());
+        Mockito.when(mailChangeRequestMongoRepository.findAll()).thenReturn(Collections.emptyList());
+
+        index = new AvailabilityIndex(userRegistrationMongoRepository, userProfileLdapDao,
+                oAuth2ClientMongoRepository, mailChangeRequestMongoRepository);
+        final AvailabilityIndexConfig config = new AvailabilityIndexConfig();
+        config.setEnabled(true);
+        config.setExpectedInsertions(1000L);
+        config.setFalsePositiveProbability(0.0001D);
+        index.setConfig(config);
+    }
+
+    @Test
+    public void mightContainBeforeRebuild() throws Exception {
+        System.out.println("Testing 'mightContain' before the first rebuild of AvailabilityIndex ...");
+        // without an index every value may be used
+        TestCase.assertTrue(index.mightContainUserName(ValidatorConstants.USER_TABLE_MASK, "anna"));
+        System.out.println("Testing 'mightContain' before the first rebuild of AvailabilityIndex ... DONE!");
+    }
+
+    @Test
+    public void rebuild() throws Exception {
+        System.out.println("Testing 'rebuild' of AvailabilityIndex ...");
+        final UserRegistrationMongo registration = new UserRegistrationMongo();
+        registration.setUid("Anna");
+        registration.setEmail("Anna@Example.org");
+        Mockito.when(userRegistrationMongoRepository.findAll()).thenReturn(Collections.singletonList(registration));
+        final UserProfileLdap userProfile = new UserProfileLdap();
+        userProfile.setUid("bert");
+        userProfile.setEmail("bert@example.org");
+        Mockito.when(userProfileLdapDao.streamAllUserNamesAndEmails()).thenAnswer(invocation -> Stream.of(userProfile));
+        index.rebuild();
+
+        TestCase.assertTrue(index.mightContainUserName(ValidatorConstants.USER_REGISTRATION_TABLE_MASK, "Anna"));
+        TestCase.assertTrue(index.mightContainEmail(ValidatorConstants.USER_REGISTRATION_TABLE_MASK,
+                "Anna@Example.org"));
+        TestCase.assertTrue(index.mightContainUserName(ValidatorConstants.USER_TABLE_MASK, "bert"));
+        TestCase.assertFalse(index.mightContainUserName(ValidatorConstants.USER_TABLE_MASK, "Anna"));
+        TestCase.assertFalse(index.mightContainUserName(ValidatorConstants.USER_REGISTRATION_TABLE_MASK, "carl"));
+        System.out.println("Testing 'rebuild' of AvailabilityIndex ... DONE!");
+    }
+
+    @Test
+    public void ignoreCase() throws Exception {
+        System.out.println("Testing case insensitive keys of AvailabilityIndex ...");
+        final UserRegistrationMongo registration = new UserRegistrationMongo();
+        registration.setUid("Anna");
+        registration.setEmail("Anna@Example.org");
+        Mockito.when(userRegistrationMongoRepository.findAll()).thenReturn(Collections.singletonList(registration));
+        index.rebuild();
+        index.addUserName(ValidatorConstants.USER_TABLE_MASK, "BERT");
+        index.addEmail(ValidatorConstants.USER_TABLE_MASK, "Bert@Example.ORG");
+
+        TestCase.assertTrue(index.mightContainUserName(ValidatorConstants.USER_REGISTRATION_TABLE_MASK, "aNNA"));
+        TestCase.assertTrue(index.mightContainEmail(ValidatorConstants.USER_REGISTRATION_TABLE_MASK,
+                "anna@example.org"));
+        TestCase.assertTrue(index.mightContainUserName(ValidatorConstants.USER_TABLE_MASK, "bert"));
+        TestCase.assertTrue(index.mightContainEmail(ValidatorConstants.USER_TABLE_MASK, "bert@example.org"));
+        System.out.println("Testing case insensitive keys of AvailabilityIndex ... DONE!");
+    }
+
+    @Test
+    public void addWhileRebuilding() throws Exception {
+        System.out.println("Testing 'add' while rebuilding AvailabilityIndex ...");
+        index.rebuild();
+
+        // The stores are read before the new user is saved, so only the journal knows the new user.
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch added = new CountDownLatch(1);
+        Mockito.when(userProfileLdapDao.streamAllUserNamesAndEmails()).thenAnswer(invocation -> {
+            reading.countDown();
+            TestCase.assertTrue(added.await(10L, TimeUnit.SECONDS));
+            return Stream.empty();
+        });
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> rebuild = executor.submit(index::rebuild);
+            TestCase.assertTrue(reading.await(10L, TimeUnit.SECONDS));
+            index.addUserName(ValidatorConstants.USER_TABLE_MASK, "anna");
+            // the current index knows the new user at once
+            TestCase.assertTrue(index.mightContainUserName(ValidatorConstants.USER_TABLE_MASK, "anna"));
+            added.countDown();
+            rebuild.get(10L, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the rebuilt index has replayed the journal
+        TestCase.assertTrue(index.mightContainUserName(ValidatorConstants.USER_TABLE_MASK, "anna"));
+        TestCase.assertFalse(index.mightContainUserName(ValidatorConstants.USER_TABLE_MASK, "bert"));
+        System.out.println("Testing 'add' while rebuilding AvailabilityIndex ... DONE!");
+    }
+
+}
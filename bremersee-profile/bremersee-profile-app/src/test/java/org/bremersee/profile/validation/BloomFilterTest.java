@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.validation;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() throws Exception {
+        System.out.println("Testing no false negatives of BloomFilter ...");
+        final BloomFilter filter = new BloomFilter(10000L, 0.01D);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i + "@example.org");
+        }
+        for (int i = 0; i < 10000; i++) {
+            TestCase.assertTrue(filter.mightContain("user" + i + "@example.org"));
+        }
+        System.out.println("Testing no false negatives of BloomFilter ... DONE!");
+    }
+
+    @Test
+    public void falsePositiveProbability() throws Exception {
+        System.out.println("Testing false positive probability of BloomFilter ...");
+        final BloomFilter filter = new BloomFilter(10000L, 0.01D);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        // the expected value is 100, the tolerance is generous
+        TestCase.assertTrue("Too many false positives: " + falsePositives, falsePositives < 300);
+        System.out.println("Testing false positive probability of BloomFilter ... DONE!");
+    }
+
+    @Test
+    public void emptyFilter() throws Exception {
+        System.out.println("Testing empty BloomFilter ...");
+        final BloomFilter filter = new BloomFilter(0L, 2D);
+        TestCase.assertFalse(filter.mightContain("anna"));
+        filter.put("anna");
+        TestCase.assertTrue(filter.mightContain("anna"));
+        System.out.println("Testing empty BloomFilter ... DONE!");
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.profile.validation;
+
+import junit.framework.TestCase;
+import org.bremersee.common.exception.AlreadyExistsException;
+import org.bremersee.profile.domain.ldap.dao.UserProfileLdapDao;
+import org.bremersee.profile.domain.mongodb.repository.OAuth2ClientMongoRepository;
+import org.bremersee.profile.domain.mongodb.repository.UserRegistrationMongoRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * @author Christian Bremer
+ */
+public class DefaultUserNameValidatorTest {
+
+    private UserProfileLdapDao userProfileLdapDao;
+
+    private DefaultUserNameValidator validator;
+
+    @Before
+    public void init() {
+        userProfileLdapDao = Mockito.mock(UserProfileLdapDao.class);
+        validator = new DefaultUserNameValidator(Mockito.mock(UserRegistrationMongoRepository.class),
+                userProfileLdapDao, Mockito.mock(OAuth2ClientMongoRepository.class));
+        // the index doesn't know the user name, because another node has created it
+        final AvailabilityIndex availabilityIndex = Mockito.mock(AvailabilityIndex.class);
+        Mockito.when(availabilityIndex.mightContainUserName(Mockito.anyInt(), Mockito.anyString())).thenReturn(false);
+        validator.setAvailabilityIndex(availabilityIndex);
+        Mockito.when(userProfileLdapDao.existsByUserName("anna")).thenReturn(true);
+    }
+
+    @Test(expected = AlreadyExistsException.class)
+    public void validateNewIgnoresIndex() throws Exception {
+        System.out.println("Testing 'validateNew' of DefaultUserNameValidator ignores the availability index ...");
+        validator.validateNew("anna", ValidatorConstants.ALL_TABLE_MASK);
+    }
+
+    @Test
+    public void isAvailableUsesIndex() throws Exception {
+        System.out.println("Testing 'isAvailable' of DefaultUserNameValidator uses the availability index ...");
+        TestCase.assertTrue(validator.isAvailable("anna", ValidatorConstants.ALL_TABLE_MASK));
+        Mockito.verify(userProfileLdapDao, Mockito.never()).existsByUserName("anna");
+        System.out.println("Testing 'isAvailable' of DefaultUserNameValidator uses the availability index ... DONE!");
+    }
+
+}